@@ -0,0 +1,83 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * 배치 API(addAll/deleteAll)와 단건 호출 반복(add/delete) 비교
+ * - 반복(iteration)마다 size개로 트리를 새로 적재한 뒤 batch개를 삽입/삭제 → 점수 = 배치 하나의 시간
+ * - 삭제 대상은 적재된 점 중 서로 다른 batch개 (비복원 추출)
+ *
+ * 실행: java -jar target/benchmarks.jar BatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BatchBenchmark {
+
+    @Param
+    public Dataset dataset;
+
+    @Param({ "100000", "1000000" })
+    public int size;
+
+    @Param({ "10000" })
+    public int batch;
+
+    @Param({ "32" })
+    public int maxEntries;
+
+    private double[][] points;
+    private List<Point> additions, deletions;
+    private RTreeImpl tree;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        points = dataset.generate(size, 42);
+        double[][] extra = dataset.generate(batch, 44);
+        additions = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) additions.add(new Point(extra[0][i], extra[1][i]));
+
+        deletions = new ArrayList<>(batch);
+        for (int p : Dataset.sample(size, batch, 45)) deletions.add(new Point(points[0][p], points[1][p]));
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        tree = RTreeImpl.bulkLoad(points[0], points[1], size, maxEntries, RTreeImpl.defaultMinEntries(maxEntries),
+                SplitPolicy.RSTAR);
+    }
+
+    @Benchmark
+    public RTreeImpl addLoop() {
+        for (Point p : additions) tree.add(p);
+        return tree;
+    }
+
+    @Benchmark
+    public RTreeImpl addAll() {
+        tree.addAll(additions);
+        return tree;
+    }
+
+    @Benchmark
+    public RTreeImpl deleteLoop() {
+        for (Point p : deletions) tree.delete(p);
+        return tree;
+    }
+
+    @Benchmark
+    public RTreeImpl deleteAll() {
+        tree.deleteAll(deletions);
+        return tree;
+    }
+}
@@ -0,0 +1,98 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.dfpl.dbp.rtree.CachingRTree;
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.RTree;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.Rectangle;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 대시보드 부하: 같은 질의 몇십 개(범위 절반, KNN 절반)를 돌아가며 반복하고, updateEvery번마다 점 하나를 추가
+ * - plain : RTreeImpl에 직접 질의
+ * - cached: CachingRTree (capacity = 질의 수) → 갱신된 점을 포함하는 결과만 다시 계산
+ * - 점수 = 질의 하나(+ 그 사이의 갱신) 평균 시간. 적중률/invalidation 수는 TearDown에서 출력
+ *
+ * 실행: java -jar target/benchmarks.jar CacheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CacheBenchmark {
+
+    @Param({ "UNIFORM" })
+    public Dataset dataset;
+
+    @Param({ "1000000" })
+    public int size;
+
+    @Param({ "64" })
+    public int queries;
+
+    @Param({ "10", "1000" })
+    public int updateEvery;
+
+    @Param({ "0.0001" })
+    public double selectivity;
+
+    private RTreeImpl plainTree;
+    private CachingRTree cachedTree;
+    private Rectangle[] ranges;
+    private Point[] sources;
+    private Random updates;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        double[][] points = dataset.generate(size, 42);
+        plainTree = RTreeImpl.bulkLoad(points[0], points[1], size, 32, 12, SplitPolicy.RSTAR);
+        cachedTree = new CachingRTree(RTreeImpl.bulkLoad(points[0], points[1], size, 32, 12, SplitPolicy.RSTAR),
+                queries);
+
+        Random random = new Random(43);
+        double half = Dataset.SPACE * Math.sqrt(selectivity) / 2;
+        ranges = new Rectangle[queries / 2];
+        sources = new Point[queries - ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            double x = random.nextDouble() * Dataset.SPACE, y = random.nextDouble() * Dataset.SPACE;
+            ranges[i] = new Rectangle(new Point(x - half, y - half), new Point(x + half, y + half));
+        }
+        for (int i = 0; i < sources.length; i++)
+            sources[i] = new Point(random.nextDouble() * Dataset.SPACE, random.nextDouble() * Dataset.SPACE);
+        updates = new Random(44);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nhit rate %.3f, evictions %d, invalidations %d%n", cachedTree.getHitRate(),
+                cachedTree.getEvictionCount(), cachedTree.getInvalidationCount());
+    }
+
+    private void step(RTree tree, Blackhole bh) {
+        int i = next++;
+        if (i % updateEvery == 0)
+            tree.add(new Point(updates.nextDouble() * Dataset.SPACE, updates.nextDouble() * Dataset.SPACE));
+        int q = i % queries;
+        Iterator<Point> it = q < ranges.length ? tree.search(ranges[q]) : tree.nearest(sources[q - ranges.length], 10);
+        while (it.hasNext()) bh.consume(it.next());
+    }
+
+    @Benchmark
+    public void plain(Blackhole bh) {
+        step(plainTree, bh);
+    }
+
+    @Benchmark
+    public void cached(Blackhole bh) {
+        step(cachedTree, bh);
+    }
+}
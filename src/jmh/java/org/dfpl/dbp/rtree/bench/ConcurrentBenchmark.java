@@ -0,0 +1,75 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.dfpl.dbp.rtree.ConcurrentRTree;
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * ConcurrentRTree 읽기 처리량 (쓰기 스레드가 계속 삽입하는 중)
+ * - readOnly : 읽기만 (스레드 수는 -t로 조절해 코어 수에 따른 확장성 확인)
+ * - mixed    : 읽기 스레드 3 + 쓰기 스레드 1
+ *
+ * 실행: mvn -P jmh package && java -jar target/benchmarks.jar ConcurrentBenchmark -t 1,2,4,8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentBenchmark {
+
+    private static final double SPACE = 1_000_000;
+
+    @Param({ "1000000" })
+    public int size;
+
+    private ConcurrentRTree tree;
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        double[] xs = new double[size], ys = new double[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = random.nextDouble() * SPACE;
+            ys[i] = random.nextDouble() * SPACE;
+        }
+        tree = new ConcurrentRTree(RTreeImpl.bulkLoad(xs, ys, size, 32, 12, SplitPolicy.RSTAR));
+    }
+
+    private int search(ThreadRandom r, Blackhole bh) {
+        double side = SPACE / 100; // 면적의 0.01%
+        double x = r.random.nextDouble() * (SPACE - side), y = r.random.nextDouble() * (SPACE - side);
+        return tree.search(x, y, x + side, y + side, (px, py) -> bh.consume(px));
+    }
+
+    @Benchmark
+    public int readOnly(ThreadRandom r, Blackhole bh) {
+        return search(r, bh);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public int mixedSearch(ThreadRandom r, Blackhole bh) {
+        return search(r, bh);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedAdd(ThreadRandom r) {
+        tree.add(new Point(r.random.nextDouble() * SPACE, r.random.nextDouble() * SPACE));
+    }
+}
@@ -0,0 +1,100 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.PointConsumer;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.Rectangle;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 질의당 할당량: Point/Iterator를 돌려주는 API와 PointConsumer API 비교
+ * - -prof gc의 gc.alloc.rate.norm(B/op)으로 확인. consumer 쪽은 0에 가까워야 함
+ *
+ * 실행: java -jar target/benchmarks.jar ConsumerBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConsumerBenchmark {
+
+    private static final int QUERIES = 1024; // 2의 거듭제곱 (인덱스 마스킹)
+
+    @Param({ "UNIFORM" })
+    public Dataset dataset;
+
+    @Param({ "1000000" })
+    public int size;
+
+    @Param({ "32" })
+    public int maxEntries;
+
+    @Param({ "0.0001" })
+    public double selectivity;
+
+    @Param({ "10" })
+    public int k;
+
+    private RTreeImpl tree;
+    private double[] qx, qy;
+    private int next;
+    private Blackhole blackhole;
+    private final PointConsumer sink = (x, y) -> {
+        blackhole.consume(x);
+        blackhole.consume(y);
+    };
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole bh) {
+        blackhole = bh;
+        double[][] points = dataset.generate(size, 42);
+        tree = RTreeImpl.bulkLoad(points[0], points[1], size, maxEntries, RTreeImpl.defaultMinEntries(maxEntries),
+                SplitPolicy.RSTAR);
+
+        Random random = new Random(43);
+        qx = new double[QUERIES];
+        qy = new double[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int p = random.nextInt(size);
+            qx[i] = points[0][p];
+            qy[i] = points[1][p];
+        }
+    }
+
+    @Benchmark
+    public void searchIterator(Blackhole bh) {
+        int i = next++ & (QUERIES - 1);
+        double half = Dataset.SPACE * Math.sqrt(selectivity) / 2;
+        Iterator<Point> it = tree.search(new Rectangle(new Point(qx[i] - half, qy[i] - half),
+                new Point(qx[i] + half, qy[i] + half)));
+        while (it.hasNext()) bh.consume(it.next());
+    }
+
+    @Benchmark
+    public int searchConsumer() {
+        int i = next++ & (QUERIES - 1);
+        double half = Dataset.SPACE * Math.sqrt(selectivity) / 2;
+        return tree.search(qx[i] - half, qy[i] - half, qx[i] + half, qy[i] + half, sink);
+    }
+
+    @Benchmark
+    public void nearestIterator(Blackhole bh) {
+        int i = next++ & (QUERIES - 1);
+        Iterator<Point> it = tree.nearest(new Point(qx[i] + 0.5, qy[i] + 0.5), k);
+        while (it.hasNext()) bh.consume(it.next());
+    }
+
+    @Benchmark
+    public int nearestConsumer() {
+        int i = next++ & (QUERIES - 1);
+        return tree.nearest(qx[i] + 0.5, qy[i] + 0.5, k, sink);
+    }
+}
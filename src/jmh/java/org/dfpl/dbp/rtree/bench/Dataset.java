@@ -0,0 +1,89 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 벤치마크용 점 분포 (좌표 범위 [0, SPACE))
+ * - UNIFORM   : 균등 분포
+ * - CLUSTERED : 가우시안 군집 100개 (표준편차 = SPACE의 0.5%)
+ * - SKEWED    : 좌표마다 u³ (원점 쪽으로 밀집, 멱법칙 형태)
+ */
+public enum Dataset {
+    UNIFORM {
+        @Override
+        void fill(Random random, double[] xs, double[] ys, int from, int to) {
+            for (int i = from; i < to; i++) {
+                xs[i] = random.nextDouble() * SPACE;
+                ys[i] = random.nextDouble() * SPACE;
+            }
+        }
+    },
+    CLUSTERED {
+        @Override
+        void fill(Random random, double[] xs, double[] ys, int from, int to) {
+            // 군집 중심은 고정 seed → 같은 데이터셋에서 나중에 만든 점(add용)도 같은 군집에 속함
+            Random centers = new Random(CLUSTER_SEED);
+            double[] cx = new double[CLUSTERS], cy = new double[CLUSTERS];
+            for (int c = 0; c < CLUSTERS; c++) {
+                cx[c] = centers.nextDouble() * SPACE;
+                cy[c] = centers.nextDouble() * SPACE;
+            }
+            double sigma = SPACE * 0.005;
+            for (int i = from; i < to; i++) {
+                int c = random.nextInt(CLUSTERS);
+                xs[i] = clamp(cx[c] + random.nextGaussian() * sigma);
+                ys[i] = clamp(cy[c] + random.nextGaussian() * sigma);
+            }
+        }
+    },
+    SKEWED {
+        @Override
+        void fill(Random random, double[] xs, double[] ys, int from, int to) {
+            for (int i = from; i < to; i++) {
+                double u = random.nextDouble(), v = random.nextDouble();
+                xs[i] = u * u * u * SPACE;
+                ys[i] = v * v * v * SPACE;
+            }
+        }
+    };
+
+    public static final double SPACE = 1_000_000;
+    private static final int CLUSTERS = 100;
+    private static final long CLUSTER_SEED = 7;
+
+    abstract void fill(Random random, double[] xs, double[] ys, int from, int to);
+
+    private static double clamp(double v) {
+        return Math.max(0, Math.min(Math.nextDown(SPACE), v));
+    }
+
+    /**
+     * n개의 점 생성
+     *
+     * @return { xs, ys }
+     */
+    public double[][] generate(int n, long seed) {
+        double[] xs = new double[n], ys = new double[n];
+        fill(new Random(seed), xs, ys, 0, n);
+        return new double[][] { xs, ys };
+    }
+
+    /**
+     * 0 ~ n-1 중 서로 다른 인덱스 count개를 무작위로 뽑음 (비복원, 부분 Fisher–Yates)
+     * - 삭제 대상을 복원 추출하면 반복된 인덱스가 아무것도 지우지 않는 delete가 되어 측정을 부풀림
+     */
+    public static int[] sample(int n, int count, long seed) {
+        if (count > n) throw new IllegalArgumentException("count > n: " + count + " > " + n);
+        Random random = new Random(seed);
+        int[] idx = new int[n];
+        for (int i = 0; i < n; i++) idx[i] = i;
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(n - i);
+            int t = idx[i];
+            idx[i] = idx[j];
+            idx[j] = t;
+        }
+        return Arrays.copyOf(idx, count);
+    }
+}
@@ -0,0 +1,117 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.dfpl.dbp.rtree.DurableRTree;
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * DurableRTree 쓰기 처리량과 복구 시간
+ * - write   : 갱신마다 fsync까지 기다리는 add 처리량. 스레드가 많을수록 group commit으로 fsync 한 번에 여러 레코드가 묶임
+ *             (-t로 스레드 수 조절, 임시 디렉터리 사용 → 디스크/파일시스템에 따라 크게 달라짐)
+ * - recover : checkpoint(size개 점) + 로그 tail개 레코드가 있는 디렉터리를 open (적재 + 재적용) 하는 시간
+ *
+ * 실행: java -jar target/benchmarks.jar DurableBenchmark.write -t 1,8
+ *       java -jar target/benchmarks.jar DurableBenchmark.recover
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DurableBenchmark {
+
+    private static final int MAX_ENTRIES = 32;
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path f : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(f);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Log {
+        @Param({ "67108864" })
+        public long checkpointBytes;
+
+        Path dir;
+        DurableRTree tree;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("rtree-wal");
+            tree = DurableRTree.open(dir, MAX_ENTRIES, 12, SplitPolicy.RSTAR, checkpointBytes);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            System.out.printf("%n%d records, %d fsyncs%n", tree.getLastLsn(), tree.getSyncCount());
+            tree.close();
+            deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recovery {
+        @Param({ "1000000" })
+        public int size;
+
+        @Param({ "0", "100000" })
+        public int tail;
+
+        Path dir;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("rtree-recovery");
+            double[][] points = Dataset.UNIFORM.generate(size + tail, 42);
+            try (DurableRTree tree = DurableRTree.open(dir, MAX_ENTRIES, 12, SplitPolicy.RSTAR, 0)) {
+                tree.addAll(slice(points, 0, size));
+                tree.checkpoint();
+                tree.addAll(slice(points, size, size + tail));
+            }
+        }
+
+        private static List<Point> slice(double[][] points, int from, int to) {
+            List<Point> list = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) list.add(new Point(points[0][i], points[1][i]));
+            return list;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            deleteRecursively(dir);
+        }
+    }
+
+    @Benchmark
+    public void write(Log log, ThreadRandom r) {
+        log.tree.add(new Point(r.random.nextDouble() * Dataset.SPACE, r.random.nextDouble() * Dataset.SPACE));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public long recover(Recovery recovery) throws IOException {
+        try (DurableRTree tree = DurableRTree.open(recovery.dir)) {
+            return tree.getRecoveredRecords();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.Rectangle;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 최대 차수 M(fan-out)에 따른 질의 지연 시간
+ * - 균등 분포 점 n개, m = 0.4M, 분할 정책은 파라미터
+ * - 영역 질의(약 0.01% 면적)와 KNN(k=10)
+ *
+ * 실행: mvn -P jmh package && java -jar target/benchmarks.jar FanoutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanoutBenchmark {
+
+    private static final int QUERIES = 1024; // 2의 거듭제곱 (인덱스 마스킹)
+    private static final double SPACE = 1_000_000;
+
+    @Param({ "4", "8", "16", "32", "64", "128" })
+    public int maxEntries;
+
+    @Param({ "100000" })
+    public int size;
+
+    @Param({ "QUADRATIC", "RSTAR" })
+    public SplitPolicy policy;
+
+    private RTreeImpl tree;
+    private Rectangle[] windows;
+    private Point[] sources;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        tree = new RTreeImpl(maxEntries, RTreeImpl.defaultMinEntries(maxEntries), policy);
+        for (int i = 0; i < size; i++)
+            tree.add(new Point(random.nextDouble() * SPACE, random.nextDouble() * SPACE));
+
+        double side = SPACE / 100; // 면적의 0.01%
+        windows = new Rectangle[QUERIES];
+        sources = new Point[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            double x = random.nextDouble() * (SPACE - side), y = random.nextDouble() * (SPACE - side);
+            windows[i] = new Rectangle(new Point(x, y), new Point(x + side, y + side));
+            sources[i] = new Point(random.nextDouble() * SPACE, random.nextDouble() * SPACE);
+        }
+    }
+
+    @Benchmark
+    public void search(Blackhole bh) {
+        Iterator<Point> it = tree.search(windows[next++ & (QUERIES - 1)]);
+        while (it.hasNext()) bh.consume(it.next());
+    }
+
+    @Benchmark
+    public void nearest10(Blackhole bh) {
+        Iterator<Point> it = tree.nearest(sources[next++ & (QUERIES - 1)], 10);
+        while (it.hasNext()) bh.consume(it.next());
+    }
+}
@@ -0,0 +1,125 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.dfpl.dbp.rtree.HilbertCurve;
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.Rectangle;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.davidmoten.rtree.Entries;
+import com.github.davidmoten.rtree.Entry;
+import com.github.davidmoten.rtree.RTree;
+import com.github.davidmoten.rtree.geometry.Geometries;
+
+/**
+ * 같은 벤치마크 코드로 여러 R-Tree 구현을 돌리기 위한 어댑터
+ * - 질의 결과는 모두 Blackhole로 소비 (구현별 결과 타입을 그대로 사용)
+ */
+public interface IndexAdapter {
+
+    void add(double x, double y);
+
+    void delete(double x, double y);
+
+    void search(double minX, double minY, double maxX, double maxY, Blackhole bh);
+
+    void nearest(double x, double y, int k, Blackhole bh);
+
+    // 비교 대상 구현
+    enum Implementation {
+        // 이 저장소의 RTreeImpl (STR 일괄 적재, R* 분할)
+        RTREE_IMPL {
+            @Override
+            public IndexAdapter load(double[] xs, double[] ys, int n, int maxEntries) {
+                return new Ours(RTreeImpl.bulkLoad(xs, ys, n, maxEntries, RTreeImpl.defaultMinEntries(maxEntries),
+                        SplitPolicy.RSTAR));
+            }
+        },
+        // 이 저장소의 RTreeImpl, Hilbert R-tree 모드 (힐베르트 순 일괄 적재, sibling 나눠 갖기)
+        RTREE_IMPL_HILBERT {
+            @Override
+            public IndexAdapter load(double[] xs, double[] ys, int n, int maxEntries) {
+                return new Ours(RTreeImpl.bulkLoad(xs, ys, n, maxEntries, RTreeImpl.defaultMinEntries(maxEntries),
+                        HilbertCurve.UNBOUNDED));
+            }
+        },
+        // com.github.davidmoten:rtree 0.12 (R*, create(List)로 일괄 적재, 불변 트리)
+        DAVIDMOTEN {
+            @Override
+            public IndexAdapter load(double[] xs, double[] ys, int n, int maxEntries) {
+                List<Entry<Object, com.github.davidmoten.rtree.geometry.Point>> entries = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) entries.add(Entries.entry(DavidMoten.VALUE, Geometries.point(xs[i], ys[i])));
+                return new DavidMoten(RTree.star().maxChildren(maxEntries)
+                        .minChildren(RTreeImpl.defaultMinEntries(maxEntries)).create(entries));
+            }
+        };
+
+        public abstract IndexAdapter load(double[] xs, double[] ys, int n, int maxEntries);
+    }
+
+    final class Ours implements IndexAdapter {
+        private final RTreeImpl tree;
+
+        Ours(RTreeImpl tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void add(double x, double y) {
+            tree.add(new Point(x, y));
+        }
+
+        @Override
+        public void delete(double x, double y) {
+            tree.delete(new Point(x, y));
+        }
+
+        @Override
+        public void search(double minX, double minY, double maxX, double maxY, Blackhole bh) {
+            Iterator<Point> it = tree.search(new Rectangle(new Point(minX, minY), new Point(maxX, maxY)));
+            while (it.hasNext()) bh.consume(it.next());
+        }
+
+        @Override
+        public void nearest(double x, double y, int k, Blackhole bh) {
+            Iterator<Point> it = tree.nearest(new Point(x, y), k);
+            while (it.hasNext()) bh.consume(it.next());
+        }
+    }
+
+    final class DavidMoten implements IndexAdapter {
+        static final Object VALUE = Boolean.TRUE;
+
+        private RTree<Object, com.github.davidmoten.rtree.geometry.Point> tree; // 불변: 갱신마다 교체
+
+        DavidMoten(RTree<Object, com.github.davidmoten.rtree.geometry.Point> tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void add(double x, double y) {
+            tree = tree.add(VALUE, Geometries.point(x, y));
+        }
+
+        @Override
+        public void delete(double x, double y) {
+            tree = tree.delete(VALUE, Geometries.point(x, y));
+        }
+
+        @Override
+        public void search(double minX, double minY, double maxX, double maxY, Blackhole bh) {
+            tree.search(Geometries.rectangle(minX, minY, maxX, maxY)).forEach(bh::consume);
+        }
+
+        // 0.12의 nearest는 maxDistance 안의 엔트리를 모두 훑은 뒤 k개를 고름 → 거리 제한 없이 호출하면 전체 탐색
+        @Override
+        public void nearest(double x, double y, int k, Blackhole bh) {
+            tree.nearest(Geometries.point(x, y), Double.MAX_VALUE, k).forEach(bh::consume);
+        }
+    }
+}
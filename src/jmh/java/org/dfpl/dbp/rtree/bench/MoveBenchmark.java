@@ -0,0 +1,92 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * 움직이는 점의 위치 갱신: move(from, to)와 delete(from) + add(to) 비교
+ * - 반복(iteration)마다 size개로 트리를 새로 적재한 뒤 무작위 점을 batch번 옮김 → 점수 = batch번의 총 시간
+ * - step: 한 번에 x, y 각각 최대 ±step 이동 (좌표 범위 Dataset.SPACE = 10^6, 10^6개 균등 분포의 점 간격 ≈ 1000)
+ *
+ * 실행: java -jar target/benchmarks.jar MoveBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MoveBenchmark {
+
+    @Param
+    public Dataset dataset;
+
+    @Param({ "100000", "1000000" })
+    public int size;
+
+    @Param({ "10000" })
+    public int batch;
+
+    @Param({ "10", "1000", "100000" })
+    public double step;
+
+    @Param({ "32" })
+    public int maxEntries;
+
+    private double[][] points;
+    private int[] movers;
+    private double[] dx, dy;
+    private double[] xs, ys;
+    private RTreeImpl tree;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        points = dataset.generate(size, 42);
+        Random random = new Random(46);
+        movers = new int[batch];
+        dx = new double[batch];
+        dy = new double[batch];
+        for (int i = 0; i < batch; i++) {
+            movers[i] = random.nextInt(size);
+            dx[i] = (random.nextDouble() * 2 - 1) * step;
+            dy[i] = (random.nextDouble() * 2 - 1) * step;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        tree = RTreeImpl.bulkLoad(points[0], points[1], size, maxEntries, RTreeImpl.defaultMinEntries(maxEntries),
+                SplitPolicy.RSTAR);
+        xs = points[0].clone(); // 현재 위치 (같은 점이 여러 번 움직일 수 있음)
+        ys = points[1].clone();
+    }
+
+    @Benchmark
+    public RTreeImpl move() {
+        for (int i = 0; i < batch; i++) {
+            int p = movers[i];
+            Point from = new Point(xs[p], ys[p]);
+            xs[p] += dx[i];
+            ys[p] += dy[i];
+            tree.move(from, new Point(xs[p], ys[p]));
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public RTreeImpl deleteAdd() {
+        for (int i = 0; i < batch; i++) {
+            int p = movers[i];
+            tree.delete(new Point(xs[p], ys[p]));
+            xs[p] += dx[i];
+            ys[p] += dy[i];
+            tree.add(new Point(xs[p], ys[p]));
+        }
+        return tree;
+    }
+}
@@ -0,0 +1,102 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.RTreeListener;
+import org.dfpl.dbp.rtree.Rectangle;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 분할 정책 × 분포별 질의당 노드 방문 수
+ * - 점 n개를 하나씩 add (분할 정책은 동적 삽입에서만 쓰이므로 bulkLoad 하지 않음)
+ * - search   : 데이터 점을 중심으로 한 변 = SPACE × √selectivity 인 정사각형
+ * - nearest10: 데이터 점 근처에서 k = 10
+ * - 방문 수는 RTreeListener.nodeVisited를 세는 보조 카운터(visits, ops/ms)로 나옴
+ *   → visits 점수 ÷ 같은 벤치마크의 ops/ms = 질의당 평균 노드 방문 수
+ *
+ * 실행: java -jar target/benchmarks.jar NodeVisitBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class NodeVisitBenchmark {
+
+    private static final int QUERIES = 1024; // 2의 거듭제곱 (인덱스 마스킹)
+
+    @Param
+    public SplitPolicy policy;
+
+    @Param
+    public Dataset dataset;
+
+    @Param({ "4", "32" })
+    public int maxEntries;
+
+    @Param({ "100000" })
+    public int size;
+
+    @Param({ "0.0001" })
+    public double selectivity;
+
+    // 반복(iteration)마다 0부터 센 노드 방문 수
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Visits implements RTreeListener {
+        public long visits;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            visits = 0;
+        }
+
+        @Override
+        public void nodeVisited(RTreeImpl.Node node) {
+            visits++;
+        }
+    }
+
+    private RTreeImpl tree;
+    private Rectangle[] windows;
+    private Point[] sources;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Visits visits) {
+        double[][] points = dataset.generate(size, 42);
+        tree = new RTreeImpl(maxEntries, RTreeImpl.defaultMinEntries(maxEntries), policy);
+        for (int i = 0; i < size; i++) tree.add(new Point(points[0][i], points[1][i]));
+
+        Random random = new Random(43);
+        double half = Dataset.SPACE * Math.sqrt(selectivity) / 2;
+        windows = new Rectangle[QUERIES];
+        sources = new Point[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int p = random.nextInt(size);
+            double x = points[0][p], y = points[1][p];
+            windows[i] = new Rectangle(new Point(x - half, y - half), new Point(x + half, y + half));
+            sources[i] = new Point(x + 0.5, y + 0.5);
+        }
+        tree.addListener(visits);
+    }
+
+    @Benchmark
+    public void search(Blackhole bh) {
+        Iterator<Point> it = tree.search(windows[next++ & (QUERIES - 1)]);
+        while (it.hasNext()) bh.consume(it.next());
+    }
+
+    @Benchmark
+    public void nearest10(Blackhole bh) {
+        Iterator<Point> it = tree.nearest(sources[next++ & (QUERIES - 1)], 10);
+        while (it.hasNext()) bh.consume(it.next());
+    }
+}
@@ -0,0 +1,84 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.Rectangle;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 넓은 영역 질의/큰 k KNN 한 건의 지연 시간: 순차(search/nearest) vs 병렬(searchParallel/nearestParallel)
+ * - 병렬은 ForkJoinPool.commonPool() 사용 (코어 수 - 1 스레드 + 호출 스레드)
+ *
+ * 실행: java -jar target/benchmarks.jar ParallelBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParallelBenchmark {
+
+    private static final int QUERIES = 64; // 2의 거듭제곱 (인덱스 마스킹)
+
+    @Param({ "1000000" })
+    public int size;
+
+    @Param({ "0.1" })
+    public double selectivity;
+
+    @Param({ "10000" })
+    public int k;
+
+    private RTreeImpl tree;
+    private Rectangle[] windows;
+    private Point[] sources;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        double[][] points = Dataset.UNIFORM.generate(size, 42);
+        tree = RTreeImpl.bulkLoad(points[0], points[1], size, 32, 12, SplitPolicy.RSTAR);
+
+        Random random = new Random(43);
+        double side = Dataset.SPACE * Math.sqrt(selectivity);
+        windows = new Rectangle[QUERIES];
+        sources = new Point[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            double x = random.nextDouble() * (Dataset.SPACE - side), y = random.nextDouble() * (Dataset.SPACE - side);
+            windows[i] = new Rectangle(new Point(x, y), new Point(x + side, y + side));
+            sources[i] = new Point(random.nextDouble() * Dataset.SPACE, random.nextDouble() * Dataset.SPACE);
+        }
+    }
+
+    private static void drain(Iterator<Point> it, Blackhole bh) {
+        while (it.hasNext()) bh.consume(it.next());
+    }
+
+    @Benchmark
+    public void search(Blackhole bh) {
+        drain(tree.search(windows[next++ & (QUERIES - 1)]), bh);
+    }
+
+    @Benchmark
+    public void searchParallel(Blackhole bh) {
+        drain(tree.searchParallel(windows[next++ & (QUERIES - 1)], ForkJoinPool.commonPool()), bh);
+    }
+
+    @Benchmark
+    public void nearest(Blackhole bh) {
+        drain(tree.nearest(sources[next++ & (QUERIES - 1)], k), bh);
+    }
+
+    @Benchmark
+    public void nearestParallel(Blackhole bh) {
+        drain(tree.nearestParallel(sources[next++ & (QUERIES - 1)], k, ForkJoinPool.commonPool()), bh);
+    }
+}
@@ -0,0 +1,83 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 영역 질의/KNN 지연 시간: 구현 × 분포 × 크기(10^4 ~ 10^7)
+ * - 질의 위치는 데이터 점에서 뽑음 (분포가 치우쳐도 빈 질의만 재지 않도록)
+ * - search  : 한 변 = SPACE × √selectivity 인 정사각형 (면적 비율 selectivity)
+ * - nearest : k개
+ * - selectivity는 Range, k는 Knn 상태에 둠 → search는 selectivity만, nearest는 k만 바꿔 가며 잼
+ *
+ * 실행: java -jar target/benchmarks.jar QueryBenchmark -p size=1000000 -p dataset=CLUSTERED
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QueryBenchmark {
+
+    private static final int QUERIES = 1024; // 2의 거듭제곱 (인덱스 마스킹)
+
+    @Param
+    public IndexAdapter.Implementation implementation;
+
+    @Param
+    public Dataset dataset;
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int size;
+
+    @Param({ "32" })
+    public int maxEntries;
+
+    private IndexAdapter index;
+    private double[] qx, qy;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        double[][] points = dataset.generate(size, 42);
+        index = implementation.load(points[0], points[1], size, maxEntries);
+
+        Random random = new Random(43);
+        qx = new double[QUERIES];
+        qy = new double[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int p = random.nextInt(size);
+            qx[i] = points[0][p];
+            qy[i] = points[1][p];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Range {
+        @Param({ "0.0001", "0.001", "0.01" })
+        public double selectivity;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Knn {
+        @Param({ "1", "10", "100" })
+        public int k;
+    }
+
+    @Benchmark
+    public void search(Range range, Blackhole bh) {
+        int i = next++ & (QUERIES - 1);
+        double half = Dataset.SPACE * Math.sqrt(range.selectivity) / 2;
+        index.search(qx[i] - half, qy[i] - half, qx[i] + half, qy[i] + half, bh);
+    }
+
+    @Benchmark
+    public void nearest(Knn knn, Blackhole bh) {
+        int i = next++ & (QUERIES - 1);
+        index.nearest(qx[i] + 0.5, qy[i] + 0.5, knn.k, bh);
+    }
+}
@@ -0,0 +1,80 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+import org.dfpl.dbp.rtree.Point;
+import org.dfpl.dbp.rtree.RTreeImpl;
+import org.dfpl.dbp.rtree.RTreeSnapshot;
+import org.dfpl.dbp.rtree.SplitPolicy;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * 트리 복원 시간: 스냅샷 읽기(RTreeSnapshot.read)와 점을 하나씩 다시 넣기(add), STR 일괄 적재(bulkLoad) 비교
+ * - 스냅샷은 메모리(byte[])에 써 두고 읽음 → 디스크가 아닌 디코딩/노드 생성 비용. 크기는 setUp에서 출력
+ * - write: 같은 트리를 스냅샷으로 쓰는 시간
+ *
+ * 실행: java -jar target/benchmarks.jar SnapshotBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SnapshotBenchmark {
+
+    @Param({ "UNIFORM" })
+    public Dataset dataset;
+
+    @Param({ "1000000" })
+    public int size;
+
+    @Param({ "32" })
+    public int maxEntries;
+
+    @Param
+    public RTreeSnapshot.Encoding encoding;
+
+    private double[][] points;
+    private RTreeImpl tree;
+    private byte[] snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        points = dataset.generate(size, 42);
+        tree = new RTreeImpl(maxEntries, RTreeImpl.defaultMinEntries(maxEntries), SplitPolicy.RSTAR);
+        for (int i = 0; i < size; i++) tree.add(new Point(points[0][i], points[1][i]));
+        snapshot = write();
+        System.out.printf("%n%s snapshot: %d bytes (%.1f bytes/point)%n", encoding, snapshot.length,
+                (double) snapshot.length / size);
+    }
+
+    @Benchmark
+    public RTreeImpl read() throws IOException {
+        return RTreeSnapshot.read(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 17);
+        RTreeSnapshot.write(tree, Channels.newChannel(out), encoding);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public RTreeImpl reinsert() {
+        RTreeImpl t = new RTreeImpl(maxEntries, RTreeImpl.defaultMinEntries(maxEntries), SplitPolicy.RSTAR);
+        for (int i = 0; i < size; i++) t.add(new Point(points[0][i], points[1][i]));
+        return t;
+    }
+
+    @Benchmark
+    public RTreeImpl bulkLoad() {
+        return RTreeImpl.bulkLoad(points[0], points[1], size, maxEntries, RTreeImpl.defaultMinEntries(maxEntries),
+                SplitPolicy.RSTAR);
+    }
+}
@@ -0,0 +1,76 @@
+package org.dfpl.dbp.rtree.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * 삽입/삭제 비용: 구현 × 분포 × 크기(10^4 ~ 10^7)
+ * - 반복(iteration)마다 size개로 트리를 새로 적재한 뒤 BATCH번 add 또는 delete → 점수 = BATCH번의 총 시간
+ * - add   : 같은 분포에서 새로 뽑은 점
+ * - delete: 적재된 점 중 서로 다른 무작위 BATCH개 (비복원 추출 → 모든 delete가 실제로 점을 지움)
+ *
+ * 실행: java -jar target/benchmarks.jar UpdateBenchmark -p size=1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = UpdateBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = UpdateBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UpdateBenchmark {
+
+    static final int BATCH = 1000;
+
+    @Param
+    public IndexAdapter.Implementation implementation;
+
+    @Param
+    public Dataset dataset;
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int size;
+
+    @Param({ "32" })
+    public int maxEntries;
+
+    private double[][] points;
+    private double[] addX, addY, deleteX, deleteY;
+    private IndexAdapter index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        points = dataset.generate(size, 42);
+        double[][] extra = dataset.generate(BATCH, 44);
+        addX = extra[0];
+        addY = extra[1];
+
+        int[] targets = Dataset.sample(size, BATCH, 45);
+        deleteX = new double[BATCH];
+        deleteY = new double[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            int p = targets[i];
+            deleteX[i] = points[0][p];
+            deleteY[i] = points[1][p];
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        index = implementation.load(points[0], points[1], size, maxEntries);
+        next = 0;
+    }
+
+    @Benchmark
+    public void add() {
+        int i = next++;
+        index.add(addX[i], addY[i]);
+    }
+
+    @Benchmark
+    public void delete() {
+        int i = next++;
+        index.delete(deleteX[i], deleteY[i]);
+    }
+}
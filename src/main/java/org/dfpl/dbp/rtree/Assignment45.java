@@ -18,14 +18,15 @@ public class Assignment45 {
         // Task1: 4-way R-Tree의 생성 (5점)
         // 요건: point가 추가될 때마다 Java Swing 혹은 Java Fx 등의 GUI에 추가된 점과 함께
         // 점에 의해 변형된 계층적 Bounding Box들이 표시되어야 함
-        RTree rTree = new RTreeImpl();
+        RTreeImpl rTree = new RTreeImpl();
+        RTreeVisualizer visualizer = RTreeVisualizer.show(rTree, true);
         for (Point point : pointList) {
             rTree.add(point);
 
             /* debug */
             System.out.println("{add : " + point+"}");
-            RTreeImpl.Node.printAllMBRs();
-            RTreeImpl.waitForKeyPress();
+            visualizer.printAllMBRs();
+            RTreeVisualizer.waitForKeyPress();
         }
 
         // Task234는 Task1이 성공하지 않으면 평가하지 않는다.
@@ -83,8 +84,8 @@ public class Assignment45 {
 
             /* debug */
             System.out.println("[delete : " + point + "]");
-            RTreeImpl.waitForKeyPress();
-            RTreeImpl.Node.printAllMBRs();
+            RTreeVisualizer.waitForKeyPress();
+            visualizer.printAllMBRs();
         }
         System.out.println(rTree.isEmpty());
     }
@@ -0,0 +1,277 @@
+package org.dfpl.dbp.rtree;
+
+import java.util.*;
+
+/*
+ * 질의 결과 캐시를 앞에 둔 R-Tree (같은 search/nearest를 반복하고 갱신은 드문 경우용)
+ * - search(Rectangle), nearest(Point, k)의 결과 좌표를 질의 모양(사각형 / 중심 + k)을 키로 보관
+ *      * 적중 시 좌표로 매번 새 Point를 만들어 돌려줌 (Point는 변경 가능 → 호출자가 고쳐도 캐시는 그대로)
+ *      * 크기 제한 LRU: capacity개를 넘으면 가장 오래 안 쓴 결과를 버림 (eviction)
+ *      * 결과가 maxResultSize개를 넘는 질의는 캐시하지 않음 (큰 범위 하나가 메모리를 차지하지 않도록)
+ * - add/delete/move로 트리가 실제로 바뀌면, 바뀐 점에 영향을 받는 결과만 버림 (invalidation)
+ *      * 범위 질의: 사각형이 점을 포함할 때
+ *      * KNN: 점이 k번째 결과까지의 거리(반지름) 이내일 때. 결과가 k개 미만이면(트리의 점이 모자람) 어떤 갱신이든
+ *      * 영향 범위(사각형 / 중심 ± 반지름 정사각형)를 EntryRTree에 넣어 두고 바뀐 점을 포함하는 것만 찾음
+ *        → 캐시가 커도 갱신마다 모든 결과를 훑지 않음
+ * - 통계: 적중/실패/eviction/invalidation 수
+ * - 스레드 안전하지 않음 (RTreeImpl과 같음)
+ */
+public class CachingRTree implements RTree {
+
+    public static final int DEFAULT_MAX_RESULT_SIZE = 10_000;
+
+    // 캐시 키: 범위 질의(k = 0)면 사각형, KNN이면 (x1, y1) = 중심
+    private static final class Query {
+        final double x1, y1, x2, y2;
+        final int k;
+
+        Query(double x1, double y1, double x2, double y2, int k) {
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+            this.k = k;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Query)) return false;
+            Query q = (Query) o;
+            return k == q.k && Double.compare(x1, q.x1) == 0 && Double.compare(y1, q.y1) == 0
+                    && Double.compare(x2, q.x2) == 0 && Double.compare(y2, q.y2) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(x1, y1, x2, y2, k);
+        }
+    }
+
+    // 캐시된 결과와 영향 범위 (equals는 객체 동일성 → regions에서 정확히 이 결과만 지움)
+    private static final class Result {
+        final Query query;
+        final double[] coords;           // 결과 점 좌표 x0, y0, x1, y1, ... (결과 순서대로)
+        final double radius;             // KNN: k번째 결과까지의 거리 (범위 질의는 사용 안 함)
+        EntryRTree.Entry<Result> region; // regions에 넣은 영향 범위, 어디든 영향이면 null
+
+        Result(Query query, List<Point> points, double radius) {
+            this.query = query;
+            this.coords = new double[2 * points.size()];
+            for (int i = 0; i < points.size(); i++) {
+                coords[2 * i] = points.get(i).getX();
+                coords[2 * i + 1] = points.get(i).getY();
+            }
+            this.radius = radius;
+        }
+
+        // 호출마다 새 Point를 만드는 iterator
+        Iterator<Point> points() {
+            return new Iterator<>() {
+                int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < coords.length;
+                }
+
+                @Override
+                public Point next() {
+                    if (next >= coords.length) throw new NoSuchElementException();
+                    Point p = new Point(coords[next], coords[next + 1]);
+                    next += 2;
+                    return p;
+                }
+            };
+        }
+    }
+
+    private final RTreeImpl tree;
+    private final int capacity;
+    private final int maxResultSize;
+    private final LinkedHashMap<Query, Result> cache;
+    private EntryRTree<Result> regions = newRegions();
+    private final Set<Result> everywhere = new HashSet<>(); // 어떤 갱신에도 영향을 받는 결과
+
+    private long hits, misses, evictions, invalidations;
+
+    /**
+     * @param tree     감쌀 트리. 이후 tree를 직접 갱신하면 캐시가 맞지 않게 됨
+     * @param capacity 보관할 최대 질의 수
+     */
+    public CachingRTree(RTreeImpl tree, int capacity) {
+        this(tree, capacity, DEFAULT_MAX_RESULT_SIZE);
+    }
+
+    /**
+     * @param maxResultSize 이보다 결과가 많은 질의는 캐시하지 않음
+     */
+    public CachingRTree(RTreeImpl tree, int capacity, int maxResultSize) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+        this.tree = Objects.requireNonNull(tree);
+        this.capacity = capacity;
+        this.maxResultSize = maxResultSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Query, Result> eldest) {
+                if (size() <= CachingRTree.this.capacity) return false;
+                forget(eldest.getValue());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /*-----------------QUERY----------------*/
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        double x1 = rectangle.getLeftTop().getX(), y1 = rectangle.getLeftTop().getY();
+        double x2 = rectangle.getRightBottom().getX(), y2 = rectangle.getRightBottom().getY();
+        Query query = new Query(x1, y1, x2, y2, 0);
+        Result cached = cache.get(query);
+        if (cached != null) {
+            hits++;
+            return cached.points();
+        }
+        misses++;
+        List<Point> points = new ArrayList<>();
+        tree.search(rectangle).forEachRemaining(points::add);
+        if (points.size() <= maxResultSize) remember(query, points, 0, x1, y1, x2, y2);
+        return Collections.unmodifiableList(points).iterator();
+    }
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        double x = source.getX(), y = source.getY();
+        Query query = new Query(x, y, x, y, maxCount);
+        Result cached = cache.get(query);
+        if (cached != null) {
+            hits++;
+            return cached.points();
+        }
+        misses++;
+        List<Point> points = new ArrayList<>();
+        tree.nearest(source, maxCount).forEachRemaining(points::add);
+        if (maxCount > 0 && points.size() <= maxResultSize) {
+            // 결과가 k개 미만이면 새 점은 어디에 추가돼도 결과에 들어감 → 반지름 무한대
+            double r = points.size() < maxCount ? Double.POSITIVE_INFINITY : source.distance(points.get(points.size() - 1));
+            remember(query, points, r, x - r, y - r, x + r, y + r);
+        }
+        return Collections.unmodifiableList(points).iterator();
+    }
+
+    private static EntryRTree<Result> newRegions() {
+        return new EntryRTree<>(16, 6, SplitPolicy.RSTAR);
+    }
+
+    private void remember(Query query, List<Point> points, double radius, double x1, double y1, double x2, double y2) {
+        Result result = new Result(query, points, radius);
+        if (Double.isFinite(x1) && Double.isFinite(y1) && Double.isFinite(x2) && Double.isFinite(y2)) {
+            result.region = new EntryRTree.Entry<>(x1, y1, x2, y2, result);
+            regions.add(result.region.getRectangle(), result);
+        } else {
+            everywhere.add(result);
+        }
+        cache.put(query, result);
+    }
+
+    // 캐시에서 빠진 결과의 영향 범위를 지움
+    private void forget(Result result) {
+        if (result.region != null) regions.delete(result.region);
+        else everywhere.remove(result);
+    }
+
+    /*-----------------UPDATE----------------*/
+    @Override
+    public void add(Point point) {
+        int before = tree.size();
+        tree.add(point);
+        if (tree.size() != before) invalidate(point.getX(), point.getY());
+    }
+
+    @Override
+    public void delete(Point point) {
+        int before = tree.size();
+        tree.delete(point);
+        if (tree.size() != before) invalidate(point.getX(), point.getY());
+    }
+
+    /**
+     * 점 이동 (RTreeImpl.move). 이전 위치와 새 위치 각각에 영향을 받는 결과를 버림
+     *
+     * @return from이 트리에 있었으면 true
+     */
+    public boolean move(Point from, Point to) {
+        int before = tree.size();
+        boolean moved = tree.move(from, to);
+        if (moved && !from.equals(to)) {
+            invalidate(from.getX(), from.getY());
+            if (tree.size() == before) invalidate(to.getX(), to.getY()); // 줄었으면 to는 이미 있던 점
+        }
+        return moved;
+    }
+
+    // (x, y)의 점이 추가/삭제되어 바뀔 수 있는 결과만 버림
+    private void invalidate(double x, double y) {
+        List<Result> stale = new ArrayList<>(everywhere);
+        Iterator<EntryRTree.Entry<Result>> it = regions.containing(new Rectangle(new Point(x, y), new Point(x, y)));
+        while (it.hasNext()) {
+            Result result = it.next().getValue();
+            Query query = result.query;
+            if (query.k > 0) {
+                double dx = query.x1 - x, dy = query.y1 - y;
+                if (Math.sqrt(dx * dx + dy * dy) > result.radius) continue; // 정사각형 모서리 쪽 (원 밖)
+            }
+            stale.add(result);
+        }
+        for (Result result : stale) {
+            cache.remove(result.query);
+            forget(result);
+            invalidations++;
+        }
+    }
+
+    /**
+     * 캐시를 모두 비움 (통계는 유지)
+     */
+    public void invalidateAll() {
+        cache.clear();
+        regions = newRegions();
+        everywhere.clear();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    /*-----------------STATS----------------*/
+    // 지금 캐시에 있는 질의 수
+    public int getCachedCount() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    // 적중 비율 (질의가 없으면 0)
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // capacity를 넘어 버린 결과 수
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    // 갱신 때문에 버린 결과 수
+    public long getInvalidationCount() {
+        return invalidations;
+    }
+}
@@ -0,0 +1,236 @@
+package org.dfpl.dbp.rtree;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * 여러 스레드가 함께 쓰는 R-Tree (copy-on-write 경로 복사 + 원자적 루트 교체)
+ * - 쓰기(add/delete/move): 하나의 lock 아래에서 순서대로 수행. 내부 RTreeImpl은 공개된 노드를 고치지 않고
+ *   바뀌는 노드를 루트까지 경로째 복사하며(O(높이 × M)), 끝나면 새 루트를 volatile 필드로 공개
+ * - 읽기(search/nearest/isEmpty): lock 없이 호출 시점의 루트(스냅샷)에서 수행 → 쓰기에 막히지 않고,
+ *   결과는 항상 어떤 쓰기 직후의 완전한 트리 기준 (순회 중 다른 쓰기가 있어도 ConcurrentModificationException 없음)
+ * - 공개된 노드는 더 이상 바뀌지 않으므로 읽기 쪽에는 동기화 비용이 전혀 없음
+ * - listener는 지원하지 않음 (콜백이 여러 스레드에서 불리게 되므로)
+ */
+public class ConcurrentRTree implements RTree {
+
+    private final RTreeImpl tree;                 // 쓰기용 작업 트리 (writeLock 안에서만 수정)
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile RTreeImpl.Node root;         // 마지막으로 공개된 스냅샷 루트
+
+    public ConcurrentRTree() {
+        this(new RTreeImpl());
+    }
+
+    public ConcurrentRTree(int maxEntries, int minEntries, SplitPolicy splitPolicy) {
+        this(new RTreeImpl(maxEntries, minEntries, splitPolicy));
+    }
+
+    // Hilbert R-tree 모드
+    public ConcurrentRTree(int maxEntries, int minEntries, HilbertCurve curve) {
+        this(new RTreeImpl(maxEntries, minEntries, curve));
+    }
+
+    /**
+     * tree를 넘겨받아 감쌈 (예: RTreeImpl.bulkLoad 결과). 이후 tree를 직접 사용하면 안 됨.
+     *
+     * @param tree
+     */
+    public ConcurrentRTree(RTreeImpl tree) {
+        this.tree = tree;
+        tree.enableCopyOnWrite();
+        root = tree.root();
+    }
+
+    @Override
+    public void add(Point point) {
+        writeLock.lock();
+        try {
+            tree.add(point);
+            root = tree.publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(Point point) {
+        writeLock.lock();
+        try {
+            tree.delete(point);
+            root = tree.publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 점 이동 (RTreeImpl.move). 이동 전/후 중 한 상태만 보임
+     *
+     * @return from이 트리에 있었으면 true
+     */
+    public boolean move(Point from, Point to) {
+        writeLock.lock();
+        try {
+            boolean moved = tree.move(from, to);
+            root = tree.publish();
+            return moved;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 배치 삽입 (RTreeImpl.addAll). 배치 전체가 한 번에 공개됨 → 읽기는 배치의 일부만 보는 일이 없음
+     *
+     * @param points
+     */
+    public void addAll(Collection<Point> points) {
+        writeLock.lock();
+        try {
+            tree.addAll(points);
+            root = tree.publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 배치 삭제 (RTreeImpl.deleteAll). 배치 전체가 한 번에 공개됨
+     *
+     * @param points
+     */
+    public void deleteAll(Collection<Point> points) {
+        writeLock.lock();
+        try {
+            tree.deleteAll(points);
+            root = tree.publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // 현재 공개된 스냅샷 루트 (테스트/저장용)
+    RTreeImpl.Node snapshot() {
+        return root;
+    }
+
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        return tree.search(root, rectangle.getLeftTop().getX(), rectangle.getLeftTop().getY(),
+                rectangle.getRightBottom().getX(), rectangle.getRightBottom().getY());
+    }
+
+    /**
+     * 현재 스냅샷에서 여러 영역 질의를 한 번의 순회로 처리 (RTreeImpl.searchBatch 참고)
+     */
+    public List<Iterator<Point>> searchBatch(List<Rectangle> rectangles) {
+        return tree.searchBatch(root, rectangles);
+    }
+
+    /**
+     * 영역 탐색 (primitive API): 범위 안의 점 좌표를 consumer로 넘김. Point 객체를 만들지 않음.
+     *
+     * @return 찾은 점 수
+     */
+    public int search(double minX, double minY, double maxX, double maxY, PointConsumer consumer) {
+        return tree.search(root, minX, minY, maxX, maxY, consumer);
+    }
+
+    /**
+     * 현재 스냅샷에서 범위 안의 점 수 (RTreeImpl.count 참고)
+     */
+    public int count(Rectangle rectangle) {
+        return tree.count(root, rectangle.getLeftTop().getX(), rectangle.getLeftTop().getY(),
+                rectangle.getRightBottom().getX(), rectangle.getRightBottom().getY());
+    }
+
+    /**
+     * 현재 스냅샷에서 조건 탐색 (RTreeImpl.search(SpatialPredicate) 참고)
+     */
+    public Iterator<Point> search(SpatialPredicate predicate) {
+        return tree.search(root, predicate);
+    }
+
+    /**
+     * 조건 탐색 (primitive API): 조건을 만족하는 점 좌표를 consumer로 넘김.
+     *
+     * @return 찾은 점 수
+     */
+    public int search(SpatialPredicate predicate, PointConsumer consumer) {
+        return tree.search(root, predicate, consumer);
+    }
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        return tree.nearest(root, source.getX(), source.getY(), maxCount).iterator();
+    }
+
+    /**
+     * KNN (primitive API): 가까운 k개의 좌표를 가까운 순서대로 consumer로 넘김 (RTreeImpl.nearest(x, y, k, consumer) 참고)
+     *
+     * @return 넘긴 점 수
+     */
+    public int nearest(double x, double y, int k, PointConsumer consumer) {
+        return tree.nearest(root, x, y, k, false, consumer);
+    }
+
+    /**
+     * 현재 스냅샷에서 가까운 점부터 꺼내는 lazy iterator (RTreeImpl.nearestWithin 참고)
+     */
+    public Iterator<Point> nearestWithin(Point source, double maxDistance) {
+        return tree.nearestWithin(root, source.getX(), source.getY(), maxDistance);
+    }
+
+    /**
+     * 현재 스냅샷에서 병렬 영역 탐색 (RTreeImpl.searchParallel 참고)
+     */
+    public Iterator<Point> searchParallel(Rectangle rectangle, ForkJoinPool pool) {
+        return tree.searchParallel(root, rectangle, pool).iterator();
+    }
+
+    /**
+     * 현재 스냅샷에서 병렬 KNN (RTreeImpl.nearestParallel 참고)
+     */
+    public Iterator<Point> nearestParallel(Point source, int maxCount, ForkJoinPool pool) {
+        return tree.nearestParallel(root, source, maxCount, pool).iterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        RTreeImpl.Node r = root;
+        return r.isLeaf && r.size == 0;
+    }
+
+    /**
+     * 현재 스냅샷을 페이지 파일로 저장 (쓰기를 막지 않음). 형식은 MappedRTree 참고.
+     *
+     * @param path 저장할 파일
+     * @throws IOException
+     */
+    public void save(Path path) throws IOException {
+        MappedRTree.write(tree, root, path);
+    }
+
+    /**
+     * 현재 스냅샷을 스트림 형식으로 씀 (쓰기를 막지 않음). 형식은 RTreeSnapshot 참고.
+     *
+     * @param out 채널 (닫지 않음)
+     * @throws IOException
+     */
+    public void writeSnapshot(WritableByteChannel out, RTreeSnapshot.Encoding encoding) throws IOException {
+        writeSnapshot(root, out, encoding);
+    }
+
+    // 고정해 둔 스냅샷 루트를 씀 (DurableRTree checkpoint용)
+    void writeSnapshot(RTreeImpl.Node snapshot, WritableByteChannel out, RTreeSnapshot.Encoding encoding)
+            throws IOException {
+        RTreeSnapshot.write(tree, snapshot, out, encoding);
+    }
+}
@@ -0,0 +1,347 @@
+package org.dfpl.dbp.rtree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/*
+ * 디렉터리 하나에 checkpoint + 쓰기 로그(WAL)로 저장되는, 죽어도 잃지 않는 R-Tree
+ * - add/delete/move/addAll/deleteAll: 트리(ConcurrentRTree)에 반영하고 로그에 레코드를 붙인 뒤,
+ *   레코드가 fsync될 때까지 기다렸다가 반환 → 반환된 갱신은 프로세스/OS가 죽어도 남음
+ *      * fsync는 여러 스레드의 레코드를 한 번에 묶어서 함 (group commit, WriteAheadLog 참고)
+ *      * 읽기(search/nearest/isEmpty)는 ConcurrentRTree 스냅샷에서 lock 없이 수행
+ *        (갱신은 fsync 전에 트리에 먼저 공개되므로, 읽기에는 아직 기다리는 중인 갱신이 보일 수 있음)
+ * - checkpoint(): 현재 스냅샷을 checkpoint-<LSN>.snap로 쓰고, 거기 포함된 로그 세그먼트와 이전 checkpoint를 지움
+ *      * 파일은 RTreeSnapshot 형식 (DELTA 인코딩, 블록별 CRC). 임시 파일에 쓰고 fsync한 뒤 rename,
+ *        디렉터리까지 fsync한 뒤에 이전 파일들을 지움
+ *      * 스냅샷은 copy-on-write로 고정된 루트 → 파일을 쓰는 동안에도 쓰기를 막지 않음
+ *      * 로그가 checkpointBytes를 넘으면 그 레코드를 쓴 스레드가 자동으로 checkpoint
+ * - open(): 가장 최근 checkpoint를 트리 모양 그대로 읽고(분할/정렬 없음), 그 뒤의 로그 레코드를 순서대로 다시 적용
+ * - 점만 저장 (EntryRTree의 값/사각형 엔트리는 지원하지 않음), listener 지원 안 함
+ */
+public class DurableRTree implements RTree, Closeable {
+
+    static final String CHECKPOINT_PREFIX = "checkpoint-";
+    static final String CHECKPOINT_SUFFIX = ".snap";
+
+    public static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+
+    private final Path dir;
+    private final ConcurrentRTree tree;
+    private final int maxEntries;
+    private final SplitPolicy splitPolicy; // HILBERT 트리는 null
+    private final WriteAheadLog log;
+    private final long checkpointBytes;
+    private final long recoveredRecords;
+
+    private final ReentrantLock writeLock = new ReentrantLock();      // 트리 반영 + 로그 append 순서를 묶음
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    private DurableRTree(Path dir, RTreeImpl impl, WriteAheadLog log, long checkpointBytes, long recoveredRecords) {
+        this.dir = dir;
+        this.maxEntries = impl.getMaxEntries();
+        this.splitPolicy = impl.getSplitPolicy();
+        this.tree = new ConcurrentRTree(impl);
+        this.log = log;
+        this.checkpointBytes = checkpointBytes;
+        this.recoveredRecords = recoveredRecords;
+    }
+
+    /**
+     * dir의 트리를 엶 (없으면 빈 트리로 시작), 기본 4-way / quadratic split.
+     */
+    public static DurableRTree open(Path dir) throws IOException {
+        return open(dir, RTreeImpl.DEFAULT_MAX_ENTRIES, RTreeImpl.defaultMinEntries(RTreeImpl.DEFAULT_MAX_ENTRIES),
+                SplitPolicy.QUADRATIC, DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    /**
+     * dir의 트리를 엶: 최근 checkpoint 적재 + 로그 재적용. 마지막 로그 프레임이 깨져 있으면(기록 중 종료) 버림.
+     *
+     * @param dir             저장 디렉터리 (없으면 만듦)
+     * @param maxEntries      새로 만들 때의 M (checkpoint가 있으면 파일의 값을 따름)
+     * @param minEntries      새로 만들 때의 m
+     * @param splitPolicy     새로 만들 때의 분할 정책
+     * @param checkpointBytes 현재 로그 세그먼트가 이 크기를 넘으면 자동 checkpoint (0 이하면 자동 checkpoint 안 함)
+     * @throws IOException 파일을 읽을 수 없거나, checkpoint 이후 로그 세그먼트가 빠져 있을 때
+     */
+    public static DurableRTree open(Path dir, int maxEntries, int minEntries, SplitPolicy splitPolicy,
+                                    long checkpointBytes) throws IOException {
+        return open(dir, maxEntries, minEntries, Objects.requireNonNull(splitPolicy), null, checkpointBytes);
+    }
+
+    /**
+     * dir의 트리를 엶. 새로 만들 때는 curve 격자의 Hilbert R-tree로 시작 (checkpoint가 있으면 파일의 모드를 따름)
+     */
+    public static DurableRTree open(Path dir, int maxEntries, int minEntries, HilbertCurve curve,
+                                    long checkpointBytes) throws IOException {
+        return open(dir, maxEntries, minEntries, null, Objects.requireNonNull(curve), checkpointBytes);
+    }
+
+    private static DurableRTree open(Path dir, int maxEntries, int minEntries, SplitPolicy splitPolicy,
+                                     HilbertCurve curve, long checkpointBytes) throws IOException {
+        Files.createDirectories(dir);
+        for (Path tmp : list(dir, CHECKPOINT_PREFIX, ".tmp")) Files.delete(tmp);
+
+        // 1) 가장 최근 checkpoint
+        RTreeImpl impl = null;
+        long lsn = 0;
+        List<Path> checkpoints = list(dir, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX);
+        if (!checkpoints.isEmpty()) {
+            Path latest = checkpoints.get(checkpoints.size() - 1);
+            impl = RTreeSnapshot.read(latest);
+            lsn = checkpointLsn(latest);
+        }
+        if (impl == null) impl = new RTreeImpl(maxEntries, minEntries, splitPolicy, curve);
+
+        // 2) checkpoint 이후 로그 재적용. 연속된 ADD는 모아서 addAll 한 번으로 (결과는 하나씩 add한 것과 같음)
+        RTreeImpl target = impl;
+        List<Point> adds = new ArrayList<>();
+        long replayed = 0, last = lsn;
+        Path resume = null;
+        for (Path segment : list(dir, WriteAheadLog.PREFIX, WriteAheadLog.SUFFIX)) {
+            long start = WriteAheadLog.segmentStart(segment);
+            if (start > last + 1) throw new IOException("missing write-ahead log before " + segment);
+            long end = WriteAheadLog.replay(segment, lsn, (op, c) -> {
+                if (op == WriteAheadLog.ADD) {
+                    adds.add(new Point(c[0], c[1]));
+                    return;
+                }
+                flushAdds(target, adds);
+                apply(target, op, c);
+            });
+            if (end <= lsn) {
+                Files.delete(segment); // checkpoint에 이미 포함된 세그먼트 (checkpoint 후 지우기 전에 종료)
+                continue;
+            }
+            replayed += end - Math.max(lsn, start - 1);
+            last = end;
+            resume = segment;
+        }
+        flushAdds(target, adds);
+        return new DurableRTree(dir, impl, new WriteAheadLog(dir, last, resume), checkpointBytes, replayed);
+    }
+
+    private static void flushAdds(RTreeImpl tree, List<Point> adds) {
+        if (adds.isEmpty()) return;
+        tree.addAll(adds);
+        adds.clear();
+    }
+
+    private static void apply(RTreeImpl tree, byte op, double[] c) {
+        switch (op) {
+            case WriteAheadLog.DELETE -> tree.delete(new Point(c[0], c[1]));
+            case WriteAheadLog.MOVE -> tree.move(new Point(c[0], c[1]), new Point(c[2], c[3]));
+            default -> throw new IllegalStateException("unknown log record " + op);
+        }
+    }
+
+    // dir에서 prefix*suffix 파일을 이름 순으로 (이름의 LSN이 16진수 고정 폭이므로 = LSN 순)
+    private static List<Path> list(Path dir, String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> {
+                String name = f.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix);
+            }).sorted().toList();
+        }
+    }
+
+    /*-----------------UPDATE----------------*/
+    @Override
+    public void add(Point point) {
+        commit(WriteAheadLog.ADD, () -> tree.add(point), point.getX(), point.getY());
+    }
+
+    @Override
+    public void delete(Point point) {
+        commit(WriteAheadLog.DELETE, () -> tree.delete(point), point.getX(), point.getY());
+    }
+
+    /**
+     * 점 이동 (RTreeImpl.move), 로그에는 레코드 하나
+     *
+     * @return from이 트리에 있었으면 true
+     */
+    public boolean move(Point from, Point to) {
+        boolean[] moved = new boolean[1];
+        commit(WriteAheadLog.MOVE, () -> moved[0] = tree.move(from, to), from.getX(), from.getY(), to.getX(), to.getY());
+        return moved[0];
+    }
+
+    /**
+     * 배치 삽입: 트리에는 한 번에 공개, 로그는 fsync 한 번
+     */
+    public void addAll(Collection<Point> points) {
+        commitAll(WriteAheadLog.ADD, points, () -> tree.addAll(points));
+    }
+
+    /**
+     * 배치 삭제: 트리에는 한 번에 공개, 로그는 fsync 한 번
+     */
+    public void deleteAll(Collection<Point> points) {
+        commitAll(WriteAheadLog.DELETE, points, () -> tree.deleteAll(points));
+    }
+
+    private void commit(byte op, Runnable update, double... coords) {
+        long lsn;
+        writeLock.lock();
+        try {
+            update.run();
+            lsn = log.append(op, coords);
+        } finally {
+            writeLock.unlock();
+        }
+        durable(lsn);
+    }
+
+    private void commitAll(byte op, Collection<Point> points, Runnable update) {
+        long lsn;
+        writeLock.lock();
+        try {
+            update.run();
+            lsn = log.lastLsn();
+            for (Point p : points) lsn = log.append(op, p.getX(), p.getY());
+        } finally {
+            writeLock.unlock();
+        }
+        durable(lsn);
+    }
+
+    // lsn까지 fsync를 기다리고, 로그가 커졌으면 (다른 스레드가 하고 있지 않을 때) checkpoint
+    private void durable(long lsn) {
+        log.sync(lsn);
+        if (checkpointBytes > 0 && log.segmentBytes() > checkpointBytes && checkpointLock.tryLock()) {
+            try {
+                if (log.segmentBytes() > checkpointBytes) checkpointLocked();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                checkpointLock.unlock();
+            }
+        }
+    }
+
+    /*-----------------CHECKPOINT----------------*/
+    /**
+     * 현재 상태를 checkpoint 파일로 쓰고, 거기 포함된 로그 세그먼트와 이전 checkpoint를 지움.
+     * 스냅샷을 고정하는 동안만 쓰기를 막고, 파일은 쓰기와 동시에 씀.
+     *
+     * @throws IOException
+     */
+    public void checkpoint() throws IOException {
+        checkpointLock.lock();
+        try {
+            checkpointLocked();
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    private void checkpointLocked() throws IOException {
+        RTreeImpl.Node snapshot;
+        long lsn;
+        writeLock.lock();
+        try {
+            lsn = log.rotate(); // 스냅샷까지의 레코드 fsync, 이후 레코드는 새 세그먼트로
+            snapshot = tree.snapshot();
+        } finally {
+            writeLock.unlock();
+        }
+
+        Path file = dir.resolve(String.format("%s%016x%s", CHECKPOINT_PREFIX, lsn, CHECKPOINT_SUFFIX));
+        writeCheckpoint(snapshot, file);
+
+        // writeCheckpoint가 rename 후 디렉터리를 fsync한 뒤에만 지움
+        // (아니면 죽은 뒤 지운 것만 남고 rename은 사라져 checkpoint에 담긴 레코드를 잃을 수 있음)
+        for (Path old : list(dir, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX))
+            if (!old.equals(file)) Files.delete(old);
+        for (Path segment : list(dir, WriteAheadLog.PREFIX, WriteAheadLog.SUFFIX))
+            if (WriteAheadLog.segmentStart(segment) <= lsn) Files.delete(segment);
+    }
+
+    // 임시 파일에 스냅샷을 쓰고 fsync한 뒤 이름을 바꿈 → 중간에 죽어도 이전 checkpoint가 그대로 남음
+    private void writeCheckpoint(RTreeImpl.Node snapshot, Path file) throws IOException {
+        Path tmp = dir.resolve(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            tree.writeSnapshot(snapshot, out, RTreeSnapshot.Encoding.DELTA);
+            out.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        WriteAheadLog.syncDirectory(dir);
+    }
+
+    // checkpoint 파일 이름의 LSN (이 파일이 포함하는 마지막 레코드)
+    static long checkpointLsn(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseUnsignedLong(
+                name.substring(CHECKPOINT_PREFIX.length(), name.length() - CHECKPOINT_SUFFIX.length()), 16);
+    }
+
+    /*-----------------READ----------------*/
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        return tree.search(rectangle);
+    }
+
+    /**
+     * 영역 탐색 (primitive API, ConcurrentRTree.search 참고)
+     *
+     * @return 찾은 점 수
+     */
+    public int search(double minX, double minY, double maxX, double maxY, PointConsumer consumer) {
+        return tree.search(minX, minY, maxX, maxY, consumer);
+    }
+
+    @Override
+    public Iterator<Point> nearest(Point source, int maxCount) {
+        return tree.nearest(source, maxCount);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    // 분할 정책 (HILBERT 트리는 null)
+    public SplitPolicy getSplitPolicy() {
+        return splitPolicy;
+    }
+
+    // 마지막으로 적용된 레코드의 LSN
+    public long getLastLsn() {
+        return log.lastLsn();
+    }
+
+    // open 때 checkpoint 뒤에서 다시 적용한 로그 레코드 수
+    public long getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    // 지금까지 한 fsync 수 (group commit이면 갱신 수보다 적음)
+    public long getSyncCount() {
+        return log.syncCount();
+    }
+
+    /**
+     * 남은 레코드를 fsync하고 로그를 닫음. checkpoint는 하지 않음 (다음 open에서 로그를 재적용)
+     */
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            log.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.dfpl.dbp.rtree;
+
+import java.util.*;
+
+/*
+ * 점/사각형마다 값(id, 레코드 등)이 붙은 R-Tree
+ * - 엔트리는 점 또는 사각형(MBR). 사각형은 리프의 최대 꼭짓점 배열(hxs/hys)에 저장되며, 점만 있는 리프는 이 배열을 따로 갖지 않음
+ * - 사각형 질의: search(겹침), within(범위 안에 통째로), containing(범위를 통째로 포함). nearest는 MBR까지의 최소 거리 기준
+ * - 값은 리프의 좌표 배열 옆 values[]에 함께 저장 → 탐색 결과가 곧 (좌표, 값) 엔트리, 좌표 → 레코드 별도 맵이 필요 없음
+ * - 같은 좌표에 여러 값을 넣을 수 있음 (RTreeImpl.add와 달리 좌표 중복 검사를 하지 않음)
+ * - delete는 좌표와 값(equals)이 모두 같은 엔트리 하나를 지움
+ * - 구조/분할/질의는 내부 RTreeImpl 그대로 (값은 점과 함께 분할/재삽입/정리 과정을 따라다님)
+ * - 값은 save/MappedRTree 파일에 저장되지 않음
+ */
+public class EntryRTree<T> {
+
+    /**
+     * 좌표(점 또는 사각형)와 값의 쌍 (불변). 점은 최소 꼭짓점 == 최대 꼭짓점
+     */
+    public static final class Entry<T> {
+        private final double minX, minY, maxX, maxY;
+        private final T value;
+
+        public Entry(double x, double y, T value) {
+            this(x, y, x, y, value);
+        }
+
+        public Entry(double minX, double minY, double maxX, double maxY, T value) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.value = value;
+        }
+
+        // 최소 꼭짓점 (점이면 점 좌표)
+        public double getX() {
+            return minX;
+        }
+
+        public double getY() {
+            return minY;
+        }
+
+        public double getMaxX() {
+            return maxX;
+        }
+
+        public double getMaxY() {
+            return maxY;
+        }
+
+        public boolean isPoint() {
+            return minX == maxX && minY == maxY;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public Point getPoint() {
+            return new Point(minX, minY);
+        }
+
+        public Rectangle getRectangle() {
+            return new Rectangle(new Point(minX, minY), new Point(maxX, maxY));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entry)) return false;
+            Entry<?> e = (Entry<?>) o;
+            return Double.compare(minX, e.minX) == 0 && Double.compare(minY, e.minY) == 0
+                    && Double.compare(maxX, e.maxX) == 0 && Double.compare(maxY, e.maxY) == 0
+                    && Objects.equals(value, e.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(minX, minY, maxX, maxY, value);
+        }
+
+        @Override
+        public String toString() {
+            if (isPoint()) return "(" + minX + ", " + minY + ")=" + value;
+            return "[(" + minX + ", " + minY + "), (" + maxX + ", " + maxY + ")]=" + value;
+        }
+    }
+
+    private final RTreeImpl tree;
+
+    @SuppressWarnings("unchecked")
+    private final RTreeImpl.EntryFactory<Entry<T>> entries =
+            (leaf, i) -> new Entry<>(leaf.xs[i], leaf.ys[i], leaf.hxs[i], leaf.hys[i], (T) leaf.getValue(i));
+
+    public EntryRTree() {
+        this(RTreeImpl.DEFAULT_MAX_ENTRIES, RTreeImpl.defaultMinEntries(RTreeImpl.DEFAULT_MAX_ENTRIES),
+                SplitPolicy.QUADRATIC);
+    }
+
+    public EntryRTree(int maxEntries, int minEntries, SplitPolicy splitPolicy) {
+        tree = new RTreeImpl(maxEntries, minEntries, splitPolicy);
+    }
+
+    // Hilbert R-tree 모드
+    public EntryRTree(int maxEntries, int minEntries, HilbertCurve curve) {
+        tree = new RTreeImpl(maxEntries, minEntries, curve);
+    }
+
+    // 내부 트리 (listener 등록/테스트용)
+    RTreeImpl tree() {
+        return tree;
+    }
+
+    public void addListener(RTreeListener listener) {
+        tree.addListener(listener);
+    }
+
+    public void removeListener(RTreeListener listener) {
+        tree.removeListener(listener);
+    }
+
+    /**
+     * (x, y)에 value를 추가
+     *
+     * @param value null 불가
+     */
+    public void add(double x, double y, T value) {
+        tree.addEntry(x, y, x, y, Objects.requireNonNull(value));
+    }
+
+    public void add(Point point, T value) {
+        add(point.getX(), point.getY(), value);
+    }
+
+    /**
+     * 사각형 엔트리 추가 (크기가 0인 사각형은 점으로 저장)
+     *
+     * @param value null 불가
+     */
+    public void add(Rectangle rectangle, T value) {
+        tree.addEntry(rectangle.getLeftTop().getX(), rectangle.getLeftTop().getY(),
+                rectangle.getRightBottom().getX(), rectangle.getRightBottom().getY(), Objects.requireNonNull(value));
+    }
+
+    /**
+     * 배치 삽입 (RTreeImpl.addAll과 같은 방식: 대상 리프에 먼저 모두 넣고 건드린 노드만 레벨별로 정리)
+     *
+     * @param entries
+     */
+    public void addAll(Collection<Entry<T>> entries) {
+        int n = entries.size();
+        double[] xs = new double[n], ys = new double[n], hxs = null, hys = null;
+        Object[] values = new Object[n];
+        int i = 0;
+        for (Entry<T> e : entries) {
+            if (hxs == null && !e.isPoint()) { // 사각형이 처음 나올 때만 최대 꼭짓점 배열을 만듦
+                hxs = Arrays.copyOf(xs, n);
+                hys = Arrays.copyOf(ys, n);
+            }
+            xs[i] = e.minX;
+            ys[i] = e.minY;
+            if (hxs != null) {
+                hxs[i] = e.maxX;
+                hys[i] = e.maxY;
+            }
+            values[i++] = Objects.requireNonNull(e.getValue());
+        }
+        tree.addEntries(xs, ys, hxs, hys, values, n);
+    }
+
+    /**
+     * 좌표가 (x, y)이고 값이 value와 equals인 엔트리 하나를 삭제
+     *
+     * @return 삭제했으면 true
+     */
+    public boolean delete(double x, double y, T value) {
+        return tree.deleteEntry(x, y, x, y, Objects.requireNonNull(value));
+    }
+
+    /**
+     * 좌표(점 또는 사각형)와 값이 모두 같은 엔트리 하나를 삭제
+     *
+     * @return 삭제했으면 true
+     */
+    public boolean delete(Entry<T> entry) {
+        return tree.deleteEntry(entry.minX, entry.minY, entry.maxX, entry.maxY,
+                Objects.requireNonNull(entry.getValue()));
+    }
+
+    /**
+     * (x, y)에 있는 value 점 엔트리 하나를 (toX, toY)로 옮김 (RTreeImpl.move 참고: 가능하면 리프 안에서 좌표만 교체)
+     *
+     * @return 옮겼으면 true
+     */
+    public boolean move(double x, double y, T value, double toX, double toY) {
+        return tree.moveEntry(x, y, toX, toY, Objects.requireNonNull(value));
+    }
+
+    /**
+     * 영역과 겹치는 엔트리 (RTreeImpl.search(Rectangle)과 같은 lazy iterator)
+     */
+    public Iterator<Entry<T>> search(Rectangle rectangle) {
+        return search(rectangle, RTreeImpl.Relation.INTERSECTS);
+    }
+
+    /**
+     * 영역 안에 통째로 들어가는 엔트리 (점 엔트리는 search와 같음)
+     */
+    public Iterator<Entry<T>> within(Rectangle rectangle) {
+        return search(rectangle, RTreeImpl.Relation.WITHIN);
+    }
+
+    /**
+     * 영역을 통째로 포함하는 엔트리 (점 엔트리는 영역이 그 점 하나일 때만)
+     */
+    public Iterator<Entry<T>> containing(Rectangle rectangle) {
+        return search(rectangle, RTreeImpl.Relation.CONTAINS);
+    }
+
+    private Iterator<Entry<T>> search(Rectangle rectangle, RTreeImpl.Relation relation) {
+        return tree.searchEntries(rectangle.getLeftTop().getX(), rectangle.getLeftTop().getY(),
+                rectangle.getRightBottom().getX(), rectangle.getRightBottom().getY(), relation, null, entries);
+    }
+
+    /**
+     * 조건을 만족하는 엔트리 (RTreeImpl.search(SpatialPredicate) 참고)
+     */
+    public Iterator<Entry<T>> search(SpatialPredicate predicate) {
+        return tree.searchEntries(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, RTreeImpl.Relation.INTERSECTS, predicate, entries);
+    }
+
+    /**
+     * source에서 가까운 순서로 최대 k개 (사각형은 MBR까지의 최소 거리, 순서/동점 규칙은 RTreeImpl.nearest와 같음)
+     */
+    public Iterator<Entry<T>> nearest(Point source, int k) {
+        return tree.nearestEntries(source.getX(), source.getY(), Double.POSITIVE_INFINITY, k, entries);
+    }
+
+    /**
+     * source에서 가까운 순서로 꺼내는 lazy iterator, maxDistance 이하만 (RTreeImpl.nearestWithin 참고)
+     */
+    public Iterator<Entry<T>> nearestWithin(Point source, double maxDistance) {
+        return tree.nearestEntries(source.getX(), source.getY(), maxDistance, Integer.MAX_VALUE, entries);
+    }
+
+    // 영역과 겹치는 엔트리 수
+    public int count(Rectangle rectangle) {
+        return tree.count(rectangle);
+    }
+
+    public int size() {
+        return tree.size();
+    }
+
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+}
@@ -0,0 +1,95 @@
+package org.dfpl.dbp.rtree;
+
+/**
+ * 좌표 → 힐베르트 곡선 위 위치 (HILBERT 트리의 정렬 키, RTreeImpl(int, int, HilbertCurve))
+ * - 격자: [minX, maxX] × [minY, maxY]를 축마다 2^bits 칸으로 나눔. 범위 밖 좌표는 가장자리 칸으로 모음
+ * - UNBOUNDED: 설정 없이 모든 double을 받는 격자. 좌표를 float 비트 순서로 펼쳐 축마다 2^31 칸
+ *   (값의 순서는 그대로, 원점에서 멀수록 칸이 넓어짐)
+ * - 같은 칸의 점은 같은 키. 곡선에서 연속한 두 키의 칸은 평면에서도 이웃 → 키 순서로 묶으면 공간적으로 모임
+ */
+public final class HilbertCurve {
+
+    public static final int MAX_BITS = 31; // 키 = 2 × bits ≤ 62비트 (long 부호 비트 사용 안 함)
+
+    public static final HilbertCurve UNBOUNDED = new HilbertCurve();
+
+    final double minX, minY, maxX, maxY; // 격자 범위 (RTreeSnapshot이 저장)
+    private final int bits;
+    private final boolean unbounded;
+
+    /**
+     * @param world 격자가 덮는 범위
+     * @param bits  축마다 2^bits 칸 (1 ~ 31)
+     */
+    public HilbertCurve(Rectangle world, int bits) {
+        this(world.getLeftTop().getX(), world.getLeftTop().getY(),
+                world.getRightBottom().getX(), world.getRightBottom().getY(), bits);
+    }
+
+    public HilbertCurve(double minX, double minY, double maxX, double maxY, int bits) {
+        if (bits < 1 || bits > MAX_BITS)
+            throw new IllegalArgumentException("bits must be in [1, " + MAX_BITS + "]: " + bits);
+        if (!(maxX > minX && maxY > minY))
+            throw new IllegalArgumentException("empty world: (" + minX + ", " + minY + ") ~ (" + maxX + ", " + maxY + ")");
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.bits = bits;
+        this.unbounded = false;
+    }
+
+    private HilbertCurve() {
+        minX = minY = Double.NEGATIVE_INFINITY;
+        maxX = maxY = Double.POSITIVE_INFINITY;
+        bits = MAX_BITS;
+        unbounded = true;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    /**
+     * (x, y)가 속한 칸의 힐베르트 곡선 위 위치
+     *
+     * @return 0 ~ 4^bits - 1
+     */
+    public long index(double x, double y) {
+        return index(cell(x, minX, maxX), cell(y, minY, maxY), bits);
+    }
+
+    // 좌표 → 축 방향 칸 번호 [0, 2^bits)
+    private long cell(double v, double min, double max) {
+        if (unbounded) {
+            // float 비트를 부호 없는 순서 값으로 (음수는 크기 비트를 뒤집음) → 상위 31비트
+            int b = Float.floatToIntBits((float) v);
+            b ^= (b >> 31) & 0x7FFFFFFF;
+            return ((b ^ Integer.MIN_VALUE) & 0xFFFFFFFFL) >>> 1;
+        }
+        long cells = 1L << bits;
+        long c = (long) ((v - min) / (max - min) * cells);
+        return Math.max(0, Math.min(cells - 1, c));
+    }
+
+    /**
+     * 칸 (cx, cy)의 힐베르트 위치 (2^bits × 2^bits 격자, 큰 사분면부터 내려가며 회전/반전)
+     */
+    static long index(long cx, long cy, int bits) {
+        long mask = (1L << bits) - 1, d = 0;
+        for (long s = 1L << (bits - 1); s > 0; s >>= 1) {
+            int rx = (cx & s) != 0 ? 1 : 0, ry = (cy & s) != 0 ? 1 : 0;
+            d += s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    cx = mask - cx;
+                    cy = mask - cy;
+                }
+                long t = cx;
+                cx = cy;
+                cy = t;
+            }
+        }
+        return d;
+    }
+}
@@ -0,0 +1,77 @@
+package org.dfpl.dbp.rtree;
+
+/**
+ * 좌표 배열을 키로 인덱스 배열을 정렬 (박싱/Comparator 없이 double 비교)
+ * - 일괄 적재(STR)처럼 수천만 개의 좌표를 정렬할 때 사용
+ * - quicksort(세 값의 중앙값 pivot) + 작은 구간은 삽입 정렬
+ * - 키가 모두 같으면 인덱스 순 → 안정 정렬(Arrays.sort + Comparator)과 같은 결과
+ */
+final class IndexSort {
+
+    private static final int INSERTION_THRESHOLD = 16;
+
+    private IndexSort() {
+    }
+
+    /**
+     * idx[from, to)를 key[idx[i]] 오름차순으로, 같으면 tie[idx[i]] 오름차순으로 정렬
+     *
+     * @param tie 동점 비교용 두 번째 키 (null이면 key만 비교)
+     */
+    static void sort(int[] idx, int from, int to, double[] key, double[] tie) {
+        while (to - from > INSERTION_THRESHOLD) {
+            int pivot = medianOfThree(idx[from], idx[(from + to) >>> 1], idx[to - 1], key, tie);
+            double pk = key[pivot], pt = tie == null ? 0 : tie[pivot];
+
+            int i = from, j = to - 1;
+            while (i <= j) {
+                while (compare(idx[i], pk, pt, pivot, key, tie) < 0) i++;
+                while (compare(idx[j], pk, pt, pivot, key, tie) > 0) j--;
+                if (i <= j) {
+                    int t = idx[i];
+                    idx[i++] = idx[j];
+                    idx[j--] = t;
+                }
+            }
+            // 작은 쪽은 재귀, 큰 쪽은 반복 → 스택 깊이 O(log n)
+            if (j + 1 - from < to - i) {
+                sort(idx, from, j + 1, key, tie);
+                from = i;
+            } else {
+                sort(idx, i, to, key, tie);
+                to = j + 1;
+            }
+        }
+
+        for (int i = from + 1; i < to; i++) {
+            int v = idx[i];
+            double vk = key[v], vt = tie == null ? 0 : tie[v];
+            int j = i - 1;
+            while (j >= from && compare(idx[j], vk, vt, v, key, tie) > 0) {
+                idx[j + 1] = idx[j];
+                j--;
+            }
+            idx[j + 1] = v;
+        }
+    }
+
+    // 원소 i와 (k, t, 인덱스 j)의 비교
+    private static int compare(int i, double k, double t, int j, double[] key, double[] tie) {
+        if (key[i] < k) return -1;
+        if (key[i] > k) return 1;
+        if (tie != null) {
+            if (tie[i] < t) return -1;
+            if (tie[i] > t) return 1;
+        }
+        return Integer.compare(i, j);
+    }
+
+    private static int medianOfThree(int a, int b, int c, double[] key, double[] tie) {
+        if (compare(a, key[b], tie == null ? 0 : tie[b], b, key, tie) > 0) { // a > b → swap
+            int s = a; a = b; b = s;
+        }
+        // a ≤ b
+        if (compare(c, key[b], tie == null ? 0 : tie[b], b, key, tie) >= 0) return b;
+        return compare(c, key[a], tie == null ? 0 : tie[a], a, key, tie) >= 0 ? c : a;
+    }
+}
@@ -0,0 +1,417 @@
+package org.dfpl.dbp.rtree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/*
+ * 파일에 저장된 R-Tree를 메모리 매핑(FileChannel.map)해 그대로 질의하는 읽기 전용 트리
+ * - RTreeImpl.save(path)로 만든 파일을 open(path)로 염. 노드를 힙 객체로 읽어 들이지 않음(역직렬화 없음)
+ *   → 여는 비용은 헤더 확인뿐이고, 실제로 읽은 페이지만 OS 페이지 캐시에 올라옴 (힙보다 큰 트리도 가능)
+ * - add/delete는 지원하지 않음 (UnsupportedOperationException). 갱신은 RTreeImpl에서 하고 다시 save
+ *
+ * - 파일 형식 (little endian, 모든 페이지는 같은 크기 pageSize)
+ *      * page 0 (헤더)
+ *          - int magic, int version, int pageSize, int maxEntries, int minEntries,
+ *            byte 트리 모드(0 분할 정책, 1 HILBERT), byte splitPolicy(ordinal, 모드 0일 때만), 2바이트 비움
+ *          - long rootPage, int height(루트 level), long nodeCount, long pointCount
+ *      * page 1.. (노드, 루트부터 BFS 순서 → 상위 레벨이 파일 앞쪽에 모임)
+ *          - int level (리프 = 0), int size
+ *          - double[M] a0, a1, a2, a3 : 리프는 a0 = xs, a1 = ys / 내부노드는 a0~a3 = 자식 minX, minY, maxX, maxY
+ *          - long[M] child             : 내부노드의 자식 페이지 번호
+ *        → pageSize = 8 + 40M (8의 배수)
+ * - 2GB가 넘는 파일도 열 수 있도록 페이지 경계에 맞춘 여러 개의 매핑(chunk)으로 나눠 매핑
+ */
+public class MappedRTree implements RTree {
+
+    static final int MAGIC = 0x52545245; // "RTRE"
+    static final int VERSION = 2;
+
+    private static final int NODE_HEADER = 8;           // level, size
+    private static final long MAX_CHUNK = 1L << 30;     // 매핑 하나의 최대 크기
+
+    private final ByteBuffer[] chunks;
+    private final int pagesPerChunk;
+    private final int pageSize;
+    private final int maxEntries;
+    private final int minEntries;
+    private final SplitPolicy splitPolicy; // HILBERT 트리는 null
+    private final long rootPage;
+    private final int height;
+    private final long nodeCount;
+    private final long pointCount;
+
+    private MappedRTree(ByteBuffer[] chunks, int pagesPerChunk, ByteBuffer header) {
+        this.chunks = chunks;
+        this.pagesPerChunk = pagesPerChunk;
+        this.pageSize = header.getInt(8);
+        this.maxEntries = header.getInt(12);
+        this.minEntries = header.getInt(16);
+        this.splitPolicy = header.get(20) == 0 ? SplitPolicy.values()[header.get(21)] : null;
+        this.rootPage = header.getLong(24);
+        this.height = header.getInt(32);
+        this.nodeCount = header.getLong(36);
+        this.pointCount = header.getLong(44);
+    }
+
+    static int pageSize(int maxEntries) {
+        return NODE_HEADER + maxEntries * (4 * Double.BYTES + Long.BYTES);
+    }
+
+    /**
+     * save()로 만든 파일을 읽기 전용으로 매핑해 엶. 매핑 후 파일 채널은 바로 닫으며,
+     * 매핑은 이 객체가 GC될 때 해제됨.
+     *
+     * @param path 트리 파일
+     * @return 읽기 전용 트리
+     * @throws IOException 파일을 읽을 수 없거나 형식이 맞지 않을 때
+     */
+    public static MappedRTree open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < 52) throw new IOException("not an R-tree file: " + path);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 52).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) throw new IOException("not an R-tree file: " + path);
+            if (header.getInt(4) != VERSION)
+                throw new IOException("unsupported R-tree file version " + header.getInt(4) + ": " + path);
+            int pageSize = header.getInt(8);
+            if (pageSize != pageSize(header.getInt(12)) || length % pageSize != 0)
+                throw new IOException("corrupt R-tree file: " + path);
+            int mode = header.get(20), policy = header.get(21);
+            if (mode == 0 ? policy < 0 || policy >= SplitPolicy.values().length : mode != 1)
+                throw new IOException("corrupt R-tree file: " + path);
+
+            int pagesPerChunk = (int) Math.max(1, MAX_CHUNK / pageSize);
+            long pages = length / pageSize;
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((pages + pagesPerChunk - 1) / pagesPerChunk)];
+            for (int c = 0; c < chunks.length; c++) {
+                long start = (long) c * pagesPerChunk * pageSize;
+                long size = Math.min(length - start, (long) pagesPerChunk * pageSize);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+                chunks[c] = chunk.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedRTree(chunks, pagesPerChunk, header);
+        }
+    }
+
+    /**
+     * tree를 페이지 파일로 저장 (RTreeImpl.save에서 호출). 기존 파일은 덮어씀.
+     */
+    static void write(RTreeImpl tree, RTreeImpl.Node root, Path path) throws IOException {
+        int maxEntries = tree.getMaxEntries();
+        int pageSize = pageSize(maxEntries);
+        int batch = Math.max(1, (1 << 20) / pageSize); // 한 번에 쓰는 페이지 수
+        ByteBuffer buffer = ByteBuffer.allocateDirect(batch * pageSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // BFS: 큐에 넣는 순서 = 페이지 번호 = 쓰는 순서 → 순차 쓰기
+            ArrayDeque<RTreeImpl.Node> queue = new ArrayDeque<>();
+            queue.add(root);
+            long nextPage = 2; // 1 = 루트
+            long nodeCount = 0, pointCount = 0;
+
+            buffer.position(pageSize); // page 0(헤더)는 마지막에 채움
+            while (!queue.isEmpty()) {
+                RTreeImpl.Node n = queue.poll();
+                nodeCount++;
+                int base = buffer.position();
+                buffer.putInt(base, n.level);
+                buffer.putInt(base + 4, n.size);
+                for (int i = 0; i < n.size; i++) {
+                    if (n.isLeaf) {
+                        putEntry(buffer, base, maxEntries, i, n.xs[i], n.ys[i], 0, 0);
+                    } else {
+                        putEntry(buffer, base, maxEntries, i, n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i]);
+                        buffer.putLong(base + NODE_HEADER + 4 * maxEntries * Double.BYTES + i * Long.BYTES, nextPage++);
+                        queue.add(n.children[i]);
+                    }
+                }
+                if (n.isLeaf) pointCount += n.size;
+                buffer.position(base + pageSize);
+                if (!buffer.hasRemaining()) flush(channel, buffer);
+            }
+            flush(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(pageSize).order(ByteOrder.LITTLE_ENDIAN);
+            SplitPolicy policy = tree.getSplitPolicy();
+            header.putInt(MAGIC).putInt(VERSION).putInt(pageSize).putInt(maxEntries).putInt(tree.getMinEntries())
+                    .put((byte) (policy == null ? 1 : 0)).put((byte) (policy == null ? 0 : policy.ordinal()))
+                    .putShort((short) 0).putLong(1).putInt(root.level)
+                    .putLong(nodeCount).putLong(pointCount);
+            header.clear();
+            channel.write(header, 0);
+            channel.force(false);
+        }
+    }
+
+    private static void putEntry(ByteBuffer b, int base, int maxEntries, int i,
+                                 double a0, double a1, double a2, double a3) {
+        int off = base + NODE_HEADER + i * Double.BYTES;
+        int stride = maxEntries * Double.BYTES;
+        b.putDouble(off, a0);
+        b.putDouble(off + stride, a1);
+        b.putDouble(off + 2 * stride, a2);
+        b.putDouble(off + 3 * stride, a3);
+    }
+
+    // 버퍼의 남은 공간을 0으로 둔 채 앞부분만 씀 (페이지 단위로 채워져 있음)
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+        for (int i = 0; i < buffer.capacity(); i += Long.BYTES) buffer.putLong(i, 0);
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int getMinEntries() {
+        return minEntries;
+    }
+
+    // 분할 정책 (HILBERT 트리는 null)
+    public SplitPolicy getSplitPolicy() {
+        return splitPolicy;
+    }
+
+    // 저장한 트리가 HILBERT 트리였는지
+    public boolean isHilbert() {
+        return splitPolicy == null;
+    }
+
+    // 루트 level (리프만 있으면 0)
+    public int getHeight() {
+        return height;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public long size() {
+        return pointCount;
+    }
+
+    /*-----------------페이지 접근 (매핑된 버퍼에서 바로 읽음)----------------*/
+    private ByteBuffer chunk(long page) {
+        return chunks[(int) (page / pagesPerChunk)];
+    }
+
+    private int offset(long page) {
+        return (int) (page % pagesPerChunk) * pageSize;
+    }
+
+    private int level(long page) {
+        return chunk(page).getInt(offset(page));
+    }
+
+    private int size(long page) {
+        return chunk(page).getInt(offset(page) + 4);
+    }
+
+    // a: 0 = xs/minX, 1 = ys/minY, 2 = maxX, 3 = maxY
+    private double value(long page, int a, int i) {
+        return chunk(page).getDouble(offset(page) + NODE_HEADER + (a * maxEntries + i) * Double.BYTES);
+    }
+
+    private long child(long page, int i) {
+        return chunk(page).getLong(offset(page) + NODE_HEADER + 4 * maxEntries * Double.BYTES + i * Long.BYTES);
+    }
+
+    /*-----------------읽기 전용----------------*/
+    @Override
+    public void add(Point point) {
+        throw new UnsupportedOperationException("read-only mapped R-tree");
+    }
+
+    @Override
+    public void delete(Point point) {
+        throw new UnsupportedOperationException("read-only mapped R-tree");
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pointCount == 0;
+    }
+
+    /*-----------------Search----------------*/
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        return new SearchIterator(rectangle.getLeftTop().getX(), rectangle.getLeftTop().getY(),
+                rectangle.getRightBottom().getX(), rectangle.getRightBottom().getY());
+    }
+
+    /**
+     * 영역 탐색 (primitive API): 범위 안의 점 좌표를 consumer로 넘김. Point 객체를 만들지 않음.
+     *
+     * @return 찾은 점 수
+     */
+    public int search(double minX, double minY, double maxX, double maxY, PointConsumer consumer) {
+        return searchRecursive(rootPage, minX, minY, maxX, maxY, consumer);
+    }
+
+    private int searchRecursive(long page, double minX, double minY, double maxX, double maxY,
+                                PointConsumer consumer) {
+        ByteBuffer b = chunk(page);
+        int base = offset(page) + NODE_HEADER;
+        int stride = maxEntries * Double.BYTES;
+        int size = b.getInt(base - 4);
+        int found = 0;
+        if (b.getInt(base - NODE_HEADER) == 0) {
+            for (int i = 0, off = base; i < size; i++, off += Double.BYTES) {
+                double x = b.getDouble(off), y = b.getDouble(off + stride);
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    consumer.accept(x, y);
+                    found++;
+                }
+            }
+            return found;
+        }
+        for (int i = 0, off = base; i < size; i++, off += Double.BYTES) {
+            if (b.getDouble(off + 2 * stride) < minX || b.getDouble(off) > maxX
+                    || b.getDouble(off + 3 * stride) < minY || b.getDouble(off + stride) > maxY) continue;
+            found += searchRecursive(child(page, i), minX, minY, maxX, maxY, consumer);
+        }
+        return found;
+    }
+
+    // RTreeImpl.SearchIterator와 같은 명시적 스택 DFS, 노드 대신 페이지 번호를 스택에 둠
+    private final class SearchIterator implements Iterator<Point> {
+        private final double minX, minY, maxX, maxY;
+        private final long[] pages = new long[height + 1];
+        private final int[] positions = new int[height + 1];
+        private int depth;
+        private Point next;
+
+        SearchIterator(double minX, double minY, double maxX, double maxY) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            pages[0] = rootPage;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && depth >= 0) advance();
+            return next != null;
+        }
+
+        @Override
+        public Point next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Point p = next;
+            next = null;
+            return p;
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                long page = pages[depth];
+                int i = positions[depth];
+                int size = size(page);
+                if (level(page) == 0) {
+                    while (i < size) {
+                        double x = value(page, 0, i), y = value(page, 1, i++);
+                        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                            positions[depth] = i;
+                            next = new Point(x, y);
+                            return;
+                        }
+                    }
+                    depth--; // pop
+                } else if (i < size) {
+                    positions[depth] = i + 1;
+                    if (!(value(page, 2, i) < minX || value(page, 0, i) > maxX
+                            || value(page, 3, i) < minY || value(page, 1, i) > maxY)) {
+                        pages[++depth] = child(page, i); // push
+                        positions[depth] = 0;
+                    }
+                } else {
+                    depth--; // pop
+                }
+            }
+        }
+    }
+
+    /*-----------------KNN----------------*/
+    /*
+     * RTreeImpl.nearest와 같은 best-first 탐색 및 동점 규칙(거리 → 노드 우선 → DFS 순서)
+     * → 같은 트리를 저장한 파일이면 RTreeImpl과 같은 결과/순서
+     */
+    @Override
+    public Iterator<Point> nearest(Point source, int k) {
+        List<Point> result = new ArrayList<>();
+        if (k > 0 && pointCount > 0) nearestBestFirst(source.getX(), source.getY(), k, result);
+        return result.iterator();
+    }
+
+    // KNN 우선순위 큐 원소: 노드 페이지(index == -1) 또는 리프 페이지의 index번째 점
+    private static final class KnnEntry {
+        final double dist;
+        final long page;
+        final int[] path;
+        final int index;
+
+        KnnEntry(double dist, long page, int[] path, int index) {
+            this.dist = dist;
+            this.page = page;
+            this.path = path;
+            this.index = index;
+        }
+    }
+
+    private static final Comparator<KnnEntry> KNN_ORDER = (a, b) -> {
+        int c = Double.compare(a.dist, b.dist);
+        if (c != 0) return c;
+        if ((a.index < 0) != (b.index < 0)) return a.index < 0 ? -1 : 1;
+        c = Arrays.compare(a.path, b.path);
+        return c != 0 ? c : Integer.compare(a.index, b.index);
+    };
+
+    private void nearestBestFirst(double sx, double sy, int k, List<Point> out) {
+        PriorityQueue<KnnEntry> queue = new PriorityQueue<>(KNN_ORDER);
+        PriorityQueue<Double> best = new PriorityQueue<>(Comparator.reverseOrder()); // k는 점 수보다 클 수 있음 → 미리 잡지 않음
+
+        queue.add(new KnnEntry(0, rootPage, new int[0], -1));
+        while (!queue.isEmpty() && out.size() < k) {
+            KnnEntry e = queue.poll();
+            long page = e.page;
+            if (e.index >= 0) {
+                out.add(new Point(value(page, 0, e.index), value(page, 1, e.index)));
+                continue;
+            }
+
+            int size = size(page);
+            if (level(page) == 0) {
+                for (int i = 0; i < size; i++) {
+                    double dx = sx - value(page, 0, i), dy = sy - value(page, 1, i);
+                    double d = Math.sqrt(dx * dx + dy * dy);
+                    if (best.size() == k) {
+                        if (d > best.peek()) continue;
+                        best.poll();
+                    }
+                    best.add(d);
+                    queue.add(new KnnEntry(d, page, e.path, i));
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    double dx = Math.max(0, Math.max(value(page, 0, i) - sx, sx - value(page, 2, i)));
+                    double dy = Math.max(0, Math.max(value(page, 1, i) - sy, sy - value(page, 3, i)));
+                    double d = Math.sqrt(dx * dx + dy * dy);
+                    if (best.size() == k && d > best.peek()) continue;
+                    int[] path = Arrays.copyOf(e.path, e.path.length + 1);
+                    path[e.path.length] = i;
+                    queue.add(new KnnEntry(d, child(page, i), path, -1));
+                }
+            }
+        }
+    }
+}
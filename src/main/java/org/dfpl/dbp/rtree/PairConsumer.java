@@ -0,0 +1,19 @@
+package org.dfpl.dbp.rtree;
+
+/**
+ * 공간 조인 결과 쌍을 Point 객체 없이 받는 콜백.
+ * 병렬 조인에서는 여러 스레드에서 동시에 호출되므로 thread-safe하게 구현해야 한다.
+ */
+@FunctionalInterface
+public interface PairConsumer {
+
+	/**
+	 * 결과 쌍 하나 (a: 왼쪽 트리의 점, b: 오른쪽 트리의 점)
+	 *
+	 * @param ax
+	 * @param ay
+	 * @param bx
+	 * @param by
+	 */
+	void accept(double ax, double ay, double bx, double by);
+}
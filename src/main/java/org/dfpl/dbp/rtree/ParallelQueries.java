@@ -0,0 +1,231 @@
+package org.dfpl.dbp.rtree;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * ForkJoinPool 위에서 한 질의를 여러 코어로 나눠 실행 (RTreeImpl/ConcurrentRTree의 searchParallel, nearestParallel)
+ * - forkLevel 이상인 노드는 질의와 만나는 자식마다 task를 만들어 fork, 그 아래 서브트리는 한 task가 순차로 처리
+ *   forkLevel = 서브트리 점 수의 하한(m^(level+1))이 SEQUENTIAL_THRESHOLD 이상이 되는 가장 낮은 레벨
+ * - SEARCH: task마다 자기 결과 버퍼를 채우고, 끝나면 자식 순서대로 이어 붙임 → 순차 DFS와 같은 결과/순서
+ * - KNN   : 모든 task가 하나의 후보 힙(최대 k개)과 가지치기 기준(k번째 거리, AtomicLong)을 공유
+ *           MINDIST가 기준보다 큰 서브트리는 어느 task에서든 건너뜀.
+ *           동점은 (거리, DFS 경로, 리프 내 인덱스) 순 → RTreeImpl.nearest와 같은 결과/순서
+ * - 트리를 읽기만 하므로 같은 트리에 대한 쓰기와 동시에 실행하면 안 됨 (ConcurrentRTree는 스냅샷에서 실행)
+ * - listener 콜백은 부르지 않음 (여러 스레드에서 불리게 되므로)
+ */
+final class ParallelQueries {
+
+    static final int SEQUENTIAL_THRESHOLD = 4096; // task 하나가 순차로 처리할 최소 점 수(하한 추정)
+
+    private ParallelQueries() {
+    }
+
+    static int forkLevel(int minEntries) {
+        int fill = Math.max(2, minEntries);
+        int level = 0;
+        for (long estimate = fill; estimate < SEQUENTIAL_THRESHOLD; estimate *= fill) level++;
+        return level;
+    }
+
+    /*-----------------Search----------------*/
+    static List<Point> search(ForkJoinPool pool, RTreeImpl.Node root, int forkLevel,
+                              double minX, double minY, double maxX, double maxY) {
+        List<List<Point>> chunks = pool.invoke(new SearchTask(root, forkLevel, minX, minY, maxX, maxY));
+        int total = 0;
+        for (List<Point> chunk : chunks) total += chunk.size();
+        List<Point> result = new ArrayList<>(total);
+        for (List<Point> chunk : chunks) result.addAll(chunk);
+        return result;
+    }
+
+    // 결과: 서브트리의 결과 버퍼들 (DFS 순서)
+    @SuppressWarnings("serial")
+    private static final class SearchTask extends RecursiveTask<List<List<Point>>> {
+        private final RTreeImpl.Node node;
+        private final int forkLevel;
+        private final double minX, minY, maxX, maxY;
+
+        SearchTask(RTreeImpl.Node node, int forkLevel, double minX, double minY, double maxX, double maxY) {
+            this.node = node;
+            this.forkLevel = forkLevel;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        @Override
+        protected List<List<Point>> compute() {
+            if (node.isLeaf || node.level < forkLevel) {
+                List<Point> buffer = new ArrayList<>();
+                collect(node, buffer);
+                return List.of(buffer);
+            }
+            List<SearchTask> tasks = new ArrayList<>();
+            for (int i = 0; i < node.size; i++)
+                if (RTreeImpl.intersects(node.minXs[i], node.minYs[i], node.maxXs[i], node.maxYs[i],
+                        minX, minY, maxX, maxY))
+                    tasks.add(new SearchTask(node.children[i], forkLevel, minX, minY, maxX, maxY));
+            invokeAll(tasks);
+
+            List<List<Point>> chunks = new ArrayList<>();
+            for (SearchTask t : tasks) chunks.addAll(t.join());
+            return chunks;
+        }
+
+        private void collect(RTreeImpl.Node n, List<Point> out) {
+            if (n.isLeaf) {
+                for (int i = 0; i < n.size; i++)
+                    if (RTreeImpl.contains(minX, minY, maxX, maxY, n.xs[i], n.ys[i])) out.add(n.getPoint(i));
+                return;
+            }
+            for (int i = 0; i < n.size; i++)
+                if (RTreeImpl.intersects(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], minX, minY, maxX, maxY))
+                    collect(n.children[i], out);
+        }
+    }
+
+    /*-----------------KNN----------------*/
+    static List<Point> nearest(ForkJoinPool pool, RTreeImpl.Node root, int forkLevel, double sx, double sy, int k) {
+        if (k <= 0) return new ArrayList<>();
+        Candidates candidates = new Candidates(k);
+        pool.invoke(new NearestTask(root, new int[0], 0, forkLevel, sx, sy, candidates));
+        return candidates.sorted();
+    }
+
+    // 후보 점: 리프의 index번째 점, path = 루트에서 리프까지의 자식 인덱스 (동점 시 DFS 순서)
+    private static final class Candidate {
+        final double dist;
+        final RTreeImpl.Node leaf;
+        final int[] path;
+        final int index;
+
+        Candidate(double dist, RTreeImpl.Node leaf, int[] path, int index) {
+            this.dist = dist;
+            this.leaf = leaf;
+            this.path = path;
+            this.index = index;
+        }
+    }
+
+    private static final Comparator<Candidate> ORDER = (a, b) -> {
+        int c = Double.compare(a.dist, b.dist);
+        if (c != 0) return c;
+        c = Arrays.compare(a.path, b.path);
+        return c != 0 ? c : Integer.compare(a.index, b.index);
+    };
+
+    // 모든 task가 공유하는 상위 k개 후보 (최대 힙) + 가지치기 기준
+    private static final class Candidates {
+        private final int k;
+        private final PriorityQueue<Candidate> heap;
+        // k번째 후보의 거리 (음이 아닌 double의 비트 → long 비교 순서가 같음), k개가 모이기 전에는 +∞
+        private final AtomicLong bound = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+
+        Candidates(int k) {
+            this.k = k;
+            this.heap = new PriorityQueue<>(ORDER.reversed()); // k는 점 수보다 클 수 있음 → 미리 잡지 않음
+        }
+
+        double bound() {
+            return Double.longBitsToDouble(bound.get());
+        }
+
+        synchronized void offer(Candidate c) {
+            if (heap.size() == k) {
+                if (ORDER.compare(c, heap.peek()) >= 0) return;
+                heap.poll();
+            }
+            heap.add(c);
+            if (heap.size() == k) bound.set(Double.doubleToLongBits(heap.peek().dist));
+        }
+
+        synchronized List<Point> sorted() {
+            Candidate[] all = heap.toArray(new Candidate[0]);
+            Arrays.sort(all, ORDER);
+            List<Point> result = new ArrayList<>(all.length);
+            for (Candidate c : all) result.add(c.leaf.getPoint(c.index));
+            return result;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class NearestTask extends RecursiveAction {
+        private final RTreeImpl.Node node;
+        private final int[] path;
+        private final double minDist; // node까지의 MINDIST
+        private final int forkLevel;
+        private final double sx, sy;
+        private final Candidates candidates;
+
+        NearestTask(RTreeImpl.Node node, int[] path, double minDist, int forkLevel, double sx, double sy,
+                    Candidates candidates) {
+            this.node = node;
+            this.path = path;
+            this.minDist = minDist;
+            this.forkLevel = forkLevel;
+            this.sx = sx;
+            this.sy = sy;
+            this.candidates = candidates;
+        }
+
+        @Override
+        protected void compute() {
+            if (minDist > candidates.bound()) return; // 대기하는 동안 기준이 좁혀짐
+            if (node.isLeaf || node.level < forkLevel) {
+                visit(node, path);
+                return;
+            }
+            int[] order = byMinDist(node);
+            List<NearestTask> tasks = new ArrayList<>();
+            for (int i : order) {
+                double d = RTreeImpl.minDist(node.minXs[i], node.minYs[i], node.maxXs[i], node.maxYs[i], sx, sy);
+                if (d > candidates.bound()) break; // 가까운 순이므로 나머지도 기준 밖
+                tasks.add(new NearestTask(node.children[i], childPath(path, i), d, forkLevel, sx, sy, candidates));
+            }
+            if (tasks.isEmpty()) return;
+            // 먼 것부터 fork → 이 스레드는 자기 큐에서 LIFO로 꺼내므로 가까운 자식부터 처리하고,
+            // 다른 스레드는 먼 자식을 훔쳐 감. 가장 가까운 자식은 fork 없이 바로 처리해 기준을 먼저 좁힘
+            for (int t = tasks.size() - 1; t > 0; t--) tasks.get(t).fork();
+            tasks.get(0).compute();
+            for (int t = 1; t < tasks.size(); t++) tasks.get(t).join();
+        }
+
+        // 순차 분기한정: 가까운 자식부터, 기준보다 먼 서브트리는 건너뜀 (같은 거리는 DFS 순서로 이길 수 있어 건너뛰지 않음)
+        private void visit(RTreeImpl.Node n, int[] p) {
+            if (n.isLeaf) {
+                for (int i = 0; i < n.size; i++) {
+                    double d = RTreeImpl.distance(sx, sy, n.xs[i], n.ys[i]);
+                    if (d <= candidates.bound()) candidates.offer(new Candidate(d, n, p, i));
+                }
+                return;
+            }
+            for (int i : byMinDist(n)) {
+                if (RTreeImpl.minDist(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], sx, sy) > candidates.bound())
+                    continue;
+                visit(n.children[i], childPath(p, i));
+            }
+        }
+
+        private int[] byMinDist(RTreeImpl.Node n) {
+            int[] order = new int[n.size];
+            double[] dist = new double[n.size];
+            for (int i = 0; i < n.size; i++) {
+                order[i] = i;
+                dist[i] = RTreeImpl.minDist(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], sx, sy);
+            }
+            IndexSort.sort(order, 0, n.size, dist, null);
+            return order;
+        }
+
+        private static int[] childPath(int[] path, int i) {
+            int[] p = Arrays.copyOf(path, path.length + 1);
+            p[path.length] = i;
+            return p;
+        }
+    }
+}
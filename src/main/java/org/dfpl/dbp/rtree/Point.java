@@ -31,6 +31,24 @@ public class Point {
 		return Math.sqrt(dx * dx + dy * dy);
 	}
 
+	// 같은 x, y 값을 갖는 Point는 같은 점으로 취급 (RTree의 중복 규칙과 동일)
+	// 해시는 좌표로 계산하므로, HashSet/HashMap 키로 넣은 Point는 빠질 때까지 setX/setY로 고치면 안 됨
+	// (고치면 원래 칸에서 찾을 수 없게 됨). 엔진은 Point를 해시 키로 보관하지 않고 좌표(double)로 다룸
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Point other))
+			return false;
+		return x == other.x && y == other.y;
+	}
+
+	@Override
+	public int hashCode() {
+		// 0.0 == -0.0 이므로 같은 해시가 나오도록 +0.0을 더해 정규화
+		return 31 * Double.hashCode(x + 0.0) + Double.hashCode(y + 0.0);
+	}
+
 	@Override
 	public String toString() {
 		return "Point [x=" + x + ", y=" + y + "]";
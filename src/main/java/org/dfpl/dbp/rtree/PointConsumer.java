@@ -0,0 +1,17 @@
+package org.dfpl.dbp.rtree;
+
+/**
+ * 질의 결과 좌표를 Point 객체 없이 받는 콜백.
+ * 결과마다 Point를 만들지 않으므로 대량 결과를 할당 없이 처리할 수 있다.
+ */
+@FunctionalInterface
+public interface PointConsumer {
+
+	/**
+	 * 결과 점 하나
+	 *
+	 * @param x
+	 * @param y
+	 */
+	void accept(double x, double y);
+}
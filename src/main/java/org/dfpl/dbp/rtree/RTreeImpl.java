@@ -1,761 +1,2517 @@
 package org.dfpl.dbp.rtree;
 
-import javax.swing.*;
-import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /*
- * - Task1(ADD): 점 삽입 및 계층적 Bounding Box 확장 시각화
+ * R-Tree 엔진 (GUI 없음, 어떤 연산도 sleep/입력 대기로 멈추지 않음)
+ * - 시각화/통계 등은 RTreeListener로 붙인다 (예: RTreeVisualizer).
+ *   listener가 없으면 콜백 호출 비용 외에는 아무것도 하지 않음.
+ * - 노드 저장 구조 (structure-of-arrays, 모두 primitive double)
+ *      * 리프: 점 좌표를 평행 배열 xs[], ys[]에 보관 (Point 객체를 저장하지 않음)
+ *      * 내부 노드: 자식 포인터 children[]와 자식 MBR을 minXs[]/minYs[]/maxXs[]/maxYs[]에 보관
+ *        → 탐색 시 자식 노드를 따라가지 않고 부모의 배열만 연속으로 훑음
+ *      * 각 노드는 자신의 MBR도 minX/minY/maxX/maxY로 가지며, 부모 배열의 같은 칸과 항상 같은 값
+ *      * 서브트리의 점 수 count도 같은 방식으로 부모의 counts[]에 복사해 둠 (MBR과 함께 갱신, count 질의에 사용)
+ *      * Point는 결과를 돌려줄 때만 만듦. PointConsumer API는 Point를 전혀 만들지 않음
+ *      * 리프 점에 값이 붙으면(EntryRTree) values[]에 같은 인덱스로 보관, 점과 함께 이동 (값이 없으면 배열도 없음)
+ *      * 사각형 엔트리(EntryRTree)는 최소 꼭짓점을 xs[]/ys[], 최대 꼭짓점을 hxs[]/hys[]에 보관.
+ *        사각형이 없는 리프는 hxs/hys가 xs/ys와 같은 배열 → 점만 있는 트리는 추가 메모리/복사 없음
+ *
+ * - Task1(ADD): 점 삽입 및 계층적 Bounding Box 확장
  *      1) 중복 판별
- *      2) 리프 노드 선택(chooseLeaf) - 후보 시각화
+ *      2) 리프 노드 선택(chooseSubtree)
  *          * 내부노드면 자식 노드의 MBR 검사 ↓
- *              * enlargement로 각 자식 MBR에 새로운 점을 포함시켰을 때 M면적이 가장 적게 증가하는 자식 선택
- *              * 선택된 MBR 시각화
+ *              * 각 자식 MBR에 새로운 점을 포함시켰을 때 면적이 가장 적게 증가하는 자식 선택
+ *              * 선택된 노드 통지(nodeSelected)
  *          * 리프 노드면 반환
  *      3) 리프에 점 삽입
  *      4) 트리 조정 및 분할(AdjustTree)
  *          * 삽입된 리프부터 루트까지 상향식으로 MBR 재계산.
- *          * 자식 수 > M(=4)이면 splitNode() - 균등분할 수행.
- *          * 분할 발생 시, 새로운 형제 노드와 부모 갱신 과정 시각화
- *      5) 종료 및 시각화
+ *          * 자식 수 > M이면 splitNode() - 생성 시 고른 SplitPolicy(linear/quadratic/R*)로 분할.
+ *          * R*는 레벨별 첫 overflow를 강제 재삽입으로 처리.
+ *          * 분할 발생 시 nodeSplit 통지
+ *
+ * - BATCH(addAll/deleteAll): 점을 먼저 모두 대상 리프에 넣거나 빼고, 건드린 노드만 레벨별로 한 번씩
+ *   MBR 재계산/분할/정리 (점마다 조상 경로 전체를 다시 계산하지 않음)
+ * - HILBERT(RTreeImpl(M, m, HilbertCurve), 분할 정책 없음): 리프 점을 힐베르트 키(hs[]) 순으로, 형제를 LHV(서브트리 최대 키) 순으로 유지
+ *      * 삽입: 키보다 LHV가 큰 첫 자식으로 내려감 (면적 계산 없음)
+ *      * overflow: 바로 나누지 않고 이웃 형제와 엔트리를 나눠 가짐, 둘 다 차면 2개 → 3개로 분할 (shareOrSplit)
+ *      * bulkLoad는 힐베르트 순으로 꽉 채워 적재, scan()은 키 순서로 모든 점을 내보냄
+ * - BULK LOAD: STR(Sort-Tile-Recursive)로 정렬된 점들을 꽉 찬 노드로 한 레벨씩 묶어 올림 (bulkLoad)
+ * - SAVE: 노드 하나 = 고정 크기 페이지인 파일로 저장 (save) → MappedRTree.open으로 매핑해 바로 질의
+ * - SNAPSHOT: 전위 순서 노드 레코드 + 블록별 CRC의 작은 스트림 (RTreeSnapshot) → 읽을 때 분할/정렬 없이 같은 모양으로 복원
+ * - DURABLE: 갱신마다 쓰기 로그(WAL)에 남기고 주기적으로 checkpoint하는 DurableRTree (checkpoint는 RTreeSnapshot으로 저장/복원)
+ * - CACHE: 반복 질의 결과를 LRU로 보관하는 CachingRTree. 갱신 시 바뀐 점을 포함하는 질의 영역만 EntryRTree로 찾아 무효화
+ * - COPY-ON-WRITE(ConcurrentRTree용): 공개된 스냅샷의 노드는 고치지 않고, 수정할 노드를 루트까지 경로째 복사
  *
- * - Task2(SEARCH): 공간 가지치기(spatial pruning) 기반 영역 탐색 시각화
- *      1) 검색 범위 시각화
- *      2) searchRecursive() 수행(dfs 기반 탐색-자식별 교차여부)
+ * - Task2(SEARCH): 공간 가지치기(spatial pruning) 기반 영역 탐색
+ *      1) SearchIterator가 next() 호출 시마다 명시적 스택으로 DFS 진행(자식별 교차여부)
  *          * 내부노드:
- *              - 각 자식의 MBR과 검색영역 intersects()로 교차 여부 판단.
- *              - 교차 시: 연두색 배경으로 표시 → 탐색 진행.
- *              - 불교차 시: 분홍색 배경으로 표시 → 가지치기(pruned).
+ *              - 각 자식의 MBR과 검색영역 교차 여부 판단 (nodeTested 통지).
+ *              - 교차 시: 탐색 진행.
+ *              - 불교차 시: 가지치기(pruned).
  *          * 리프노드:
- *              - contains(rect, point) 검사.
- *              - 검색 범위 안의 점은 빨간색 점으로 강조.
- *      3) 결과 시각화 및 초기화
+ *              - 점 포함 검사, 범위 안의 점은 pointFound 통지.
+ *      2) search(SpatialPredicate): 원/다각형/반평면 등 실제 모양으로 노드(mayIntersect)와 점(matches)을 검사
+ *      3) count(Rectangle): 범위에 통째로 들어가는 서브트리는 노드의 점 수(count)만 더하고 내려가지 않음
+ *      4) 사각형 엔트리: 겹침(INTERSECTS), 범위 안(WITHIN), 범위 포함(CONTAINS) 관계로 검사 (Relation).
+ *         CONTAINS는 질의 범위를 포함하는 MBR의 자식으로만 내려감. KNN은 엔트리 MBR까지의 최소 거리 기준
+ *
+ * - PARALLEL: searchParallel/nearestParallel은 큰 서브트리를 ForkJoin task로 나눠 여러 코어에서 실행 (ParallelQueries)
+ *
+ * - SEARCH BATCH: 여러 영역 질의를 트리 한 번 순회로 처리 (노드마다 아직 교차하는 질의 목록만 들고 내려감)
  *
- * - Task3(KNN): K-근접 이웃 탐색 시각화 (단순 거리 정렬 기반)
- *      1) 모든 점 수집 + 거리순 정렬
- *      2) 기준 점(초록색) 시각화
- *      3) 인접 점들 순차적 시각화
- *      4) 초기화
+ * - SPATIAL JOIN: 두 트리 사이의 거리 조인/kNN 조인은 SpatialJoin (두 트리를 함께 내려가며 노드 쌍 가지치기)
+ *
+ * - Task3(KNN): K-근접 이웃 탐색 (Best-first 분기한정 탐색)
+ *      1) MINDIST 우선순위 큐로 가까운 노드부터 확장, k번째 후보보다 먼 서브트리는 가지치기
+ *      2) 찾은 점을 가까운 순서대로 pointFound 통지
+ *      3) nearest(source)/nearestWithin(source, d): k 없이 꺼낸 만큼만 탐색하는 거리 순 lazy iterator
+ *      4) nearest(x, y, k, PointConsumer): 스레드별로 재사용하는 primitive 힙으로 DFS 분기한정 → 질의당 할당 없음
  *
  * - Task4(DELETE):
- *      1) deleteRecursive() 수행:
- *          * 접근 중인 노드의 MBR을 highlightRect로 강조 (탐색 경로 시각화).
- *          ① 리프 노드:
- *              - 대상 점을 찾으면 점을 빨간색으로 강조.
- *              - 점 삭제 후 리프의 MBR이 축소되는 과정을 시각화.
- *          ② 내부 노드:
- *              - 각 자식의 MBR을 검사, 점이 포함될 수 있는 자식으로 재귀 이동.
- *              - 삭제 후 비어 있는 자식은 제거(빨간 박스로 강조 후 제거).
- *              - 상향식으로 MBR 갱신 → 축소 반영.
- *      2) 루트 정리:
+ *      1) findLeaf()로 대상 점이 있는 리프를 찾아 삭제 (경로 통지, 대상 점 pointFound 통지)
+ *      2) condenseTree(): 리프부터 올라가며 m 미만 노드를 떼어내고 엔트리 재삽입, MBR 축소
+ *      3) 루트 정리:
  *          * 루트가 내부노드이고 자식이 하나뿐이면 높이를 1 줄임.
- *          * 루트가 리프이며 비면 root = null.
- *      3) 결과 시각화
- * GUI 좌표계
- * - 데이터 좌표 (x↑, y↑) 를 화면 좌표 (x→, y↓)로 변환할 때, y축은 아래로 증가하므로 반전
- *   → 화면 y = 패널높이 - (데이터 y * SCALE + margin)
+ *          * 루트가 리프이며 비면 빈 리프로 유지 (이후 add 가능).
+ *
+ * - MOVE: move(from, to)는 to가 원래 리프에 그대로 들어갈 수 있으면 좌표만 바꾸고 바뀐 MBR만 위로 반영,
+ *   아니면 delete + add로 처리
  */
 
 public class RTreeImpl implements RTree {
-    // 어떤 시각화 모드인지 - 딜레이에 사용
-    private enum Mode {
-        ADD, SEARCH, KNN, DELETE, NONE
-    }
 
-    private static Mode currentMode = Mode.NONE;
-    private static int NODE_COUNTER = 0; // 전역 고유 번호 카운터
+    private static final RTreeListener[] NO_LISTENERS = new RTreeListener[0];
 
-    // 기능별 시각화 지연 변수
-    private static final int DELAY_ADD = 100;     // 포인트 추가: 빠르게
-    private static final int DELAY_SEARCH = 100;  // 탐색: 빠르게
-    private static final int DELAY_KNN = 100;     // KNN: 빠르게(원한다면 300 등으로 키워도 됨)
-    private static final int DELAY_DELETE = 100; // 삭제: 상대적으로 천천히
+    public static final int DEFAULT_MAX_ENTRIES = 4; // 기본 최대 차수 M
+    private static final double REINSERT_FRACTION = 0.3; // R* 강제 재삽입 비율 (M의 30%)
 
-    private static final int M = 4; // 최대 차수
+    private final SplitPolicy splitPolicy; // HILBERT 트리는 null
+    private final HilbertCurve curve; // HILBERT일 때 엔트리 정렬 키를 만드는 격자 (그 외 null)
+    private final int maxEntries; // 최대 차수 M (노드당 최대 엔트리 수)
+    private final int minEntries; // 최소 차수 m (루트 외 노드가 가져야 할 최소 엔트리 수, m ≤ M/2)
     private Node root;
-    private static Node instanceRoot;
-    private static Map<Rectangle, Integer> rectToId = new HashMap<>();
-
-    // GUI 상태
-    private static JFrame frame;
-    private static DrawPanel panel;
-    private static final int SCALE = 3; // 화면 확대 배율 (데이터 좌표 → 픽셀)
-    private static List<Rectangle> allMBR = new ArrayList<>();      // 현재 트리의 모든 MBR
-    private static List<Point> allPoints = new ArrayList<>();       // 현재 트리의 모든 점
-    private static Rectangle highlightRect = null;                  // 현재 강조(하이라이트) 중인 사각형
-    private static List<Point> highlightPoints = new ArrayList<>(); // 현재 강조 중인 점 목록
-    private static Rectangle searchHitRect = null;   // 교차 MBR
-    private static Rectangle searchPrunedRect = null; // 가지치기 MBR
-
-    // GUI 프레임/패널 초기화: 클래스 로딩 시점에 EDT에서 구성
-    static {
-        SwingUtilities.invokeLater(() -> {
-            frame = new JFrame("RTree Visualization");
-            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            frame.setSize(900, 900);
-            panel = new DrawPanel();
-            frame.add(panel);
-            frame.setVisible(true);
-            panel.repaint(); // 초기 상태를 한 번 강제로 그림
-        });
-    }
-
-    private void refreshGUI() {
-        if (panel == null) return;
 
-        try {
-            // Swing EDT에서 상태 수집 및 리페인트를 동기적으로 실행
-            SwingUtilities.invokeAndWait(() -> {
-                allMBR.clear();
-                collectMBRs(root, allMBR);
+    // R* 강제 재삽입: 한 번의 삽입 동안 이미 재삽입을 수행한 레벨 (bit = level)
+    private long reinsertedLevels;
 
-                if (highlightRect != null)
-                    allMBR.add(highlightRect); // 현재 수정 중 노드만 추가 강조
+    // add/delete 횟수 (순회 중 변경 감지)
+    private int modCount;
 
-                allPoints.clear();
-                collectPoints(root, allPoints);
+    // 등록된 관찰자 (등록/해제 시 배열을 새로 만들어 교체 → 연산 중 순회는 할당 없음)
+    private RTreeListener[] listeners = NO_LISTENERS;
 
-                panel.repaint();
-                try { Thread.sleep(50); } catch (InterruptedException ignored) {}
-            });
-        } catch (Exception ignored) {}
+    // copy-on-write 모드: epoch가 현재 값과 다른 노드는 이미 공개된 스냅샷에 속하므로 복사 후 수정
+    private boolean copyOnWrite;
+    private int epoch;
 
-        // 모드별 딜레이: 장면 사이 간격을 둬 시뮬레이션처럼 보이게 함
-        int delay = switch (currentMode) {
-            case ADD -> DELAY_ADD;
-            case SEARCH -> DELAY_SEARCH;
-            case KNN -> DELAY_KNN;
-            case DELETE -> DELAY_DELETE;
-            default -> 0;
-        };
+    // R-Tree 노드 구조체
+    public static class Node {
+        final int level;         // 리프 = 0, 부모로 갈수록 1씩 증가
+        final boolean isLeaf;    // 리프 여부
+        int size;                // 엔트리 수
 
-        try { Thread.sleep(delay); } catch (InterruptedException ignored) {}
-    }
+        // 리프일 때 보관하는 엔트리 좌표: 점이면 (xs, ys), 사각형이면 최소 꼭짓점 (xs, ys) ~ 최대 꼭짓점 (hxs, hys)
+        // 사각형 엔트리가 하나도 없으면 hxs == xs, hys == ys (같은 배열을 가리킴 → 점만 있는 리프는 추가 메모리 없음)
+        double[] xs, ys, hxs, hys;
 
-    public static void waitForKeyPress() {
-        try {
-            System.in.read(); // Enter 입력 대기
-            while (System.in.available() > 0) System.in.read(); // 버퍼 비우기
-        } catch (Exception ignored) {}
-    }
+        // 리프 점마다 붙은 값 (EntryRTree용). 값이 있는 점을 처음 넣을 때 만들어지며, 그 전에는 null
+        Object[] values;
 
-    // 시각화용 패널
-    private static class DrawPanel extends JPanel {
-        private static Point knnSource = null;
+        // HILBERT 트리의 리프일 때 엔트리별 힐베르트 키 (오름차순으로 유지). 그 외에는 null
+        long[] hs;
 
-        private void drawRectOutline(Graphics g, Rectangle r) {
-            int x = (int)(r.getLeftTop().getX() * SCALE + 50);
-            int y = getHeight() - (int)(r.getRightBottom().getY() * SCALE + 50);
-            int w = (int)((r.getRightBottom().getX() - r.getLeftTop().getX()) * SCALE);
-            int h = (int)((r.getRightBottom().getY() - r.getLeftTop().getY()) * SCALE);
-            g.drawRect(x, y, w, h);
-        }
+        // 내부 노드일 때 자식들과 자식 MBR (children[i]의 MBR == minXs[i] ~ maxYs[i]), 자식 서브트리 점 수 (== children[i].count)
+        Node[] children;
+        double[] minXs, minYs, maxXs, maxYs;
+        int[] counts;
 
-        @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            Graphics2D g2 = (Graphics2D) g;
-            g2.setStroke(new BasicStroke(1.5f));
-            g.setFont(new Font("Arial", Font.PLAIN, 7)); // 좌표용 작은 글씨
-
-            // 배경
-            g.setColor(Color.WHITE);
-            g.fillRect(0, 0, getWidth(), getHeight());
-
-            // 좌표축 (왼쪽/아래 여백 50 px)
-            g.setColor(Color.DARK_GRAY);
-            g.drawLine(50, getHeight() - 50, getWidth() - 50, getHeight() - 50); // X축
-            g.drawLine(50, getHeight() - 50, 50, 50); // Y축
-
-            // 모든 MBR(회색 윤곽)
-            g.setColor(new Color(150, 150, 150, 120));
-            for (Rectangle r : allMBR) {
-                int x = (int)(r.getLeftTop().getX() * SCALE + 50);
-                int y = getHeight() - (int)(r.getRightBottom().getY() * SCALE + 50);
-                int w = (int)((r.getRightBottom().getX() - r.getLeftTop().getX()) * SCALE);
-                int h = (int)((r.getRightBottom().getY() - r.getLeftTop().getY()) * SCALE);
-                g.drawRect(x, y, w, h);
-
-                // MBR 번호 표시 (왼쪽 상단에)
-                Integer id = rectToId.get(r);
-                if (id != null) {
-                    g.setColor(Color.BLACK);
-                    g.drawString("N" + id, x + 3, y + 12); // 좌상단 근처에 출력
-                    g.setColor(new Color(150, 150, 150, 120)); // 색 원복
-                }
+        // 서브트리의 점 수 (MBR과 함께 recomputeBounds에서 갱신)
+        int count;
+
+        // HILBERT 트리에서 서브트리의 가장 큰 힐베르트 키 (LHV). 형제들은 LHV 오름차순
+        long lhv;
+
+        // 이 노드가 커버하는 최소 경계 사각형(MBR). 비어 있으면 min = +∞, max = -∞
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+        Node parent;             // 부모 포인터(상향 조정/분할 시 갱신). 스냅샷 읽기에는 쓰이지 않음
+        int epoch;               // 이 노드를 만든 쓰기 epoch (copy-on-write 모드에서만 의미 있음)
+
+        Node(int level, int capacity) {
+            this.level = level;
+            this.isLeaf = level == 0;
+            if (isLeaf) {
+                xs = new double[capacity];
+                ys = new double[capacity];
+                hxs = xs;
+                hys = ys;
+            } else {
+                children = new Node[capacity];
+                minXs = new double[capacity];
+                minYs = new double[capacity];
+                maxXs = new double[capacity];
+                maxYs = new double[capacity];
+                counts = new int[capacity];
             }
+        }
 
-            // 일반 점 (파란색)
-            g.setColor(Color.BLUE);
-            for (Point p : allPoints) {
-                int x = (int)(p.getX() * SCALE + 50);
-                int y = getHeight() - (int)(p.getY() * SCALE + 50);
-                g.fillOval(x - 3, y - 3, 6, 6);
-                g.drawString("(" + (int)p.getX() + "," + (int)p.getY() + ")", x + 5, y - 5);
+        // 같은 내용의 복사본 (자식들의 parent는 복사본으로 옮김)
+        private Node(Node n, int epoch) {
+            this.level = n.level;
+            this.isLeaf = n.isLeaf;
+            this.size = n.size;
+            this.epoch = epoch;
+            if (isLeaf) {
+                xs = n.xs.clone();
+                ys = n.ys.clone();
+                hxs = n.hxs == n.xs ? xs : n.hxs.clone();
+                hys = n.hys == n.ys ? ys : n.hys.clone();
+                if (n.values != null) values = n.values.clone();
+                if (n.hs != null) hs = n.hs.clone();
+            } else {
+                children = n.children.clone();
+                minXs = n.minXs.clone();
+                minYs = n.minYs.clone();
+                maxXs = n.maxXs.clone();
+                maxYs = n.maxYs.clone();
+                counts = n.counts.clone();
+                for (int i = 0; i < size; i++) children[i].parent = this;
             }
+            count = n.count;
+            lhv = n.lhv;
+            minX = n.minX;
+            minY = n.minY;
+            maxX = n.maxX;
+            maxY = n.maxY;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public boolean isLeaf() {
+            return isLeaf;
+        }
+
+        public int size() {
+            return size;
+        }
 
-            // 강조 점 (빨간색) - 탐색 결과, 삭제 대상, KNN 결과 등
-            g.setColor(Color.RED);
-            for (Point p : highlightPoints) {
-                int x = (int)(p.getX() * SCALE + 50);
-                int y = getHeight() - (int)(p.getY() * SCALE + 50);
-                g.fillOval(x - 6, y - 6, 12, 12);
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        // 서브트리의 점 수
+        public int count() {
+            return count;
+        }
+
+        /**
+         * MBR을 Rectangle로 만들어 반환 (시각화/디버깅용, 호출마다 새 객체)
+         *
+         * @return 비어 있으면 null
+         */
+        public Rectangle getMbr() {
+            if (size == 0) return null;
+            return new Rectangle(new Point(minX, minY), new Point(maxX, maxY));
+        }
+
+        // 리프의 i번째 점 (호출마다 새 객체)
+        public Point getPoint(int i) {
+            return new Point(xs[i], ys[i]);
+        }
+
+        // 리프의 i번째 점에 붙은 값 (없으면 null)
+        public Object getValue(int i) {
+            return values == null ? null : values[i];
+        }
+
+        // 내부 노드의 i번째 자식
+        public Node getChild(int i) {
+            return children[i];
+        }
+
+        private void ensureCapacity(int capacity) {
+            int length = isLeaf ? xs.length : children.length;
+            if (capacity <= length) return;
+            int grown = Math.max(capacity, length * 2);
+            if (isLeaf) {
+                boolean rectangles = hxs != xs;
+                xs = Arrays.copyOf(xs, grown);
+                ys = Arrays.copyOf(ys, grown);
+                hxs = rectangles ? Arrays.copyOf(hxs, grown) : xs;
+                hys = rectangles ? Arrays.copyOf(hys, grown) : ys;
+                if (values != null) values = Arrays.copyOf(values, grown);
+                if (hs != null) hs = Arrays.copyOf(hs, grown);
+            } else {
+                children = Arrays.copyOf(children, grown);
+                minXs = Arrays.copyOf(minXs, grown);
+                minYs = Arrays.copyOf(minYs, grown);
+                maxXs = Arrays.copyOf(maxXs, grown);
+                maxYs = Arrays.copyOf(maxYs, grown);
+                counts = Arrays.copyOf(counts, grown);
             }
+        }
 
-            // KNN 기준점 (초록색)
-            if (knnSource != null) {
-                g.setColor(Color.GREEN);
-                int x = (int)(knnSource.getX() * SCALE + 50);
-                int y = getHeight() - (int)(knnSource.getY() * SCALE + 50);
-                g.fillOval(x - 6, y - 6, 12, 12);
+        void addPoint(double x, double y) {
+            ensureCapacity(size + 1);
+            xs[size] = x;
+            ys[size] = y;
+            if (hxs != xs) {
+                hxs[size] = x;
+                hys[size] = y;
             }
+            size++;
+        }
 
+        void addPoint(double x, double y, Object value) {
+            if (value != null && values == null) values = new Object[xs.length];
+            if (values != null) {
+                ensureCapacity(size + 1);
+                values[size] = value;
+            }
+            addPoint(x, y);
+        }
 
-            // 강조 사각형 (빨간 반투명) - 현재 탐색/삽입 경로 노드 등
-            if (highlightRect != null) {
-                g.setColor(new Color(255, 0, 0, 80));
-                int x = (int)(highlightRect.getLeftTop().getX() * SCALE + 50);
-                int y = getHeight() - (int)(highlightRect.getRightBottom().getY() * SCALE + 50);
-                int w = (int)((highlightRect.getRightBottom().getX() - highlightRect.getLeftTop().getX()) * SCALE);
-                int h = (int)((highlightRect.getRightBottom().getY() - highlightRect.getLeftTop().getY()) * SCALE);
-                g.fillRect(x, y, w, h);
+        // 사각형 엔트리 추가 (min == max면 점). 첫 사각형이 들어올 때 hxs/hys를 별도 배열로 분리
+        void addRect(double x1, double y1, double x2, double y2, Object value) {
+            if (x1 == x2 && y1 == y2) {
+                addPoint(x1, y1, value);
+                return;
             }
+            if (hxs == xs) {
+                hxs = xs.clone(); // 지금까지의 점은 min == max
+                hys = ys.clone();
+            }
+            addPoint(x1, y1, value);
+            hxs[size - 1] = x2;
+            hys[size - 1] = y2;
+        }
 
+        // src의 i번째 엔트리(좌표, 값, 힐베르트 키)를 복사해 추가
+        void addFrom(Node src, int i) {
+            addRect(src.xs[i], src.ys[i], src.hxs[i], src.hys[i], src.getValue(i));
+            if (hs != null && src.hs != null) hs[size - 1] = src.hs[i];
+        }
 
-            // 1) 가지치기된 MBR (빨간 테두리)
-            if (currentMode == Mode.SEARCH && searchPrunedRect != null) {
-                g2.setColor(new Color(220, 0, 0)); // 빨간색
-                g2.setStroke(new BasicStroke(3f)); // 굵은 테두리
-                drawRectOutline(g2, searchPrunedRect);
-                g2.setStroke(new BasicStroke(1.5f));
+        // 마지막 엔트리를 pos로 옮기고 [pos, size - 1)은 한 칸씩 뒤로 (정렬 위치 삽입용)
+        void moveLast(int pos) {
+            int last = size - 1;
+            if (pos >= last) return;
+            if (isLeaf) {
+                rotate(xs, pos, last);
+                rotate(ys, pos, last);
+                if (hxs != xs) {
+                    rotate(hxs, pos, last);
+                    rotate(hys, pos, last);
+                }
+                if (values != null) rotate(values, pos, last);
+                if (hs != null) rotate(hs, pos, last);
+            } else {
+                rotate(children, pos, last);
+                rotate(minXs, pos, last);
+                rotate(minYs, pos, last);
+                rotate(maxXs, pos, last);
+                rotate(maxYs, pos, last);
+                rotate(counts, pos, last);
             }
+        }
 
-            // 2) 교차한 MBR (초록 테두리)
-            if (currentMode == Mode.SEARCH && searchHitRect != null) {
-                g2.setColor(new Color(0, 170, 0)); // 초록색
-                g2.setStroke(new BasicStroke(3f));
-                drawRectOutline(g2, searchHitRect);
-                g2.setStroke(new BasicStroke(1.5f));
-            }
+        private static void rotate(double[] a, int pos, int last) {
+            double v = a[last];
+            System.arraycopy(a, pos, a, pos + 1, last - pos);
+            a[pos] = v;
+        }
 
-            // Task2: 탐색 모드일 때 (0,0,100,100) 영역을 항상 연녹색으로 표시
-            if (currentMode == Mode.SEARCH) {
-                Rectangle searchArea = new Rectangle(new Point(0, 0), new Point(100, 100));
+        private static void rotate(long[] a, int pos, int last) {
+            long v = a[last];
+            System.arraycopy(a, pos, a, pos + 1, last - pos);
+            a[pos] = v;
+        }
 
-                int x = (int)(searchArea.getLeftTop().getX() * SCALE + 50);
-                int y = getHeight() - (int)(searchArea.getRightBottom().getY() * SCALE + 50);
-                int w = (int)((searchArea.getRightBottom().getX() - searchArea.getLeftTop().getX()) * SCALE);
-                int h = (int)((searchArea.getRightBottom().getY() - searchArea.getLeftTop().getY()) * SCALE);
+        private static void rotate(int[] a, int pos, int last) {
+            int v = a[last];
+            System.arraycopy(a, pos, a, pos + 1, last - pos);
+            a[pos] = v;
+        }
 
-                // 🔥 테두리만 강조 (굵게)
-                Graphics2D g3 = (Graphics2D) g;
-                g3.setStroke(new BasicStroke(3.0f));    // 테두리 굵기
-                g3.setColor(Color.GREEN.darker());      // 테두리 색
-                g3.drawRect(x, y, w, h);
+        private static void rotate(Object[] a, int pos, int last) {
+            Object v = a[last];
+            System.arraycopy(a, pos, a, pos + 1, last - pos);
+            a[pos] = v;
+        }
 
-                // 끝나면 기본 굵기로 되돌리기
-                g3.setStroke(new BasicStroke(1.5f));
+        // 순서를 유지하며 제거
+        void removePoint(int i) {
+            System.arraycopy(xs, i + 1, xs, i, size - i - 1);
+            System.arraycopy(ys, i + 1, ys, i, size - i - 1);
+            if (hxs != xs) {
+                System.arraycopy(hxs, i + 1, hxs, i, size - i - 1);
+                System.arraycopy(hys, i + 1, hys, i, size - i - 1);
             }
+            if (values != null) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                values[size - 1] = null;
+            }
+            if (hs != null) System.arraycopy(hs, i + 1, hs, i, size - i - 1);
+            size--;
+        }
 
+        void addChild(Node c) {
+            ensureCapacity(size + 1);
+            children[size] = c;
+            c.parent = this;
+            setChildBounds(size, c);
+            size++;
         }
-    }
 
-    // R-Tree 노드 구조체
-    public static class Node {
-        int id;                 // 노드 번호
-        boolean isLeaf;          // 리프 여부
-        List<Point> points;      // 리프일 때 보관하는 점들
-        List<Node> children;     // 내부 노드일 때 자식들
-        Rectangle mbr;           // 이 노드가 커버하는 최소 경계 사각형(MBR)
-        Node parent;             // 부모 포인터(상향 조정/분할 시 갱신)
+        // 순서를 유지하며 제거
+        void removeChild(int i) {
+            System.arraycopy(children, i + 1, children, i, size - i - 1);
+            System.arraycopy(minXs, i + 1, minXs, i, size - i - 1);
+            System.arraycopy(minYs, i + 1, minYs, i, size - i - 1);
+            System.arraycopy(maxXs, i + 1, maxXs, i, size - i - 1);
+            System.arraycopy(maxYs, i + 1, maxYs, i, size - i - 1);
+            System.arraycopy(counts, i + 1, counts, i, size - i - 1);
+            children[--size] = null;
+        }
 
-        Node(boolean isLeaf) {
-            this.isLeaf = isLeaf;
-            this.id = ++NODE_COUNTER; // 생성 시 자동으로 번호 부여
-            if (isLeaf) points = new ArrayList<>();
-            else children = new ArrayList<>();
+        int indexOf(Node c) {
+            for (int i = 0; i < size; i++)
+                if (children[i] == c) return i;
+            return -1;
         }
 
-        // 현재 노드의 점 또는 자식들의 MBR를 바탕으로 자신의 MBR을 재계산
-        void updateMBR() {
+        private void setChildBounds(int i, Node c) {
+            minXs[i] = c.minX;
+            minYs[i] = c.minY;
+            maxXs[i] = c.maxX;
+            maxYs[i] = c.maxY;
+            counts[i] = c.count;
+        }
+
+        // 현재 노드의 점 또는 자식들의 MBR를 바탕으로 자신의 MBR(과 서브트리 점 수)을 재계산 (새 객체 없이 제자리 갱신)
+        void recomputeBounds() {
+            double x1 = Double.POSITIVE_INFINITY, y1 = Double.POSITIVE_INFINITY;
+            double x2 = Double.NEGATIVE_INFINITY, y2 = Double.NEGATIVE_INFINITY;
+            double[] lx = isLeaf ? xs : minXs, ly = isLeaf ? ys : minYs;
+            double[] hx = isLeaf ? hxs : maxXs, hy = isLeaf ? hys : maxYs;
+            for (int i = 0; i < size; i++) {
+                if (lx[i] < x1) x1 = lx[i];
+                if (ly[i] < y1) y1 = ly[i];
+                if (hx[i] > x2) x2 = hx[i];
+                if (hy[i] > y2) y2 = hy[i];
+            }
+            minX = x1;
+            minY = y1;
+            maxX = x2;
+            maxY = y2;
+            long h = 0;
             if (isLeaf) {
-                if (points.isEmpty()) return; // 비어 있으면 유지
-                double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
-                double maxX = -1, maxY = -1;
-                for (Point p : points) {
-                    minX = Math.min(minX, p.getX());
-                    minY = Math.min(minY, p.getY());
-                    maxX = Math.max(maxX, p.getX());
-                    maxY = Math.max(maxY, p.getY());
-                }
-                mbr = new Rectangle(new Point(minX, minY), new Point(maxX, maxY));
+                count = size;
+                if (hs != null) for (int i = 0; i < size; i++) h = Math.max(h, hs[i]);
             } else {
-                if (children.isEmpty()) return;
-                double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
-                double maxX = -1, maxY = -1;
-                for (Node c : children) {
-                    Rectangle r = c.mbr;
-                    minX = Math.min(minX, r.getLeftTop().getX());
-                    minY = Math.min(minY, r.getLeftTop().getY());
-                    maxX = Math.max(maxX, r.getRightBottom().getX());
-                    maxY = Math.max(maxY, r.getRightBottom().getY());
+                int c = 0;
+                for (int i = 0; i < size; i++) {
+                    c += counts[i];
+                    h = Math.max(h, children[i].lhv);
                 }
-                mbr = new Rectangle(new Point(minX, minY), new Point(maxX, maxY));
+                count = c;
             }
+            lhv = h;
         }
-        // 현재 트리의 모든 MBR 출력
-        public static void printAllMBRs() {
-            System.out.println("==== 현재 트리의 모든 MBR ====");
 
-            // root 기준으로 직접 수집
-            allMBR.clear();
-            rectToId.clear();
+        // MBR(과 점 수) 재계산 후 부모 배열의 내 칸에도 반영
+        void updateMBR() {
+            recomputeBounds();
+            if (parent != null) {
+                int i = parent.indexOf(this);
+                parent.setChildBounds(i, this);
+                parent.keepLhvOrder(i);
+            }
+        }
 
-            // root는 static 아니므로 전역 접근 필요
-            // 이때 외부에서 RTreeImpl.root를 접근할 수 없으니, static이 아니라면 helper로
-            if (instanceRoot != null) collectMBRsStatic(instanceRoot, allMBR);
+        // HILBERT: LHV가 바뀐 i번째 자식을 형제 사이의 LHV 순서 위치로 옮김 (다른 정책은 LHV가 모두 0이라 그대로)
+        private void keepLhvOrder(int i) {
+            while (i > 0 && children[i - 1].lhv > children[i].lhv) swapChildren(i - 1, i--);
+            while (i + 1 < size && children[i + 1].lhv < children[i].lhv) swapChildren(i, i++ + 1);
+        }
 
-            if (allMBR.isEmpty()) {
-                System.out.println("(no MBRs)");
-            } else {
-                for (Rectangle r : allMBR) {
-                    int id = rectToId.getOrDefault(r, -1);
-                    System.out.printf("Node %d -> MBR[(%.1f, %.1f) ~ (%.1f, %.1f)]%n",
-                            id,
-                            r.getLeftTop().getX(), r.getLeftTop().getY(),
-                            r.getRightBottom().getX(), r.getRightBottom().getY());
-                }
+        private void swapChildren(int a, int b) {
+            Node c = children[a];
+            children[a] = children[b];
+            children[b] = c;
+            setChildBounds(a, children[a]);
+            setChildBounds(b, children[b]);
+        }
+    }
+
+    // 초기 루트를 리프로 시작하는 4-way R-Tree 생성 (Guttman quadratic split)
+    public RTreeImpl() {
+        this(SplitPolicy.QUADRATIC);
+    }
+
+    public RTreeImpl(SplitPolicy splitPolicy) {
+        this(DEFAULT_MAX_ENTRIES, defaultMinEntries(DEFAULT_MAX_ENTRIES), splitPolicy);
+    }
+
+    /**
+     * @param maxEntries  노드당 최대 엔트리 수 M (캐시 라인/페이지 크기에 맞춰 32~128 등)
+     * @param minEntries  루트 외 노드의 최소 엔트리 수 m (1 ≤ m ≤ M/2)
+     * @param splitPolicy 분할 정책
+     */
+    public RTreeImpl(int maxEntries, int minEntries, SplitPolicy splitPolicy) {
+        this(maxEntries, minEntries, Objects.requireNonNull(splitPolicy), null);
+    }
+
+    /**
+     * Hilbert R-tree를 주어진 격자로 생성 (분할 정책 없음, overflow는 shareOrSplit)
+     *
+     * @param curve 엔트리 중심의 힐베르트 키를 만드는 격자 (데이터 범위에 맞추면 키가 촘촘해짐,
+     *              범위를 모르면 HilbertCurve.UNBOUNDED)
+     */
+    public RTreeImpl(int maxEntries, int minEntries, HilbertCurve curve) {
+        this(maxEntries, minEntries, null, Objects.requireNonNull(curve));
+    }
+
+    // splitPolicy와 curve 중 정확히 하나만 지정
+    RTreeImpl(int maxEntries, int minEntries, SplitPolicy splitPolicy, HilbertCurve curve) {
+        if (maxEntries < 2)
+            throw new IllegalArgumentException("maxEntries must be >= 2: " + maxEntries);
+        if (minEntries < 1 || minEntries > maxEntries / 2)
+            throw new IllegalArgumentException("minEntries must be in [1, " + maxEntries / 2 + "]: " + minEntries);
+        if ((splitPolicy == null) == (curve == null))
+            throw new IllegalArgumentException("exactly one of splitPolicy and curve must be given");
+        this.splitPolicy = splitPolicy;
+        this.curve = curve;
+        this.maxEntries = maxEntries;
+        this.minEntries = minEntries;
+        root = newNode(0);
+    }
+
+    // R* 논문 권장값: M의 40%
+    public static int defaultMinEntries(int maxEntries) {
+        return Math.max(1, Math.min(maxEntries / 2, Math.round(maxEntries * 0.4f)));
+    }
+
+    // 분할 정책 (HILBERT 트리는 null)
+    public SplitPolicy getSplitPolicy() {
+        return splitPolicy;
+    }
+
+    // HILBERT 트리의 격자 (그 외 null)
+    public HilbertCurve getHilbertCurve() {
+        return curve;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int getMinEntries() {
+        return minEntries;
+    }
+
+    // overflow(M+1)까지 담을 수 있는 노드
+    Node newNode(int level) {
+        Node n = new Node(level, maxEntries + 1);
+        n.epoch = epoch;
+        if (curve != null && level == 0) n.hs = new long[maxEntries + 1];
+        return n;
+    }
+
+    /*-----------------Copy-on-write----------------*/
+    // 이후의 add/delete는 현재 루트에서 보이는 노드를 고치지 않음 (ConcurrentRTree 생성 시 호출)
+    void enableCopyOnWrite() {
+        copyOnWrite = true;
+        epoch++;
+    }
+
+    /**
+     * 현재 트리를 불변 스냅샷으로 공개. 이후 쓰기는 새 epoch에서 복사본을 만들어 진행.
+     *
+     * @return 스냅샷 루트 (이 루트에서 보이는 노드는 더 이상 바뀌지 않음, parent 포인터 제외)
+     */
+    Node publish() {
+        epoch++;
+        return root;
+    }
+
+    /**
+     * n을 수정하기 전에 호출. copy-on-write 모드에서 n이 이전 epoch의 노드면
+     * n과 조상들을 루트까지 복사해 현재 트리에 연결하고 복사본을 반환 (이후 n 대신 사용)
+     */
+    private Node mutable(Node n) {
+        if (!copyOnWrite || n.epoch == epoch) return n;
+        Node copy = new Node(n, epoch);
+        if (n.parent == null) {
+            root = copy;
+        } else {
+            Node parent = mutable(n.parent);
+            parent.children[parent.indexOf(n)] = copy;
+            copy.parent = parent;
+        }
+        return copy;
+    }
+
+    /*-----------------Listener----------------*/
+    public void addListener(RTreeListener listener) {
+        RTreeListener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    public void removeListener(RTreeListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                RTreeListener[] next = new RTreeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, next, 0, i);
+                System.arraycopy(listeners, i + 1, next, i, next.length - i);
+                listeners = next;
+                return;
             }
-            System.out.println("=============================");
         }
+    }
 
+    // 시각화 등 listener가 트리 전체를 읽을 때 사용
+    Node root() {
+        return root;
     }
 
-    // 초기 루트를 리프로 시작하는 R-Tree 생성
-    public RTreeImpl() {
-        root = new Node(true);
-        instanceRoot = root;
+    private void fireOperationStarted(RTreeListener.Operation op) {
+        for (RTreeListener l : listeners) l.operationStarted(op);
+    }
+
+    private void fireOperationFinished(RTreeListener.Operation op) {
+        for (RTreeListener l : listeners) l.operationFinished(op);
+    }
+
+    private void fireNodeSelected(Node n) {
+        for (RTreeListener l : listeners) l.nodeSelected(n);
+    }
+
+    private void fireNodeSplit(Node n, Node sibling) {
+        for (RTreeListener l : listeners) l.nodeSplit(n, sibling);
+    }
+
+    private void fireNodeRemoved(Node n) {
+        for (RTreeListener l : listeners) l.nodeRemoved(n);
+    }
+
+    private void fireTreeChanged() {
+        for (RTreeListener l : listeners) l.treeChanged();
+    }
+
+    private void fireNodeVisited(Node n) {
+        for (RTreeListener l : listeners) l.nodeVisited(n);
+    }
+
+    private void fireNodeTested(Node n, boolean intersects) {
+        for (RTreeListener l : listeners) l.nodeTested(n, intersects);
+    }
+
+    private void firePointFound(Point p) {
+        for (RTreeListener l : listeners) l.pointFound(p);
+    }
+
+    // 좌표만 있는 곳에서 통지: listener가 있을 때만 Point를 만듦
+    private void firePointFound(double x, double y) {
+        if (listeners.length != 0) firePointFound(new Point(x, y));
     }
 
     // 유틸
-    private void collectMBRs(Node node, List<Rectangle> list) {
-        if (node == null || node.mbr == null) return;
-        list.add(node.mbr);
-        rectToId.put(node.mbr, node.id); // 추가: MBR ↔ Node ID 매핑
-        if (!node.isLeaf)
-            for (Node c : node.children) collectMBRs(c, list);
+    static boolean contains(double minX, double minY, double maxX, double maxY, double x, double y) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
     }
 
-    // 루트부터 MBR 정보 수집
-    private static void collectMBRsStatic(Node node, List<Rectangle> list) {
-        if (node == null || node.mbr == null) return;
-        list.add(node.mbr);
-        rectToId.put(node.mbr, node.id);
-        if (!node.isLeaf)
-            for (Node c : node.children) collectMBRsStatic(c, list);
+    // 두 사각형이 겹치지 않으면 true가 아니게 처리
+    static boolean intersects(double aMinX, double aMinY, double aMaxX, double aMaxY,
+                                      double bMinX, double bMinY, double bMaxX, double bMaxY) {
+        return !(aMaxX < bMinX || aMinX > bMaxX || aMaxY < bMinY || aMinY > bMaxY);
     }
 
-    private void collectPoints(Node node, List<Point> list) {
-        if (node == null) return;
-        if (node.isLeaf && node.points != null) list.addAll(node.points);
-        else if (node.children != null) for (Node c : node.children) collectPoints(c, list);
+    private static double area(double minX, double minY, double maxX, double maxY) {
+        return (maxX - minX) * (maxY - minY);
     }
 
-    private boolean contains(Rectangle r, Point p) {
-        return p.getX() >= r.getLeftTop().getX() && p.getX() <= r.getRightBottom().getX()
-                && p.getY() >= r.getLeftTop().getY() && p.getY() <= r.getRightBottom().getY();
+    /**
+     * 점 (px, py)에서 사각형까지의 최소거리(MINDIST). 사각형 안의 어떤 점까지의 거리보다도 크지 않음.
+     * Point.distance와 같은 식으로 계산해 부동소수 반올림 후에도 하한이 유지되도록 함.
+     */
+    static double minDist(double minX, double minY, double maxX, double maxY, double px, double py) {
+        double dx = Math.max(0, Math.max(minX - px, px - maxX));
+        double dy = Math.max(0, Math.max(minY - py, py - maxY));
+        return Math.sqrt(dx * dx + dy * dy);
     }
 
-    private boolean intersects(Rectangle a, Rectangle b) {
-        // 두 사각형이 겹치지 않으면 true가 아니게 처리
-        return !(a.getRightBottom().getX() < b.getLeftTop().getX() ||
-                a.getLeftTop().getX() > b.getRightBottom().getX() ||
-                a.getRightBottom().getY() < b.getLeftTop().getY() ||
-                a.getLeftTop().getY() > b.getRightBottom().getY());
+    // Point.distance와 같은 식 (source 기준)
+    static double distance(double sx, double sy, double px, double py) {
+        double dx = sx - px;
+        double dy = sy - py;
+        return Math.sqrt(dx * dx + dy * dy);
     }
 
     /**
      * 삽입 후 조상으로 올라가며 반복 수행
-     * 1) MBR 재계산 → 시각화
-     * 2) 차수 초과 시 split → 시각화
+     * 1) MBR 재계산 → 통지
+     * 2) 차수 초과(overflow) 시
+     *    * R*: 이번 삽입에서 이 레벨의 첫 overflow면 강제 재삽입 (루트 제외)
+     *    * 그 외: split
      */
-    private void adjustTreeAnimated(Node n) {
+    private void adjustTree(Node n) {
         while (n != null) {
-            // 루트는 강조하지 않도록 조건 추가
-            boolean isRoot = (n.parent == null);
-
             // MBR 업데이트
             n.updateMBR();
-
-            // 루트가 아니면 강조
-            if (!isRoot) {
-                highlightRect = n.mbr;
-                refreshGUI();
-                highlightRect = null;
-            }
-
-            // Overflow → split
-            if (n.isLeaf && n.points.size() > M) {
-                splitNode(n);
-            } else if (!n.isLeaf && n.children.size() > M) {
+            fireNodeSelected(n);
+
+            if (n.size > maxEntries && curve != null) {
+                shareOrSplit(n);
+            } else if (n.size > maxEntries) {
+                long bit = 1L << n.level;
+                if (splitPolicy.forcedReinsert() && n.parent != null && (reinsertedLevels & bit) == 0) {
+                    reinsertedLevels |= bit;
+                    reinsert(n);
+                    return; // 재삽입한 엔트리들의 경로는 각 삽입에서 조정됨
+                }
                 splitNode(n);
             }
 
-            // 분할 후 모습
-            refreshGUI();
+            // 다음 부모로 이동 (루트면 종료)
+            n = n.parent;
+        }
+    }
+
+    /**
+     * R* 강제 재삽입:
+     * - n의 MBR 중심에서 가장 먼 엔트리 30%를 떼어냄 → n과 조상 MBR 축소
+     * - 떼어낸 엔트리를 가까운 것부터 같은 레벨에 다시 삽입 (close reinsert)
+     */
+    private void reinsert(Node n) {
+        double cx = (n.minX + n.maxX) / 2;
+        double cy = (n.minY + n.maxY) / 2;
+        int count = n.size;
+        int p = Math.max(1, (int) Math.round(count * REINSERT_FRACTION));
+
+        int[] order = new int[count];
+        double[] dist = new double[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            double ex = n.isLeaf ? (n.xs[i] + n.hxs[i]) / 2 : (n.minXs[i] + n.maxXs[i]) / 2;
+            double ey = n.isLeaf ? (n.ys[i] + n.hys[i]) / 2 : (n.minYs[i] + n.maxYs[i]) / 2;
+            dist[i] = -((ex - cx) * (ex - cx) + (ey - cy) * (ey - cy)); // 먼 것부터 정렬되도록 부호 반전
+        }
+        IndexSort.sort(order, 0, count, dist, null);
+
+        // 먼 것부터 p개를 떼어냄 (재삽입은 가까운 것부터)
+        boolean[] drop = new boolean[count];
+        double[] removedX = new double[p], removedY = new double[p], removedHX = new double[p], removedHY = new double[p];
+        Object[] removedValues = new Object[p];
+        Node[] removedNodes = n.isLeaf ? null : new Node[p];
+        for (int k = 0; k < p; k++) {
+            int i = order[p - 1 - k];
+            drop[i] = true;
+            if (n.isLeaf) {
+                removedX[k] = n.xs[i];
+                removedY[k] = n.ys[i];
+                removedHX[k] = n.hxs[i];
+                removedHY[k] = n.hys[i];
+                removedValues[k] = n.getValue(i);
+            } else {
+                removedNodes[k] = n.children[i];
+            }
+        }
+        compact(n, drop);
+        for (Node a = n; a != null; a = a.parent) a.updateMBR();
+        fireTreeChanged();
 
-            // 다음 부모로 이동
-            if (n.parent != null)
-                n = n.parent;
-            else
-                return;   // 루트 도달
+        for (int k = 0; k < p; k++) {
+            if (n.isLeaf) insertEntry(removedX[k], removedY[k], removedHX[k], removedHY[k], removedValues[k]);
+            else insertNode(removedNodes[k]);
         }
+    }
 
-        highlightRect = null;
+    // drop[i]가 true인 엔트리를 순서를 유지하며 제거
+    private static void compact(Node n, boolean[] drop) {
+        int w = 0;
+        for (int i = 0; i < n.size; i++) {
+            if (drop[i]) continue;
+            if (n.isLeaf) {
+                n.xs[w] = n.xs[i];
+                n.ys[w] = n.ys[i];
+                if (n.hxs != n.xs) {
+                    n.hxs[w] = n.hxs[i];
+                    n.hys[w] = n.hys[i];
+                }
+                if (n.values != null) n.values[w] = n.values[i];
+                if (n.hs != null) n.hs[w] = n.hs[i];
+            } else {
+                n.children[w] = n.children[i];
+                n.minXs[w] = n.minXs[i];
+                n.minYs[w] = n.minYs[i];
+                n.maxXs[w] = n.maxXs[i];
+                n.maxYs[w] = n.maxYs[i];
+                n.counts[w] = n.counts[i];
+            }
+            w++;
+        }
+        if (!n.isLeaf) Arrays.fill(n.children, w, n.size, null);
+        else if (n.values != null) Arrays.fill(n.values, w, n.size, null);
+        n.size = w;
     }
 
 
     /*-----------------ADD----------------*/
     /*
-     * - chooseLeaf로 삽입 리프 경로를 단계적으로 강조
+     * - chooseSubtree로 삽입 리프 경로를 선택
      * - 리프에 점 추가 후 MBR 업데이트 (즉시 반영)
-     * - adjustTreeAnimated로 조상 MBR/분할 과정을 단계적으로 시각화
+     * - adjustTree로 조상 MBR/분할 처리
      */
     @Override
     public void add(Point point) {
-        currentMode = Mode.ADD;
-
+        double x = point.getX(), y = point.getY();
         // 동일 좌표 점 중복 삽입 방지(리프까지 내려가 contains 체크)
-        if (exists(root, point)) return;
+        if (exists(root, x, y)) return;
+        fireOperationStarted(RTreeListener.Operation.ADD);
 
-        // 1) 삽입할 리프 선택: 경로 후보 MBR을 빨간 반투명 강조하며 최소확장 기준으로 내려감
-        Node leaf = chooseLeaf(root, point);
-        refreshGUI(); // 현재 경로 강조 상태를 한 번 표시
+        modCount++;
+        reinsertedLevels = 0;
+        insertEntry(x, y, x, y, null);
 
-        // 2) 리프에 실제 점 삽입 + MBR 갱신 + 즉시 시각화
-        leaf.points.add(point);
-        leaf.updateMBR();
-        refreshGUI();
-
-        // 3) 조상으로 올라가며 MBR 재계산/분할까지 단계적으로 시각화
-        adjustTreeAnimated(leaf);
-        highlightRect = null;
-        highlightPoints.clear();
-
-        currentMode = Mode.NONE;
+        fireOperationFinished(RTreeListener.Operation.ADD);
     }
 
     /**
-     * 삽입 리프 선택 (최소 면적 증가 기준).
-     * - 각 자식 후보를 순회하면서 후보 MBR을 highlightRect로 번갈아 강조
-     * - 최종 선택된 자식을 마지막으로 다시 강조
-     * - 재귀적으로 리프까지 진행
+     * 값이 붙은 점/사각형 삽입 (EntryRTree용): 같은 좌표, 같은 값이 이미 있어도 그대로 하나 더 넣음
      */
-    private Node chooseLeaf(Node n, Point p) {
-        if (n.isLeaf) return n;
+    void addEntry(double x1, double y1, double x2, double y2, Object value) {
+        fireOperationStarted(RTreeListener.Operation.ADD);
+        modCount++;
+        reinsertedLevels = 0;
+        insertEntry(x1, y1, x2, y2, value);
+        fireOperationFinished(RTreeListener.Operation.ADD);
+    }
 
-        Node best = null;
-        double bestArea = Double.MAX_VALUE;
+    // 값이 붙은 엔트리 여러 개를 한 번에 삽입 (EntryRTree.addAll용, 중복 검사 없음). hxs가 null이면 모두 점
+    void addEntries(double[] xs, double[] ys, double[] hxs, double[] hys, Object[] values, int count) {
+        if (count == 0) return;
+        fireOperationStarted(RTreeListener.Operation.ADD);
+        modCount++;
+        insertBatch(xs, ys, hxs, hys, values, count);
+        fireOperationFinished(RTreeListener.Operation.ADD);
+    }
 
-        for (Node c : n.children) {
-            double enlarge = enlargement(c.mbr, p);
-            if (enlarge < bestArea) {
-                bestArea = enlarge;
-                best = c;
-            }
+    // 1) 삽입할 리프 선택 → 2) 리프에 엔트리 삽입 + MBR 갱신 → 3) 조상으로 올라가며 MBR 재계산/분할
+    private void insertEntry(double x1, double y1, double x2, double y2, Object value) {
+        if (curve != null) {
+            insertHilbert(x1, y1, x2, y2, value);
+            return;
         }
+        Node leaf = mutable(chooseSubtree(x1, y1, x2, y2, 0));
+        leaf.addRect(x1, y1, x2, y2, value);
+        leaf.updateMBR();
+        fireTreeChanged();
+        adjustTree(leaf);
+    }
 
-        // 최종 선택된 자식을 한 번 더 강조해 '선택됨'을 명시적으로 보여줌
-        highlightRect = best.mbr;
-        refreshGUI();
-        highlightRect = null;
-
-        return chooseLeaf(best, p);
+    // 서브트리(재삽입/재배치 대상)를 한 레벨 위 노드의 자식으로 삽입
+    private void insertNode(Node child) {
+        if (curve != null) {
+            Node target = mutable(chooseHilbert(child.lhv, child.level + 1));
+            target.addChild(child);
+            int pos = target.size - 1;
+            while (pos > 0 && target.children[pos - 1].lhv > child.lhv) pos--;
+            target.moveLast(pos);
+            fireTreeChanged();
+            adjustTree(target);
+            return;
+        }
+        Node target = mutable(chooseSubtree(child.minX, child.minY, child.maxX, child.maxY, child.level + 1));
+        target.addChild(child);
+        fireTreeChanged();
+        adjustTree(target);
     }
 
-    // 점 p를 포함시키기 위해 기존 MBR r의 면적 증가량 계산
-    private double enlargement(Rectangle r, Point p) {
-        double minX = Math.min(r.getLeftTop().getX(), p.getX());
-        double minY = Math.min(r.getLeftTop().getY(), p.getY());
-        double maxX = Math.max(r.getRightBottom().getX(), p.getX());
-        double maxY = Math.max(r.getRightBottom().getY(), p.getY());
-        double old = (r.getRightBottom().getX() - r.getLeftTop().getX()) * (r.getRightBottom().getY() - r.getLeftTop().getY());
-        double neu = (maxX - minX) * (maxY - minY);
-        return neu - old;
+    /**
+     * 삽입 노드 선택 (최소 면적 증가 기준, 같으면 면적이 작은 쪽).
+     * - 루트에서 시작해 주어진 level의 노드에 도달할 때까지 내려감 (점 삽입이면 리프)
+     * - 각 단계에서 선택된 자식을 통지
+     */
+    private Node chooseSubtree(double minX, double minY, double maxX, double maxY, int level) {
+        Node n = root;
+        while (n.level > level) {
+            int best = 0;
+            double bestEnlarge = Double.MAX_VALUE, bestArea = Double.MAX_VALUE;
+
+            for (int i = 0; i < n.size; i++) {
+                double cx1 = n.minXs[i], cy1 = n.minYs[i], cx2 = n.maxXs[i], cy2 = n.maxYs[i];
+                double area = area(cx1, cy1, cx2, cy2);
+                double enlarge = area(Math.min(cx1, minX), Math.min(cy1, minY),
+                        Math.max(cx2, maxX), Math.max(cy2, maxY)) - area;
+                if (enlarge < bestEnlarge || (enlarge == bestEnlarge && area < bestArea)) {
+                    bestEnlarge = enlarge;
+                    bestArea = area;
+                    best = i;
+                }
+            }
+
+            n = n.children[best];
+            fireNodeSelected(n);
+        }
+        return n;
     }
 
     /**
      * 노드 분할(split):
-     * - 자식 수가 M(=4)를 초과하면 호출됨.
-     * - 현재 노드를 둘로 나누고, 부모에 새 sibling을 추가함.
+     * - 자식 수가 M을 초과하면 호출됨.
+     * - splitPolicy가 엔트리 MBR을 보고 두 그룹으로 나누면, 두 번째 그룹을 새 sibling으로 옮기고 부모에 추가함.
      * - 루트 분할이 발생하면 새로운 루트를 자동 생성하여 트리 높이를 증가시킴.
-     * - n과 sibling의 MBR을 재계산한 후 시각화를 갱신함.
+     * - n과 sibling의 MBR을 재계산한 후 nodeSplit 통지.
      *
      * 절차:
      *   1) n이 루트라면 먼저 새로운 루트 생성 (트리 높이 증가)
-     *   2) n을 절반(split)하여 새로운 sibling 노드 생성
+     *   2) splitPolicy로 n의 엔트리를 나눠 새로운 sibling 노드 생성
      *   3) 부모(parent)에 sibling을 붙임
      *   4) 부모 MBR 갱신
-     *   5) 과정 중 refreshGUI()로 단계별 시각화
      */
     private void splitNode(Node n) {
         // 현재 노드가 root일 때 새 루트 생성
-        if (n == root && n.parent == null) {
-            Node newRoot = new Node(false);
-            newRoot.children = new ArrayList<>();
-            newRoot.children.add(n);
-            n.parent = newRoot;
+        if (n.parent == null) {
+            Node newRoot = newNode(n.level + 1);
+            newRoot.addChild(n);
             root = newRoot;
-            instanceRoot = root;
-            refreshGUI();
         }
 
-        Node sibling = new Node(n.isLeaf);
-        if (n.isLeaf) {     // point 절반 분할
-            int half = n.points.size() / 2;
-            sibling.points.addAll(n.points.subList(half, n.points.size()));
-            n.points = new ArrayList<>(n.points.subList(0, half));
-        } else {    // children 절반 분할
-            int half = n.children.size() / 2;
-            sibling.children.addAll(n.children.subList(half, n.children.size()));
-            n.children = new ArrayList<>(n.children.subList(0, half));
-            // 분리된 자식들 parent 업데이트
-            for (Node c : sibling.children)
-                c.parent = sibling;
+        // 엔트리 MBR 배열 (리프의 점은 min == max인 퇴화 사각형 → 좌표 배열을 그대로 넘김)
+        boolean[] toSibling = n.isLeaf
+                ? splitPolicy.split(n.xs, n.ys, n.hxs, n.hys, n.size, minEntries)
+                : splitPolicy.split(n.minXs, n.minYs, n.maxXs, n.maxYs, n.size, minEntries);
+
+        Node sibling = newNode(n.level);
+        for (int i = 0; i < n.size; i++) {
+            if (!toSibling[i]) continue;
+            if (n.isLeaf) sibling.addFrom(n, i);
+            else sibling.addChild(n.children[i]); // 분리된 자식들 parent 업데이트
         }
+        compact(n, toSibling);
 
-        // 분할된 n, sibling MBR 재계산
+        // 분할된 n, sibling MBR 재계산 후 부모(parent)에 sibling을 붙임
         n.updateMBR();
-        sibling.updateMBR();
-        refreshGUI();
-
+        sibling.recomputeBounds();
         Node parent = n.parent;
-        if (parent == null) {
-            // parent가 null일 땐 여기서 새 루트 생성
-            parent = new Node(false);
-            parent.children.add(n);
-            root = parent;
-            instanceRoot = root;
-            n.parent = parent;
-        }
-
-        parent.children.add(sibling);
-        sibling.parent = parent;
+        parent.addChild(sibling);
         parent.updateMBR();
 
-        refreshGUI();
-        highlightRect = null;
+        fireNodeSplit(n, sibling);
     }
 
     /* 동일 좌표의 점이 유무 검사 (리프까지) */
-    private boolean exists(Node node, Point p) {
+    private boolean exists(Node node, double x, double y) {
+        fireNodeVisited(node);
         if (node.isLeaf) {
-            for (Point q : node.points)
-                if (q.getX() == p.getX() && q.getY() == p.getY()) return true;
+            for (int i = 0; i < node.size; i++)
+                if (node.xs[i] == x && node.ys[i] == y && node.hxs[i] == x && node.hys[i] == y) return true;
         } else {
-            for (Node c : node.children)
-                if (contains(c.mbr, p) && exists(c, p)) return true;
+            for (int i = 0; i < node.size; i++)
+                if (contains(node.minXs[i], node.minYs[i], node.maxXs[i], node.maxYs[i], x, y)
+                        && exists(node.children[i], x, y)) return true;
         }
         return false;
     }
 
-    /*-----------------Search----------------*/
-    /*
-     * - searchRecursive에서 노드 MBR과의 교차 여부에 따라
-     *   * 겹침 : 연두색 배경(탐색 진행)
-     *   * 안겹침 : 분홍색 배경(가지치기) - pruning 강조
-     * - 조건을 만족하는 점은 하나씩 빨간 점으로 추가/강조하며 단계적으로 표시
+    /*-----------------ADD BATCH----------------*/
+    /**
+     * 여러 점을 한 번에 삽입 (add를 반복 호출한 것과 같은 점 집합, 트리 모양은 다를 수 있음):
+     * 1) 배치를 (x, y)로 정렬해 배치 안 중복 제거, 트리에 이미 있는 점 제외
+     * 2) 각 점을 chooseSubtree로 고른 리프에 바로 넣음 (MBR은 아직 고치지 않음 → 같은 리프로 가는 점끼리 묶임)
+     * 3) 건드린 노드를 리프 레벨부터 한 번씩 처리: MBR 재계산, M 초과면 분할 후 부모를 다음 레벨 목록에 추가
+     * - R* 강제 재삽입은 하지 않고 바로 분할
+     *
+     * @param points 삽입할 점들
      */
-    @Override
-    public Iterator<Point> search(Rectangle rectangle) {
-        currentMode = Mode.SEARCH;
-
-        List<Point> result = new ArrayList<>();
-        highlightRect = rectangle;   // 검색 영역 강조
-        highlightPoints.clear();     // 기존 강조점 초기화
-
-        // 실제 검색(DFS)
-        searchRecursive(root, rectangle, result);
+    public void addAll(Collection<Point> points) {
+        int n = points.size();
+        double[] xs = new double[n], ys = new double[n];
+        int i = 0;
+        for (Point p : points) {
+            xs[i] = p.getX();
+            ys[i] = p.getY();
+            i++;
+        }
 
-        // 최종 결과를 한눈에 보이도록 강조점 유지
-        highlightPoints.addAll(result);
-        refreshGUI();
+        int[] order = new int[n];
+        for (int k = 0; k < n; k++) order[k] = k;
+        IndexSort.sort(order, 0, n, xs, ys);
+        double[] bx = new double[n], by = new double[n];
+        int count = 0;
+        for (int k = 0; k < n; k++) {
+            double x = xs[order[k]], y = ys[order[k]];
+            if (count > 0 && bx[count - 1] == x && by[count - 1] == y) continue;
+            if (exists(root, x, y)) continue;
+            bx[count] = x;
+            by[count] = y;
+            count++;
+        }
+        if (count == 0) return;
 
-        // 원복
-        highlightRect = null;
-        currentMode = Mode.NONE;
+        fireOperationStarted(RTreeListener.Operation.ADD);
+        modCount++;
+        insertBatch(bx, by, null, null, null, count);
+        fireOperationFinished(RTreeListener.Operation.ADD);
+    }
 
-        return result.iterator();
+    // 엔트리 count개를 삽입 (addAll, addEntries, deleteAll의 고아 재삽입).
+    // hxs/hys가 null이면 모두 점, values가 null이면 값 없는 엔트리
+    private void insertBatch(double[] xs, double[] ys, double[] hxs, double[] hys, Object[] values, int count) {
+        if (hxs == null) {
+            hxs = xs;
+            hys = ys;
+        }
+        if (curve != null) { // HILBERT: 키 순서와 sibling 나눠 갖기를 유지하도록 하나씩 삽입
+            for (int i = 0; i < count; i++) insertEntry(xs[i], ys[i], hxs[i], hys[i], values == null ? null : values[i]);
+            return;
+        }
+        List<Node> touched = new ArrayList<>();
+        Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < count; i++) {
+            Node leaf = mutable(chooseSubtree(xs[i], ys[i], hxs[i], hys[i], 0));
+            leaf.addRect(xs[i], ys[i], hxs[i], hys[i], values == null ? null : values[i]);
+            if (seen.add(leaf)) touched.add(leaf);
+        }
+        fireTreeChanged();
+
+        // 레벨별로 위로: 같은 레벨의 노드들을 처리하며 부모들을 모음
+        while (!touched.isEmpty()) {
+            List<Node> parents = new ArrayList<>();
+            seen.clear();
+            for (Node n : touched) {
+                if (n.size > maxEntries) splitOverflow(n);
+                else n.updateMBR();
+                if (n.parent != null && seen.add(n.parent)) parents.add(n.parent);
+            }
+            touched = parents;
+        }
     }
 
     /**
-     * 검색 재귀:
-     * - 리프 : 점을 검사하면서 조건에 맞는 점들을 하나씩 강조/추가
-     * - 내부노드: 자식별로 MBR 교차 여부를 확인:
-     *      * 교차: panel 배경을 연두색 → 탐색 진행 장면
-     *      * 불교차: panel 배경을 분홍색 → 가지치기 장면
+     * M을 넘긴 노드를 M 이하 노드들로 나눔 (나뉜 노드들은 n의 부모에 붙음, 루트면 새 루트 생성)
+     * - 2M 이하: splitPolicy로 반복 분할
+     * - 2M 초과(작은 트리에 큰 배치가 몰린 경우): STR 타일로 한 번에 나눔 (정책 분할 반복은 O(n²)까지 커짐)
      */
-    private void searchRecursive(Node n, Rectangle r, List<Point> out) {
-        if (n == null) return;
-
-        // 🔥 리프 노드인 경우 - 점 검사
-        if (n.isLeaf) {
-            for (Point p : n.points) {
-                if (contains(r, p)) {
-                    highlightPoints.add(p);
-                    refreshGUI();
-                    out.add(p);
-                    waitForKeyPress();     // 🔥 여기가 정상 호출됨
-                }
-            }
+    private void splitOverflow(Node n) {
+        if (n.size > 2 * maxEntries) {
+            packOverflow(n);
             return;
         }
-
-        // 🔥 내부 노드: 자식들 검사
-        for (Node c : n.children) {
-
-            if (intersects(c.mbr, r)) {
-                // 교차된 MBR 표시
-                searchHitRect = c.mbr;
-                searchPrunedRect = null;
-            } else {
-                // 가지치기된 MBR 표시
-                searchHitRect = null;
-                searchPrunedRect = c.mbr;
+        List<Node> pieces = new ArrayList<>();
+        pieces.add(n);
+        for (int i = 0; i < pieces.size(); i++) {
+            Node piece = pieces.get(i);
+            while (piece.size > maxEntries) {
+                splitNode(piece);
+                pieces.add(piece.parent.children[piece.parent.size - 1]); // 방금 붙은 sibling
             }
+        }
+    }
 
-            refreshGUI();
-            waitForKeyPress();            // 🔥 여기서 한 단계씩 멈춰 보여줌
-
-            if (intersects(c.mbr, r)) {
-                // 🔥 교차된 경우에만 재귀 진입
-                searchRecursive(c, r, out);
+    // STR 타일링으로 n의 엔트리를 M개씩(마지막은 m 이상) 묶어 n과 새 sibling들에 나눔
+    private void packOverflow(Node n) {
+        if (n.parent == null) {
+            Node newRoot = newNode(n.level + 1);
+            newRoot.addChild(n);
+            root = newRoot;
+        }
+        int size = n.size;
+        double[] cx = new double[size], cy = new double[size];
+        double[] lx = n.isLeaf ? n.xs : n.minXs, ly = n.isLeaf ? n.ys : n.minYs;
+        double[] hx = n.isLeaf ? n.hxs : n.maxXs, hy = n.isLeaf ? n.hys : n.maxYs;
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            cx[i] = (lx[i] + hx[i]) / 2;
+            cy[i] = (ly[i] + hy[i]) / 2;
+            order[i] = i;
+        }
+        IndexSort.sort(order, 0, size, cx, null);
+        int[] bounds = strTiles(order, size, cx, cy);
+
+        // 원래 엔트리를 떼어 두고 n을 비운 뒤 묶음별로 다시 채움 (첫 묶음은 n)
+        double[] px = n.isLeaf ? Arrays.copyOf(n.xs, size) : null;
+        double[] py = n.isLeaf ? Arrays.copyOf(n.ys, size) : null;
+        double[] phx = n.isLeaf ? Arrays.copyOf(n.hxs, size) : null;
+        double[] phy = n.isLeaf ? Arrays.copyOf(n.hys, size) : null;
+        Object[] pv = n.values != null ? Arrays.copyOf(n.values, size) : null;
+        Node[] children = n.isLeaf ? null : Arrays.copyOf(n.children, size);
+        n.size = 0;
+        if (n.values != null) Arrays.fill(n.values, null);
+        Node parent = n.parent;
+        for (int g = 0; g + 1 < bounds.length; g++) {
+            Node target = g == 0 ? n : newNode(n.level);
+            for (int k = bounds[g]; k < bounds[g + 1]; k++) {
+                int e = order[k];
+                if (n.isLeaf) target.addRect(px[e], py[e], phx[e], phy[e], pv == null ? null : pv[e]);
+                else target.addChild(children[e]);
+            }
+            if (g == 0) {
+                n.updateMBR();
+            } else {
+                target.recomputeBounds();
+                parent.addChild(target);
+                fireNodeSplit(n, target);
             }
         }
-
-        // 한 단계 종료 후 초기화
-        searchHitRect = null;
-        searchPrunedRect = null;
     }
 
-    /*-----------------KNN----------------*/
-    @Override
-    public Iterator<Point> nearest(Point source, int k) {
-        currentMode = Mode.KNN;
-
-        // 모든 점 수집 후 거리순 정렬
-        List<Point> all = new ArrayList<>();
-        collectPoints(root, all);
-        all.sort(Comparator.comparingDouble(source::distance));
-
-        // 기준점 강조
-        highlightPoints.clear();
-        DrawPanel.knnSource = source;
-        refreshGUI();
+    /*-----------------HILBERT----------------*/
+    // 엔트리의 힐베르트 키 (사각형은 중심)
+    long hilbertKey(double x1, double y1, double x2, double y2) {
+        return curve.index((x1 + x2) / 2, (y1 + y2) / 2);
+    }
 
-        // k개를 하나씩 빨간 점으로 추가하여 “탐색의 진행”을 보여줌
-        for (int i = 0; i < k && i < all.size(); i++) {
-            highlightPoints.add(all.get(i));
-            refreshGUI();
-            waitForKeyPress();
+    /**
+     * HILBERT 삽입 노드 선택: 각 레벨에서 LHV가 h 이상인 첫 자식, 없으면 마지막 자식으로 내려감.
+     * 면적 계산 없이 키 비교만 하고, 같은 키 구간의 엔트리는 항상 같은 리프로 모임
+     */
+    private Node chooseHilbert(long h, int level) {
+        Node n = root;
+        while (n.level > level) {
+            int i = 0;
+            while (i < n.size - 1 && n.children[i].lhv < h) i++;
+            n = n.children[i];
+            fireNodeSelected(n);
         }
+        return n;
+    }
 
-        // 끝난 후 강조 해제
-        highlightPoints.clear();
-        DrawPanel.knnSource = null;
-        currentMode = Mode.NONE;
-
-        // 결과 반환
-        return all.subList(0, Math.min(k, all.size())).iterator();
+    // 리프의 키 순서 위치에 엔트리 삽입 → MBR/LHV 갱신 → overflow는 adjustTree에서 shareOrSplit
+    private void insertHilbert(double x1, double y1, double x2, double y2, Object value) {
+        long h = hilbertKey(x1, y1, x2, y2);
+        Node leaf = mutable(chooseHilbert(h, 0));
+        leaf.addRect(x1, y1, x2, y2, value);
+        leaf.hs[leaf.size - 1] = h;
+        int pos = leaf.size - 1;
+        while (pos > 0 && leaf.hs[pos - 1] > h) pos--;
+        leaf.moveLast(pos);
+        leaf.updateMBR();
+        fireTreeChanged();
+        adjustTree(leaf);
     }
 
-    /*-----------------DELETE----------------*/
     /**
-     * - deleteRecursive로 내려가며 삭제 대상 점을 빨간 점으로 잠깐 강조 후 제거
-     * - 제거 후 리프/내부 노드가 비면 그 노드를 부모에서 제거
-     * - 조상으로 올라가며 MBR을 축소 갱신
+     * HILBERT overflow (deferred split, 2-to-3):
+     * - 키 순서상 이웃한 sibling 하나(다음, 없으면 이전)와 엔트리를 순서대로 합쳐 고르게 나눠 가짐 → 분할 없음
+     * - 둘 다 꽉 차 합이 2M을 넘을 때만 둘 사이에 새 노드를 끼워 셋으로 나눔 → 노드가 약 2/3 이상 차 있음
+     * - 루트(또는 외자식)는 순서대로 반으로 나눔
      */
-    @Override
-    public void delete(Point point) {
-        currentMode = Mode.DELETE;
+    private void shareOrSplit(Node n) {
+        if (n.parent == null) {
+            Node newRoot = newNode(n.level + 1);
+            newRoot.addChild(n);
+            root = newRoot;
+        }
+        Node parent = n.parent;
+        int i = parent.indexOf(n);
+        List<Node> group = new ArrayList<>(3);
+        if (parent.size == 1) {
+            group.add(n);
+        } else if (i + 1 < parent.size) {
+            group.add(n);
+            group.add(mutable(parent.children[i + 1]));
+        } else {
+            group.add(mutable(parent.children[i - 1]));
+            group.add(n);
+        }
 
-        // 실제 삭제 시도
-        deleteRecursive(root, point);
+        // 그룹의 엔트리를 순서대로 모은 뒤 노드들을 비움
+        int total = 0;
+        for (Node g : group) total += g.size;
+        Node entries = n.isLeaf ? new Node(0, total) : null;
+        Node[] children = n.isLeaf ? null : new Node[total];
+        if (entries != null) entries.hs = new long[total];
+        int c = 0;
+        for (Node g : group) {
+            for (int k = 0; k < g.size; k++) {
+                if (entries != null) entries.addFrom(g, k);
+                else children[c++] = g.children[k];
+            }
+            if (g.isLeaf) {
+                if (g.values != null) Arrays.fill(g.values, null);
+            } else {
+                Arrays.fill(g.children, null);
+            }
+            g.size = 0;
+        }
 
-        // 루트 정리: 루트가 내부노드인데 자식 하나만 남았으면 높이를 1 줄임,
-        // 루트가 리프이고 비었으면 트리를 비움
-        if (!root.isLeaf && root.children.size() == 1) {
-            root = root.children.get(0);
-            root.parent = null;
+        // 필요한 노드 수만큼 새 노드를 그룹 마지막 노드 뒤에 끼움
+        int pieces = (total + maxEntries - 1) / maxEntries, shared = group.size();
+        Node last = group.get(shared - 1);
+        for (int k = shared; k < pieces; k++) {
+            Node sibling = newNode(n.level);
+            parent.addChild(sibling);
+            parent.moveLast(parent.indexOf(last) + 1);
+            group.add(sibling);
+            last = sibling;
         }
-        if (root.isLeaf && root.points.isEmpty()) root = null;
 
-        refreshGUI();
-        currentMode = Mode.NONE;
+        // 순서대로 고르게 다시 채움 (앞쪽 노드가 하나씩 더 받음)
+        int from = 0;
+        for (int k = 0; k < pieces; k++) {
+            Node g = group.get(k);
+            int to = from + total / pieces + (k < total % pieces ? 1 : 0);
+            for (int e = from; e < to; e++) {
+                if (entries != null) g.addFrom(entries, e);
+                else g.addChild(children[e]);
+            }
+            g.updateMBR();
+            from = to;
+        }
+        fireTreeChanged();
+        for (int k = shared; k < pieces; k++) fireNodeSplit(n, group.get(k));
     }
 
     /**
-     * 삭제 재귀:
-     * - 각 노드에 진입할 때 highlightRect로 해당 노드 MBR 강조(경로 시각화)
-     * - 리프라면 대상 점을 찾고 빨간 점으로 강조 → remove → MBR 갱신 → 장면 표시
-     * - 내부노드라면, p를 포함할 수 있는 자식만 재귀. 삭제 성공 후:
-     *   * 자식이 비면 해당 자식을 제거
-     *   * 현재 노드의 MBR 업데이트
+     * 모든 점 좌표를 트리 순서(리프를 왼쪽부터)로 consumer에 넘김. Point 객체를 만들지 않음.
+     * HILBERT 트리에서는 힐베르트 키 순서 → 공간적으로 모인 순서로 내보내기(export)
+     *
+     * @return 넘긴 점 수
      */
-    private boolean deleteRecursive(Node n, Point p) {
-        if (n == null) return false;
+    public int scan(PointConsumer consumer) {
+        return scanRecursive(root, consumer);
+    }
 
-        // 현재 방문 노드의 MBR 강조
-        highlightRect = n.mbr;
-        refreshGUI();
-        try { Thread.sleep(150); } catch (InterruptedException ignored) {}
+    // 스냅샷 루트에서 scan (DurableRTree checkpoint용)
+    static int scan(Node snapshot, PointConsumer consumer) {
+        return scanRecursive(snapshot, consumer);
+    }
 
-        if (n.isLeaf) {
-            // 리프에서 직접 점을 찾아 제거
-            Iterator<Point> it = n.points.iterator();
-            while (it.hasNext()) {
-                Point q = it.next();
-                if (q.getX() == p.getX() && q.getY() == p.getY()) {
-                    // 삭제 대상 점을 잠깐 크게 빨간 점으로 강조
-                    highlightPoints.clear();
-                    highlightPoints.add(q);
-                    refreshGUI();
-
-                    // 실제 제거 + MBR 갱신
-                    it.remove();
-                    n.updateMBR();
-                    refreshGUI();
-                    try { Thread.sleep(50); } catch (InterruptedException ignored) {}
-                    return true;
+    private static int scanRecursive(Node n, PointConsumer consumer) {
+        if (!n.isLeaf) {
+            int found = 0;
+            for (int i = 0; i < n.size; i++) found += scanRecursive(n.children[i], consumer);
+            return found;
+        }
+        for (int i = 0; i < n.size; i++) consumer.accept(n.xs[i], n.ys[i]);
+        return n.size;
+    }
+
+    /*-----------------BULK LOAD----------------*/
+    /**
+     * STR(Sort-Tile-Recursive) 일괄 적재, 기본 4-way / quadratic split.
+     *
+     * @param points 적재할 점들 (같은 x, y 값을 갖는 점은 하나만 적재)
+     * @return 이후 add/delete가 가능한 일반 RTreeImpl
+     */
+    public static RTreeImpl bulkLoad(Collection<Point> points) {
+        return bulkLoad(points, DEFAULT_MAX_ENTRIES, defaultMinEntries(DEFAULT_MAX_ENTRIES), SplitPolicy.QUADRATIC);
+    }
+
+    /**
+     * STR(Sort-Tile-Recursive) 일괄 적재:
+     * 1) 점을 x로 정렬해 √(리프 수)개의 세로 슬라이스로 나누고, 슬라이스마다 y로 정렬해 M개씩 리프로 묶음
+     * 2) 만들어진 노드들의 MBR 중심으로 같은 과정을 반복해 한 레벨씩 올림 → 노드 하나가 남으면 루트
+     * - 노드는 M개로 꽉 채우고, 슬라이스 마지막 노드가 m 미만이면 바로 앞 노드에서 엔트리를 넘겨받음
+     * - chooseSubtree/split을 전혀 거치지 않으며 O(n log n), 정렬은 좌표 배열 위에서 수행
+     *
+     * @param points      적재할 점들 (같은 x, y 값을 갖는 점은 하나만 적재)
+     * @param maxEntries  노드당 최대 엔트리 수 M
+     * @param minEntries  루트 외 노드의 최소 엔트리 수 m
+     * @param splitPolicy 이후 add로 overflow가 날 때 쓸 분할 정책
+     * @return 이후 add/delete가 가능한 일반 RTreeImpl
+     */
+    public static RTreeImpl bulkLoad(Collection<Point> points, int maxEntries, int minEntries,
+                                     SplitPolicy splitPolicy) {
+        return bulkLoad(points, new RTreeImpl(maxEntries, minEntries, splitPolicy));
+    }
+
+    /**
+     * Hilbert R-tree 일괄 적재: 점을 curve의 힐베르트 키 순으로 정렬해 M개씩 꽉 채운 리프로, 노드를 순서대로 M개씩 부모로 묶음
+     *
+     * @param points 적재할 점들 (같은 x, y 값을 갖는 점은 하나만 적재)
+     * @param curve  힐베르트 키 격자 (범위를 모르면 HilbertCurve.UNBOUNDED)
+     * @return 이후 add/delete가 가능한 HILBERT 트리
+     */
+    public static RTreeImpl bulkLoad(Collection<Point> points, int maxEntries, int minEntries, HilbertCurve curve) {
+        return bulkLoad(points, new RTreeImpl(maxEntries, minEntries, curve));
+    }
+
+    private static RTreeImpl bulkLoad(Collection<Point> points, RTreeImpl tree) {
+        int n = points.size();
+        double[] xs = new double[n], ys = new double[n];
+        int i = 0;
+        for (Point p : points) {
+            xs[i] = p.getX();
+            ys[i] = p.getY();
+            i++;
+        }
+        return bulkLoad(xs, ys, n, tree);
+    }
+
+    /**
+     * 좌표 배열로 STR 일괄 적재 (Point 객체 없이)
+     *
+     * @param xs    x 좌표 (앞 n개 사용)
+     * @param ys    y 좌표 (앞 n개 사용)
+     * @param count 점 수
+     */
+    public static RTreeImpl bulkLoad(double[] xs, double[] ys, int count, int maxEntries, int minEntries,
+                                     SplitPolicy splitPolicy) {
+        return bulkLoad(xs, ys, count, new RTreeImpl(maxEntries, minEntries, splitPolicy));
+    }
+
+    /**
+     * 좌표 배열로 Hilbert R-tree 일괄 적재 (Point 객체 없이)
+     */
+    public static RTreeImpl bulkLoad(double[] xs, double[] ys, int count, int maxEntries, int minEntries,
+                                     HilbertCurve curve) {
+        return bulkLoad(xs, ys, count, new RTreeImpl(maxEntries, minEntries, curve));
+    }
+
+    // 빈 tree에 적재
+    private static RTreeImpl bulkLoad(double[] xs, double[] ys, int count, RTreeImpl tree) {
+        // 중복 좌표 제거 (add와 같은 규칙): (x, y) 순 정렬 후 인접한 같은 좌표를 건너뜀
+        int[] idx = new int[count];
+        for (int i = 0; i < count; i++) idx[i] = i;
+        IndexSort.sort(idx, 0, count, xs, ys);
+        double[] ux = new double[count], uy = new double[count];
+        int n = 0;
+        for (int k = 0; k < count; k++) {
+            double x = xs[idx[k]], y = ys[idx[k]];
+            if (n > 0 && ux[n - 1] == x && uy[n - 1] == y) continue;
+            ux[n] = x;
+            uy[n] = y;
+            n++;
+        }
+        if (n == 0) return tree;
+        if (tree.curve != null) {
+            tree.root = tree.hilbertPack(ux, uy, n);
+            return tree;
+        }
+
+        // 1) 리프 (이미 x 순으로 정렬되어 있음)
+        int[] order = new int[n];
+        for (int k = 0; k < n; k++) order[k] = k;
+        int[] bounds = tree.strTiles(order, n, ux, uy);
+        int groups = bounds.length - 1;
+        Node[] level = new Node[groups];
+        for (int g = 0; g < groups; g++) {
+            Node leaf = tree.newNode(0);
+            for (int k = bounds[g]; k < bounds[g + 1]; k++) leaf.addPoint(ux[order[k]], uy[order[k]]);
+            leaf.recomputeBounds();
+            level[g] = leaf;
+        }
+
+        // 2) 상위 레벨: 노드 MBR 중심으로 같은 타일링 반복
+        while (level.length > 1) {
+            int count2 = level.length;
+            double[] cx = new double[count2], cy = new double[count2];
+            order = new int[count2];
+            for (int k = 0; k < count2; k++) {
+                cx[k] = (level[k].minX + level[k].maxX) / 2;
+                cy[k] = (level[k].minY + level[k].maxY) / 2;
+                order[k] = k;
+            }
+            IndexSort.sort(order, 0, count2, cx, null);
+            bounds = tree.strTiles(order, count2, cx, cy);
+            groups = bounds.length - 1;
+            Node[] parents = new Node[groups];
+            for (int g = 0; g < groups; g++) {
+                Node parent = tree.newNode(level[0].level + 1);
+                for (int k = bounds[g]; k < bounds[g + 1]; k++) parent.addChild(level[order[k]]);
+                parent.recomputeBounds();
+                parents[g] = parent;
+            }
+            level = parents;
+        }
+        tree.root = level[0];
+        return tree;
+    }
+
+    /**
+     * STR 타일링: x 순으로 정렬된 order[0, n)를 세로 슬라이스로 나눠 슬라이스마다 y로 정렬하고 M개씩 묶음
+     *
+     * @return 묶음 경계. 묶음 g = order[bounds[g], bounds[g+1])
+     */
+    private int[] strTiles(int[] order, int n, double[] x, double[] y) {
+        int nodeCount = (n + maxEntries - 1) / maxEntries;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * maxEntries;
+
+        int[] bounds = new int[nodeCount + 2];
+        int groups = 0;
+        for (int start = 0, end; start < n; start = end) {
+            end = Math.min(n, start + sliceSize);
+            if (n - end < minEntries) end = n; // m개도 안 되는 자투리 슬라이스는 앞 슬라이스에 합침
+            IndexSort.sort(order, start, end, y, null);
+
+            for (int from = start; from < end; from += maxEntries) {
+                int to = Math.min(end, from + maxEntries);
+                // 마지막 묶음이 m 미만이면 앞 묶음과 경계를 옮겨 둘 다 m 이상으로
+                if (to == end && to - from < minEntries && from > start) from = to - minEntries;
+                bounds[groups++] = from;
+            }
+        }
+        bounds[groups] = n;
+        return Arrays.copyOf(bounds, groups + 1);
+    }
+
+    /**
+     * HILBERT 일괄 적재: 점을 힐베르트 키 순으로 정렬해 M개씩 리프로, 만들어진 노드를 순서대로 M개씩 부모로 묶음
+     * (마지막 묶음이 m 미만이면 앞 묶음에서 넘겨받음)
+     */
+    private Node hilbertPack(double[] xs, double[] ys, int n) {
+        double[] hi = new double[n], lo = new double[n];
+        long[] keys = new long[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = curve.index(xs[i], ys[i]);
+            hi[i] = keys[i] >>> 31; // 62비트 키를 double로 정확히 비교하도록 둘로 나눔
+            lo[i] = keys[i] & 0x7FFFFFFF;
+            order[i] = i;
+        }
+        IndexSort.sort(order, 0, n, hi, lo);
+
+        int[] bounds = runs(n);
+        Node[] level = new Node[bounds.length - 1];
+        for (int g = 0; g < level.length; g++) {
+            Node leaf = newNode(0);
+            for (int k = bounds[g]; k < bounds[g + 1]; k++) {
+                int e = order[k];
+                leaf.addPoint(xs[e], ys[e]);
+                leaf.hs[leaf.size - 1] = keys[e];
+            }
+            leaf.recomputeBounds();
+            level[g] = leaf;
+        }
+        while (level.length > 1) {
+            bounds = runs(level.length);
+            Node[] parents = new Node[bounds.length - 1];
+            for (int g = 0; g < parents.length; g++) {
+                Node parent = newNode(level[0].level + 1);
+                for (int k = bounds[g]; k < bounds[g + 1]; k++) parent.addChild(level[k]);
+                parent.recomputeBounds();
+                parents[g] = parent;
+            }
+            level = parents;
+        }
+        return level[0];
+    }
+
+    // 순서대로 M개씩 묶은 경계. 마지막 묶음이 m 미만이면 앞 묶음에서 넘겨받음 (앞 묶음은 M - m ≥ m개 남음)
+    private int[] runs(int n) {
+        int groups = (n + maxEntries - 1) / maxEntries;
+        int[] bounds = new int[groups + 1];
+        for (int g = 0; g < groups; g++) bounds[g] = g * maxEntries;
+        bounds[groups] = n;
+        if (groups > 1 && n - bounds[groups - 1] < minEntries) bounds[groups - 1] = n - minEntries;
+        return bounds;
+    }
+
+    /*-----------------SAVE----------------*/
+    // 다른 곳(RTreeSnapshot)에서 newNode로 다 만든 트리를 루트째 넘겨받음
+    void restore(Node root) {
+        this.root = root;
+        modCount++;
+    }
+
+    /**
+     * 트리를 페이지 파일로 저장 (형식은 MappedRTree 참고). 기존 파일은 덮어씀.
+     * 저장한 파일은 MappedRTree.open(path)로 역직렬화 없이 열어 search/nearest 가능.
+     *
+     * @param path 저장할 파일
+     * @throws IOException
+     */
+    public void save(Path path) throws IOException {
+        MappedRTree.write(this, root, path);
+    }
+
+    // 사각형 엔트리와 질의 범위의 관계 (점 엔트리는 INTERSECTS == WITHIN)
+    enum Relation {
+        INTERSECTS, // 엔트리가 범위와 겹침
+        WITHIN,     // 엔트리가 범위 안에 통째로 들어감
+        CONTAINS    // 엔트리가 범위를 통째로 포함
+    }
+
+    // 리프의 i번째 점으로 결과 객체를 만듦 (Point, EntryRTree.Entry 등)
+    @FunctionalInterface
+    interface EntryFactory<E> {
+        E create(Node leaf, int i);
+    }
+
+    static final EntryFactory<Point> POINTS = Node::getPoint;
+
+    /*-----------------Search----------------*/
+    /*
+     * - 결과를 리스트로 모으지 않고, 트리를 따라 내려가는 iterator를 바로 반환
+     * - next()를 부를 때마다 다음 결과 점까지만 탐색 (조기 종료/페이징 가능)
+     * - 노드 MBR과의 교차 여부에 따라 탐색 진행/가지치기
+     */
+    @Override
+    public Iterator<Point> search(Rectangle rectangle) {
+        fireOperationStarted(RTreeListener.Operation.SEARCH);
+        for (RTreeListener l : listeners) l.searchStarted(rectangle);
+        return new SearchIterator<>(root, true, rectangle.getLeftTop().getX(), rectangle.getLeftTop().getY(),
+                rectangle.getRightBottom().getX(), rectangle.getRightBottom().getY(), null, POINTS);
+    }
+
+    /**
+     * 조건(원, 다각형, 반평면 등) 탐색: 노드마다 predicate.mayIntersect로, 점마다 predicate.matches로 검사.
+     * MBR 대신 실제 모양으로 서브트리를 가지치기함. search(Rectangle)처럼 lazy iterator.
+     *
+     * @param predicate 탐색 조건
+     */
+    public Iterator<Point> search(SpatialPredicate predicate) {
+        fireOperationStarted(RTreeListener.Operation.SEARCH);
+        return new SearchIterator<>(root, true, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, predicate, POINTS);
+    }
+
+    /**
+     * 조건 탐색 (primitive API): 조건을 만족하는 점 좌표를 consumer로 넘김. Point 객체를 만들지 않음.
+     *
+     * @return 찾은 점 수
+     */
+    public int search(SpatialPredicate predicate, PointConsumer consumer) {
+        return searchRecursive(root, predicate, consumer);
+    }
+
+    // 스냅샷 루트에서 영역 탐색 (불변이므로 변경 감지 없음)
+    Iterator<Point> search(Node snapshot, double minX, double minY, double maxX, double maxY) {
+        return new SearchIterator<>(snapshot, false, minX, minY, maxX, maxY, null, POINTS);
+    }
+
+    Iterator<Point> search(Node snapshot, SpatialPredicate predicate) {
+        return new SearchIterator<>(snapshot, false, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, predicate, POINTS);
+    }
+
+    /**
+     * 값이 붙은 점 탐색 (EntryRTree용): 결과를 factory로 만듦, predicate는 null이면 범위 검사만
+     */
+    <E> Iterator<E> searchEntries(double minX, double minY, double maxX, double maxY, Relation relation,
+                                  SpatialPredicate predicate, EntryFactory<E> factory) {
+        fireOperationStarted(RTreeListener.Operation.SEARCH);
+        return new SearchIterator<>(root, true, minX, minY, maxX, maxY, relation, predicate, factory);
+    }
+
+    int search(Node snapshot, double minX, double minY, double maxX, double maxY, PointConsumer consumer) {
+        return searchRecursive(snapshot, minX, minY, maxX, maxY, consumer);
+    }
+
+    int search(Node snapshot, SpatialPredicate predicate, PointConsumer consumer) {
+        return searchRecursive(snapshot, predicate, consumer);
+    }
+
+    /**
+     * 영역 탐색 (primitive API): 범위 안의 점 좌표를 consumer로 넘김. Point 객체를 만들지 않음.
+     *
+     * @return 찾은 점 수
+     */
+    public int search(double minX, double minY, double maxX, double maxY, PointConsumer consumer) {
+        return searchRecursive(root, minX, minY, maxX, maxY, consumer);
+    }
+
+    public int search(Rectangle rectangle, PointConsumer consumer) {
+        return searchRecursive(root, rectangle.getLeftTop().getX(), rectangle.getLeftTop().getY(),
+                rectangle.getRightBottom().getX(), rectangle.getRightBottom().getY(), consumer);
+    }
+
+    private int searchRecursive(Node n, double minX, double minY, double maxX, double maxY,
+                                PointConsumer consumer) {
+        fireNodeVisited(n);
+        int found = 0;
+        if (n.isLeaf) {
+            double[] xs = n.xs, ys = n.ys, hxs = n.hxs, hys = n.hys;
+            for (int i = 0; i < n.size; i++) {
+                // 점이면 hxs == xs라 포함 검사와 같음
+                if (intersects(xs[i], ys[i], hxs[i], hys[i], minX, minY, maxX, maxY)) {
+                    consumer.accept(xs[i], ys[i]);
+                    found++;
                 }
             }
-            return false;
-        } else {
-            // 내부노드: p가 포함될 수 있는 자식만 탐색
-            for (Node c : n.children) {
-                if (contains(c.mbr, p)) {
-                    if (deleteRecursive(c, p)) {
-                        // 자식이 비었으면 제거
-                        if ((c.isLeaf && c.points.isEmpty()) || (!c.isLeaf && c.children.isEmpty())) {
-                            highlightRect = c.mbr; // 제거 직전 자식 강조
-                            refreshGUI();
-                            try { Thread.sleep(150); } catch (InterruptedException ignored) {}
-                            n.children.remove(c);
+            return found;
+        }
+        for (int i = 0; i < n.size; i++) {
+            if (intersects(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], minX, minY, maxX, maxY))
+                found += searchRecursive(n.children[i], minX, minY, maxX, maxY, consumer);
+        }
+        return found;
+    }
+
+    /*-----------------COUNT----------------*/
+    /**
+     * 범위 안의 점 수 (점을 하나씩 꺼내지 않음):
+     * - MBR이 질의 범위 안에 통째로 들어가는 서브트리는 내려가지 않고 그 서브트리 점 수(count)를 더함
+     * - 범위 경계에 걸친 노드만 내려가므로 방문 노드 수는 결과 수가 아니라 경계 길이에 비례
+     *
+     * @param rectangle 검색 범위
+     * @return 범위 안(경계 포함)의 점 수
+     */
+    public int count(Rectangle rectangle) {
+        return count(rectangle.getLeftTop().getX(), rectangle.getLeftTop().getY(),
+                rectangle.getRightBottom().getX(), rectangle.getRightBottom().getY());
+    }
+
+    public int count(double minX, double minY, double maxX, double maxY) {
+        return countRecursive(root, minX, minY, maxX, maxY);
+    }
+
+    int count(Node snapshot, double minX, double minY, double maxX, double maxY) {
+        return countRecursive(snapshot, minX, minY, maxX, maxY);
+    }
+
+    // 트리 전체의 점 수
+    public int size() {
+        return root.count;
+    }
+
+    private int countRecursive(Node n, double minX, double minY, double maxX, double maxY) {
+        fireNodeVisited(n);
+        int found = 0;
+        if (n.isLeaf) {
+            for (int i = 0; i < n.size; i++)
+                if (intersects(n.xs[i], n.ys[i], n.hxs[i], n.hys[i], minX, minY, maxX, maxY)) found++;
+            return found;
+        }
+        for (int i = 0; i < n.size; i++) {
+            double cx1 = n.minXs[i], cy1 = n.minYs[i], cx2 = n.maxXs[i], cy2 = n.maxYs[i];
+            if (!intersects(cx1, cy1, cx2, cy2, minX, minY, maxX, maxY)) continue;
+            if (cx1 >= minX && cx2 <= maxX && cy1 >= minY && cy2 <= maxY) found += n.counts[i]; // 통째로 포함
+            else found += countRecursive(n.children[i], minX, minY, maxX, maxY);
+        }
+        return found;
+    }
+
+    // 조건 검사: 점은 matches, 사각형 엔트리는 mayIntersect (기본 제공 도형은 정확한 교차 판정)
+    private static boolean matches(SpatialPredicate predicate, Node leaf, int i) {
+        double x1 = leaf.xs[i], y1 = leaf.ys[i], x2 = leaf.hxs[i], y2 = leaf.hys[i];
+        return x1 == x2 && y1 == y2 ? predicate.matches(x1, y1) : predicate.mayIntersect(x1, y1, x2, y2);
+    }
+
+    private int searchRecursive(Node n, SpatialPredicate predicate, PointConsumer consumer) {
+        fireNodeVisited(n);
+        int found = 0;
+        if (n.isLeaf) {
+            double[] xs = n.xs, ys = n.ys;
+            for (int i = 0; i < n.size; i++) {
+                if (matches(predicate, n, i)) {
+                    consumer.accept(xs[i], ys[i]);
+                    found++;
+                }
+            }
+            return found;
+        }
+        for (int i = 0; i < n.size; i++) {
+            if (predicate.mayIntersect(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i]))
+                found += searchRecursive(n.children[i], predicate, consumer);
+        }
+        return found;
+    }
+
+    /**
+     * 영역 탐색 커서 (DFS, 명시적 스택):
+     * - nodes[d], positions[d] = 깊이 d에서 방문 중인 노드와 다음에 볼 엔트리 인덱스
+     * - 스택 크기는 트리 높이로 고정 → 결과 수와 무관한 상수 메모리
+     * - 리프 : 점을 검사하다 범위 안의 점을 만나면 멈추고 factory로 결과(Point 등)를 만들어 반환
+     * - 내부노드: 다음 자식의 MBR이 교차하면 스택에 push, 아니면 가지치기
+     * - predicate가 있으면 범위 검사에 더해 노드는 mayIntersect, 점은 matches로도 검사
+     * - 탐색이 끝까지 진행되면 operationFinished 통지
+     * - 순회 중 add/delete가 일어나면 ConcurrentModificationException (failFast일 때. 스냅샷 순회는 해당 없음)
+     */
+    private final class SearchIterator<E> implements Iterator<E> {
+        private final double minX, minY, maxX, maxY;
+        private final Relation relation;
+        private final Node[] nodes;
+        private final int[] positions;
+        private final SpatialPredicate predicate; // null이면 범위 검사만
+        private final EntryFactory<E> factory;
+        private final boolean failFast;
+        private final int expectedModCount = modCount;
+        private int depth;
+        private E next;
+
+        SearchIterator(Node root, boolean failFast, double minX, double minY, double maxX, double maxY,
+                       SpatialPredicate predicate, EntryFactory<E> factory) {
+            this(root, failFast, minX, minY, maxX, maxY, Relation.INTERSECTS, predicate, factory);
+        }
+
+        SearchIterator(Node root, boolean failFast, double minX, double minY, double maxX, double maxY,
+                       Relation relation, SpatialPredicate predicate, EntryFactory<E> factory) {
+            this.relation = relation;
+            this.failFast = failFast;
+            this.predicate = predicate;
+            this.factory = factory;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            nodes = new Node[root.level + 1];
+            positions = new int[root.level + 1];
+            nodes[0] = root;
+            fireNodeVisited(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (failFast && modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (next == null && depth >= 0) advance();
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            E e = next;
+            next = null;
+            return e;
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                Node n = nodes[depth];
+                int i = positions[depth];
+                if (n.isLeaf) {
+                    while (i < n.size) {
+                        if (entryMatches(n, i++)) {
+                            positions[depth] = i;
+                            next = factory.create(n, i - 1);
+                            firePointFound(n.xs[i - 1], n.ys[i - 1]);
+                            return;
                         }
-                        // 현재 노드의 MBR 축소 반영
-                        n.updateMBR();
-                        refreshGUI();
-                        return true;
                     }
+                    nodes[depth--] = null; // pop
+                } else if (i < n.size) {
+                    positions[depth] = i + 1;
+                    boolean hit = (relation == Relation.CONTAINS
+                            ? n.minXs[i] <= minX && n.maxXs[i] >= maxX && n.minYs[i] <= minY && n.maxYs[i] >= maxY
+                            : intersects(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], minX, minY, maxX, maxY))
+                            && (predicate == null
+                            || predicate.mayIntersect(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i]));
+                    fireNodeTested(n.children[i], hit);
+                    if (hit) {
+                        nodes[++depth] = n.children[i]; // push
+                        positions[depth] = 0;
+                        fireNodeVisited(nodes[depth]);
+                    }
+                } else {
+                    nodes[depth--] = null; // pop
                 }
             }
+            fireOperationFinished(RTreeListener.Operation.SEARCH);
+        }
+
+        // 리프 엔트리 검사: 질의 범위와의 관계 + predicate
+        private boolean entryMatches(Node n, int i) {
+            double x1 = n.xs[i], y1 = n.ys[i], x2 = n.hxs[i], y2 = n.hys[i];
+            boolean hit;
+            switch (relation) {
+                case WITHIN:
+                    hit = x1 >= minX && x2 <= maxX && y1 >= minY && y2 <= maxY;
+                    break;
+                case CONTAINS:
+                    hit = x1 <= minX && x2 >= maxX && y1 <= minY && y2 >= maxY;
+                    break;
+                default:
+                    hit = intersects(x1, y1, x2, y2, minX, minY, maxX, maxY); // 점이면 포함 검사
+            }
+            return hit && (predicate == null || matches(predicate, n, i));
+        }
+    }
+
+    /*-----------------SEARCH BATCH----------------*/
+    /**
+     * 여러 영역 질의를 한 번의 트리 순회로 처리:
+     * - 루트에서 모든 질의를 활성 목록으로 시작, 자식마다 그 MBR과 교차하는 질의만 남겨 내려감 (남은 질의가 없으면 가지치기)
+     * - 리프에서는 활성 질의마다 점 포함 검사
+     * - 질의들이 서로 가까이 모여 있을수록(타일 렌더링 등) 위쪽 노드를 한 번만 방문하므로 방문 수가 크게 줄어듦
+     *
+     * @param rectangles 질의 목록
+     * @return 질의 순서대로 결과 iterator (각 결과의 순서는 search와 같음)
+     */
+    public List<Iterator<Point>> searchBatch(List<Rectangle> rectangles) {
+        return searchBatch(root, rectangles);
+    }
+
+    List<Iterator<Point>> searchBatch(Node from, List<Rectangle> rectangles) {
+        int q = rectangles.size();
+        double[] minX = new double[q], minY = new double[q], maxX = new double[q], maxY = new double[q];
+        List<List<Point>> results = new ArrayList<>(q);
+        for (int i = 0; i < q; i++) {
+            Rectangle r = rectangles.get(i);
+            minX[i] = r.getLeftTop().getX();
+            minY[i] = r.getLeftTop().getY();
+            maxX[i] = r.getRightBottom().getX();
+            maxY[i] = r.getRightBottom().getY();
+            results.add(new ArrayList<>());
+        }
+
+        fireOperationStarted(RTreeListener.Operation.SEARCH);
+        // 깊이별 활성 질의 버퍼 (depth 0 = 루트에서 모든 질의)
+        int[][] active = new int[from.level + 1][q];
+        for (int i = 0; i < q; i++) active[0][i] = i;
+        if (q > 0) searchBatchRecursive(from, 0, q, active, minX, minY, maxX, maxY, results);
+        fireOperationFinished(RTreeListener.Operation.SEARCH);
+
+        List<Iterator<Point>> iterators = new ArrayList<>(q);
+        for (List<Point> r : results) iterators.add(r.iterator());
+        return iterators;
+    }
+
+    private void searchBatchRecursive(Node n, int depth, int count, int[][] active,
+                                      double[] minX, double[] minY, double[] maxX, double[] maxY,
+                                      List<List<Point>> results) {
+        fireNodeVisited(n);
+        int[] queries = active[depth];
+        if (n.isLeaf) {
+            for (int i = 0; i < n.size; i++) {
+                double x = n.xs[i], y = n.ys[i];
+                for (int a = 0; a < count; a++) {
+                    int j = queries[a];
+                    if (contains(minX[j], minY[j], maxX[j], maxY[j], x, y)) {
+                        Point p = new Point(x, y);
+                        results.get(j).add(p);
+                        firePointFound(p);
+                    }
+                }
+            }
+            return;
+        }
+        int[] next = active[depth + 1];
+        for (int i = 0; i < n.size; i++) {
+            // 이 자식과 교차하는 질의만 남김
+            int nextCount = 0;
+            for (int a = 0; a < count; a++) {
+                int j = queries[a];
+                if (intersects(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], minX[j], minY[j], maxX[j], maxY[j]))
+                    next[nextCount++] = j;
+            }
+            fireNodeTested(n.children[i], nextCount > 0);
+            if (nextCount > 0)
+                searchBatchRecursive(n.children[i], depth + 1, nextCount, active, minX, minY, maxX, maxY, results);
+        }
+    }
+
+    /*-----------------KNN----------------*/
+    /*
+     * - Best-first 탐색(distance browsing): 노드 MBR까지의 최소거리(MINDIST)를 키로 하는 우선순위 큐에 노드와 점을 함께 넣고,
+     *   가까운 것부터 꺼내 노드면 확장, 점이면 다음 결과로 반환 → 점은 항상 거리 순으로 나옴
+     * - 거리가 같으면 노드를 점보다 먼저 확장하고, 점끼리는 DFS 순서(자식 인덱스 경로의 사전순)로 꺼냄
+     *   → 이전의 "전체 수집 + 거리순 안정 정렬"과 완전히 같은 결과/순서
+     * - nearest(source, k): 같은 iterator에서 k개만 꺼냄. 지금까지 본 점들 중 k번째 거리(bound)보다
+     *   MINDIST가 큰 서브트리는 큐에 넣지 않음(가지치기)
+     */
+    @Override
+    public Iterator<Point> nearest(Point source, int k) {
+        fireOperationStarted(RTreeListener.Operation.KNN);
+        for (RTreeListener l : listeners) l.nearestStarted(source);
+
+        List<Point> result = nearest(root, source.getX(), source.getY(), k);
+
+        // 찾은 점을 가까운 순서대로 통지
+        for (Point p : result) firePointFound(p);
+
+        fireOperationFinished(RTreeListener.Operation.KNN);
+        return result.iterator();
+    }
+
+    /**
+     * 가까운 점부터 하나씩 꺼내는 lazy iterator (개수 제한 없음).
+     * 꺼낸 만큼만 트리를 탐색하므로, 조건에 맞는 점이 나올 때까지 꺼내다 멈추는 용도에 적합.
+     * 순서는 nearest(source, k)와 같음. 순회 중 add/delete가 일어나면 ConcurrentModificationException.
+     *
+     * @param source 기준점
+     * @return 거리 순 iterator (끝까지 꺼내면 트리의 모든 점)
+     */
+    public Iterator<Point> nearest(Point source) {
+        return nearestWithin(source, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * nearest(source)와 같되 source에서 maxDistance 이하(경계 포함)인 점까지만 꺼냄.
+     * maxDistance보다 먼 서브트리는 큐에 넣지 않음.
+     *
+     * @param source      기준점
+     * @param maxDistance 최대 거리
+     * @return 거리 순 iterator
+     */
+    public Iterator<Point> nearestWithin(Point source, double maxDistance) {
+        fireOperationStarted(RTreeListener.Operation.KNN);
+        for (RTreeListener l : listeners) l.nearestStarted(source);
+        return new NearestIterator<>(root, true, true, source.getX(), source.getY(), maxDistance, Integer.MAX_VALUE,
+                POINTS);
+    }
+
+    /**
+     * 값이 붙은 점의 거리 순 iterator (EntryRTree용): limit개까지, maxDistance 이하만
+     */
+    <E> Iterator<E> nearestEntries(double sx, double sy, double maxDistance, int limit, EntryFactory<E> factory) {
+        fireOperationStarted(RTreeListener.Operation.KNN);
+        if (limit <= 0) {
+            fireOperationFinished(RTreeListener.Operation.KNN);
+            return Collections.emptyIterator();
+        }
+        return new NearestIterator<>(root, true, true, sx, sy, maxDistance, limit, factory);
+    }
+
+    // KNN 우선순위 큐 원소: 노드(index == -1) 또는 리프의 점(node.xs[index], node.ys[index])
+    private static final class KnnEntry {
+        final double dist;   // 노드면 MINDIST, 점이면 실제 거리
+        final Node node;     // 노드 원소일 때 노드, 점 원소일 때 점을 담은 리프
+        final int[] path;    // 루트에서 node까지의 자식 인덱스 경로 (동점 시 DFS 순서 비교용)
+        final int index;     // 리프 내 점의 인덱스 (노드 원소면 -1)
+
+        KnnEntry(double dist, Node node, int[] path, int index) {
+            this.dist = dist;
+            this.node = node;
+            this.path = path;
+            this.index = index;
+        }
+    }
+
+    // 거리 → 노드 우선 → DFS 순서
+    private static final Comparator<KnnEntry> KNN_ORDER = (a, b) -> {
+        int c = Double.compare(a.dist, b.dist);
+        if (c != 0) return c;
+        if ((a.index < 0) != (b.index < 0)) return a.index < 0 ? -1 : 1;
+        c = Arrays.compare(a.path, b.path);
+        return c != 0 ? c : Integer.compare(a.index, b.index);
+    };
+
+    // 스냅샷 루트에서 KNN
+    List<Point> nearest(Node snapshot, double sx, double sy, int k) {
+        List<Point> result = new ArrayList<>();
+        if (k <= 0) return result;
+        NearestIterator<Point> it = new NearestIterator<>(snapshot, false, false, sx, sy, Double.POSITIVE_INFINITY, k, POINTS);
+        while (it.hasNext()) result.add(it.next());
+        return result;
+    }
+
+    // 스냅샷 루트에서 거리 순 iterator (ConcurrentRTree용, listener 통지 없음)
+    Iterator<Point> nearestWithin(Node snapshot, double sx, double sy, double maxDistance) {
+        return new NearestIterator<>(snapshot, false, false, sx, sy, maxDistance, Integer.MAX_VALUE, POINTS);
+    }
+
+    /**
+     * KNN (primitive API): (x, y)에서 가까운 k개의 좌표를 가까운 순서대로 consumer로 넘김.
+     * 결과/순서(동점 규칙 포함)는 nearest(Point, k)와 같음.
+     * - 우선순위 큐 대신 MINDIST 순 깊이 우선 분기한정: 후보 k개는 primitive max-heap에 두고,
+     *   k번째 후보보다 먼 자식은 내려가지 않음
+     * - 힙/자식 정렬/경로 버퍼는 스레드별로 재사용 → 호출마다, 노드/점마다 할당 없음 (listener가 없을 때)
+     *
+     * @return 넘긴 점 수 (min(k, 점 수))
+     */
+    public int nearest(double x, double y, int k, PointConsumer consumer) {
+        fireOperationStarted(RTreeListener.Operation.KNN);
+        if (listeners.length != 0) {
+            Point source = new Point(x, y);
+            for (RTreeListener l : listeners) l.nearestStarted(source);
+        }
+        int found = nearest(root, x, y, k, true, consumer);
+        fireOperationFinished(RTreeListener.Operation.KNN);
+        return found;
+    }
+
+    // 스냅샷 루트에서 primitive KNN (notify면 결과 점마다 pointFound)
+    int nearest(Node snapshot, double x, double y, int k, boolean notify, PointConsumer consumer) {
+        k = Math.min(k, snapshot.count);
+        if (k <= 0) return 0;
+        KnnScratch s = KNN_SCRATCH.get();
+        if (s.busy) s = new KnnScratch(); // consumer 안에서 다시 nearest를 부른 경우
+        s.busy = true;
+        try {
+            s.prepare(x, y, k, snapshot.level + 1, maxEntries + 1);
+            knnRecursive(snapshot, 0, s);
+            s.sort();
+            for (int i = 0; i < s.size; i++) {
+                if (notify) firePointFound(s.xs[i], s.ys[i]);
+                consumer.accept(s.xs[i], s.ys[i]);
+            }
+            return s.size;
+        } finally {
+            s.busy = false;
+        }
+    }
+
+    // 깊이 depth의 노드 n 아래를 MINDIST 순으로 탐색 (s.path[0..depth)는 루트에서 n까지의 자식 인덱스)
+    private void knnRecursive(Node n, int depth, KnnScratch s) {
+        fireNodeVisited(n);
+        int[] path = s.path;
+        if (n.isLeaf) {
+            for (int i = 0; i < n.size; i++) {
+                double d = n.hxs == n.xs ? distance(s.sx, s.sy, n.xs[i], n.ys[i])
+                        : minDist(n.xs[i], n.ys[i], n.hxs[i], n.hys[i], s.sx, s.sy);
+                path[depth] = i;
+                s.offer(d, n.xs[i], n.ys[i]);
+            }
+            return;
+        }
+        // 자식을 (MINDIST, 인덱스) 순으로 정렬 (삽입 정렬, 깊이별 버퍼)
+        double[] dist = s.childDist[depth];
+        int[] order = s.childOrder[depth];
+        for (int i = 0; i < n.size; i++) {
+            double d = minDist(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], s.sx, s.sy);
+            int j = i;
+            for (; j > 0 && dist[j - 1] > d; j--) {
+                dist[j] = dist[j - 1];
+                order[j] = order[j - 1];
+            }
+            dist[j] = d;
+            order[j] = i;
+        }
+        for (int j = 0; j < n.size; j++) {
+            double d = dist[j];
+            int i = order[j];
+            path[depth] = i;
+            if (s.size == s.k) {
+                // 정렬돼 있으므로 k번째 후보보다 먼 자식이 나오면 나머지도 모두 멂
+                if (d > s.dist[0]) break;
+                // 같은 거리면 DFS 순서가 k번째 후보보다 뒤인 서브트리는 이길 수 없음
+                if (d == s.dist[0] && Arrays.compare(path, 0, depth + 1, s.paths[0], 0, depth + 1) > 0) continue;
+            }
+            knnRecursive(n.children[i], depth + 1, s);
+        }
+    }
+
+    private static final ThreadLocal<KnnScratch> KNN_SCRATCH = ThreadLocal.withInitial(KnnScratch::new);
+
+    /*
+     * primitive KNN 작업 공간 (스레드별 재사용, 필요할 때만 늘림)
+     * - 후보 k개: (거리, DFS 경로) 기준 max-heap → dist[0]이 현재 k번째 후보
+     * - 깊이별 자식 정렬 버퍼, 현재 경로
+     */
+    private static final class KnnScratch {
+        boolean busy;
+        double sx, sy;
+        int k, size, pathLength;
+        double[] dist = new double[0], xs = new double[0], ys = new double[0];
+        int[][] paths = new int[0][];
+        int[] path = new int[0];
+        double[][] childDist = new double[0][];
+        int[][] childOrder = new int[0][];
+
+        void prepare(double sx, double sy, int k, int pathLength, int fanout) {
+            this.sx = sx;
+            this.sy = sy;
+            this.k = k;
+            this.pathLength = pathLength;
+            size = 0;
+            if (dist.length < k) {
+                int grown = Math.max(k, dist.length * 2);
+                dist = new double[grown];
+                xs = new double[grown];
+                ys = new double[grown];
+                paths = new int[grown][];
+            }
+            if (path.length < pathLength) path = new int[pathLength];
+            int width = childDist.length == 0 ? 0 : childDist[0].length;
+            if (childDist.length < pathLength || width < fanout) {
+                int levels = Math.max(pathLength, childDist.length);
+                childDist = new double[levels][Math.max(fanout, width)];
+                childOrder = new int[levels][Math.max(fanout, width)];
+            }
+            for (int i = 0; i < k; i++)
+                if (paths[i] == null || paths[i].length < pathLength) paths[i] = new int[pathLength];
+        }
+
+        // (d, 현재 path)가 heap의 a번째 후보보다 뒤(멀거나, 같은 거리에서 DFS 순서가 뒤)인지
+        private int compareToCurrent(double d, int a) {
+            int c = Double.compare(d, dist[a]);
+            return c != 0 ? c : Arrays.compare(path, 0, pathLength, paths[a], 0, pathLength);
+        }
+
+        private boolean after(int a, int b) {
+            int c = Double.compare(dist[a], dist[b]);
+            return c != 0 ? c > 0 : Arrays.compare(paths[a], 0, pathLength, paths[b], 0, pathLength) > 0;
+        }
+
+        void offer(double d, double x, double y) {
+            int i;
+            if (size < k) {
+                i = size++;
+            } else if (compareToCurrent(d, 0) < 0) {
+                i = 0;
+            } else {
+                return;
+            }
+            dist[i] = d;
+            xs[i] = x;
+            ys[i] = y;
+            System.arraycopy(path, 0, paths[i], 0, pathLength);
+            if (i == 0 && size == k) siftDown(0, size);
+            else siftUp(i);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!after(i, parent)) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (true) {
+                int c = 2 * i + 1;
+                if (c >= end) return;
+                if (c + 1 < end && after(c + 1, c)) c++;
+                if (!after(c, i)) return;
+                swap(i, c);
+                i = c;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double t = dist[a];
+            dist[a] = dist[b];
+            dist[b] = t;
+            t = xs[a];
+            xs[a] = xs[b];
+            xs[b] = t;
+            t = ys[a];
+            ys[a] = ys[b];
+            ys[b] = t;
+            int[] p = paths[a];
+            paths[a] = paths[b];
+            paths[b] = p;
+        }
+
+        // heap sort → 가까운 순서
+        void sort() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+    }
+
+    /**
+     * 거리 순 커서 (Hjaltason-Samet distance browsing):
+     * - 큐 맨 앞이 점이면 그 점이 남은 것 중 가장 가까움 → 반환하고 멈춤, 노드면 자식/점을 큐에 넣고 계속
+     * - maxDistance보다 먼 원소, (limit이 있으면) 지금까지 본 limit번째 거리보다 먼 원소는 큐에 넣지 않음
+     * - notify면 반환하는 점마다 pointFound, 끝나면 operationFinished 통지
+     * - 순회 중 add/delete가 일어나면 ConcurrentModificationException (failFast일 때. 스냅샷 순회는 해당 없음)
+     */
+    private final class NearestIterator<E> implements Iterator<E> {
+        private final double sx, sy, maxDistance;
+        private final int limit;
+        private final EntryFactory<E> factory;
+        private final boolean failFast, notify;
+        private final int expectedModCount = modCount;
+        private final PriorityQueue<KnnEntry> queue = new PriorityQueue<>(KNN_ORDER);
+        // limit이 있을 때 지금까지 큐에 넣은 점들 중 가장 가까운 limit개의 거리 (max-heap, 맨 위가 현재 limit번째 후보)
+        private final PriorityQueue<Double> best;
+        private int returned;
+        private boolean finished;
+        private E next;
+
+        NearestIterator(Node root, boolean failFast, boolean notify, double sx, double sy, double maxDistance,
+                        int limit, EntryFactory<E> factory) {
+            this.failFast = failFast;
+            this.factory = factory;
+            this.notify = notify;
+            this.sx = sx;
+            this.sy = sy;
+            this.maxDistance = maxDistance;
+            this.limit = limit;
+            // limit 크기로 미리 잡지 않음 (limit은 점 수보다 훨씬 클 수 있음)
+            best = limit == Integer.MAX_VALUE ? null : new PriorityQueue<>(Comparator.reverseOrder());
+            if (maxDistance >= 0) queue.add(new KnnEntry(0, root, new int[0], -1));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (failFast && modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (next == null && !finished) advance();
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            E e = next;
+            next = null;
+            return e;
+        }
+
+        private void advance() {
+            while (!queue.isEmpty() && returned < limit) {
+                KnnEntry e = queue.poll();
+                Node n = e.node;
+                if (e.index >= 0) {
+                    next = factory.create(n, e.index);
+                    returned++;
+                    if (notify) firePointFound(n.xs[e.index], n.ys[e.index]);
+                    return;
+                }
+
+                fireNodeVisited(n);
+                if (n.isLeaf) {
+                    for (int i = 0; i < n.size; i++) {
+                        double d = n.hxs == n.xs ? distance(sx, sy, n.xs[i], n.ys[i])
+                                : minDist(n.xs[i], n.ys[i], n.hxs[i], n.hys[i], sx, sy); // 사각형 엔트리는 MBR 거리
+                        if (d > maxDistance) continue;
+                        if (best != null) {
+                            if (best.size() == limit) {
+                                if (d > best.peek()) continue;
+                                best.poll();
+                            }
+                            best.add(d);
+                        }
+                        queue.add(new KnnEntry(d, n, e.path, i));
+                    }
+                } else {
+                    for (int i = 0; i < n.size; i++) {
+                        double d = minDist(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], sx, sy);
+                        // 동점 점이 DFS 순서로 이길 수 있으므로 같은 거리는 가지치기하지 않음
+                        if (d > maxDistance || (best != null && best.size() == limit && d > best.peek())) continue;
+                        int[] path = Arrays.copyOf(e.path, e.path.length + 1);
+                        path[e.path.length] = i;
+                        queue.add(new KnnEntry(d, n.children[i], path, -1));
+                    }
+                }
+            }
+            finished = true;
+            queue.clear();
+            if (notify) fireOperationFinished(RTreeListener.Operation.KNN);
+        }
+    }
+
+    /*-----------------PARALLEL----------------*/
+    /**
+     * 영역 탐색을 pool의 여러 스레드로 나눠 실행 (결과/순서는 search와 같음, 결과를 모두 모은 뒤 반환).
+     * 질의 범위가 넓어 결과가 많을 때 유리. 실행 중에는 같은 트리에 add/delete를 하면 안 됨.
+     * 노드 단위 listener 콜백은 부르지 않음.
+     *
+     * @param rectangle 검색 범위
+     * @param pool      실행할 ForkJoinPool (예: ForkJoinPool.commonPool())
+     */
+    public Iterator<Point> searchParallel(Rectangle rectangle, ForkJoinPool pool) {
+        return searchParallel(root, rectangle, pool).iterator();
+    }
+
+    List<Point> searchParallel(Node from, Rectangle rectangle, ForkJoinPool pool) {
+        fireOperationStarted(RTreeListener.Operation.SEARCH);
+        for (RTreeListener l : listeners) l.searchStarted(rectangle);
+        List<Point> result = ParallelQueries.search(pool, from, ParallelQueries.forkLevel(minEntries),
+                rectangle.getLeftTop().getX(), rectangle.getLeftTop().getY(),
+                rectangle.getRightBottom().getX(), rectangle.getRightBottom().getY());
+        fireOperationFinished(RTreeListener.Operation.SEARCH);
+        return result;
+    }
+
+    /**
+     * KNN을 pool의 여러 스레드로 나눠 실행 (결과/순서는 nearest와 같음).
+     * 모든 task가 k번째 후보 거리를 공유해 가지치기. 실행 중에는 같은 트리에 add/delete를 하면 안 됨.
+     *
+     * @param source 기준점
+     * @param k      최대 개수
+     * @param pool   실행할 ForkJoinPool
+     */
+    public Iterator<Point> nearestParallel(Point source, int k, ForkJoinPool pool) {
+        return nearestParallel(root, source, k, pool).iterator();
+    }
+
+    List<Point> nearestParallel(Node from, Point source, int k, ForkJoinPool pool) {
+        fireOperationStarted(RTreeListener.Operation.KNN);
+        for (RTreeListener l : listeners) l.nearestStarted(source);
+        List<Point> result = ParallelQueries.nearest(pool, from, ParallelQueries.forkLevel(minEntries),
+                source.getX(), source.getY(), k);
+        fireOperationFinished(RTreeListener.Operation.KNN);
+        return result;
+    }
+
+    /*-----------------DELETE----------------*/
+    /**
+     * - findLeaf로 삭제 대상 점이 있는 리프를 찾아 제거
+     * - condenseTree로 리프부터 올라가며 최소 차수 m 미만이 된 노드를 떼어내고,
+     *   떼어낸 노드의 엔트리를 원래 레벨에 재삽입 (Guttman CondenseTree)
+     * - 루트 정리
+     */
+    @Override
+    public void delete(Point point) {
+        double x = point.getX(), y = point.getY();
+        deleteEntry(x, y, x, y, ANY_VALUE);
+    }
+
+    /**
+     * 좌표가 (x1, y1) ~ (x2, y2)이고 값이 value와 equals인 엔트리 하나를 삭제 (value == ANY_VALUE면 값은 보지 않음)
+     *
+     * @return 삭제했으면 true
+     */
+    boolean deleteEntry(double x1, double y1, double x2, double y2, Object value) {
+        Node leaf = findLeaf(root, x1, y1, x2, y2, value);
+        if (leaf == null) return false;
+        leaf = mutable(leaf);
+        modCount++;
+        fireOperationStarted(RTreeListener.Operation.DELETE);
+
+        firePointFound(x1, y1);
+        leaf.removePoint(indexOf(leaf, x1, y1, x2, y2, value));
+        condenseTree(leaf);
+
+        shrinkRoot();
+
+        fireOperationFinished(RTreeListener.Operation.DELETE);
+        return true;
+    }
+
+    // 루트 정리: 루트가 내부노드인데 자식 하나만 남았으면 높이를 줄임 (자식도 외자식일 수 있어 반복),
+    // 모두 지워졌으면 빈 리프 루트로 되돌림 (이후 add 가능)
+    private void shrinkRoot() {
+        while (!root.isLeaf && root.size == 1) {
+            root = root.children[0];
+            root.parent = null;
+        }
+        if (!root.isLeaf && root.size == 0) root = newNode(0);
+    }
+
+    /**
+     * 여러 점을 한 번에 삭제:
+     * 1) 각 점을 findLeaf로 찾아 리프에서 제거 (MBR은 아직 고치지 않음 → 남은 MBR은 실제보다 크거나 같아 탐색은 여전히 정확)
+     * 2) 건드린 노드를 리프 레벨부터 한 번씩 처리 (CondenseTree를 배치로):
+     *    루트 외 노드가 m 미만이면 부모에서 떼어 점들을 고아로 모으고, 아니면 MBR 재계산 후 부모를 다음 레벨 목록에 추가
+     * 3) 루트 정리 후 고아 점들을 insertBatch로 한 번에 재삽입
+     * - 떼어낸 내부노드의 서브트리도 점으로 풀어 재삽입 (배치에서는 루트까지 통째로 비는 경우가 있어 레벨 유지 재삽입을 하지 않음)
+     *
+     * @param points 삭제할 점들 (트리에 없는 점은 무시)
+     */
+    public void deleteAll(Collection<Point> points) {
+        List<Node> touched = new ArrayList<>();
+        Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean started = false;
+        for (Point p : points) {
+            double x = p.getX(), y = p.getY();
+            Node leaf = findLeaf(root, x, y, x, y, ANY_VALUE);
+            if (leaf == null) continue;
+            if (!started) {
+                fireOperationStarted(RTreeListener.Operation.DELETE);
+                modCount++;
+                started = true;
+            }
+            leaf = mutable(leaf);
+            firePointFound(x, y);
+            leaf.removePoint(indexOf(leaf, x, y, x, y, ANY_VALUE));
+            if (seen.add(leaf)) touched.add(leaf);
+        }
+        if (!started) return;
+
+        // 레벨별 정리
+        double[][] orphans = { new double[16], new double[16], null, null };
+        Object[][] orphanValues = { null };
+        int orphanCount = 0;
+        while (!touched.isEmpty()) {
+            List<Node> parents = new ArrayList<>();
+            seen.clear();
+            for (Node n : touched) {
+                Node parent = n.parent;
+                if (parent != null && n.size < minEntries) {
+                    fireNodeRemoved(n);
+                    parent.removeChild(parent.indexOf(n));
+                    n.parent = null;
+                    orphanCount = collectPoints(n, orphans, orphanValues, orphanCount);
+                } else {
+                    n.updateMBR();
+                }
+                if (parent != null && seen.add(parent)) parents.add(parent);
+            }
+            touched = parents;
+        }
+        fireTreeChanged();
+        shrinkRoot();
+
+        if (orphanCount > 0)
+            insertBatch(orphans[0], orphans[1], orphans[2], orphans[3], orphanValues[0], orphanCount);
+        fireOperationFinished(RTreeListener.Operation.DELETE);
+    }
+
+    // n 아래의 모든 엔트리를 out[0](x), out[1](y)의 count 위치부터 추가 (배열은 필요하면 늘림).
+    // 사각형 엔트리가 있으면 최대 꼭짓점을 out[2], out[3]에, 값이 붙어 있으면 values[0]에 같은 위치로 모음 (처음 만날 때 만듦)
+    private static int collectPoints(Node n, double[][] out, Object[][] values, int count) {
+        if (!n.isLeaf) {
+            for (int i = 0; i < n.size; i++) count = collectPoints(n.children[i], out, values, count);
+            return count;
+        }
+        if (count + n.size > out[0].length) {
+            int grown = Math.max(count + n.size, out[0].length * 2);
+            for (int k = 0; k < out.length; k++) if (out[k] != null) out[k] = Arrays.copyOf(out[k], grown);
+            if (values[0] != null) values[0] = Arrays.copyOf(values[0], grown);
+        }
+        System.arraycopy(n.xs, 0, out[0], count, n.size);
+        System.arraycopy(n.ys, 0, out[1], count, n.size);
+        if (n.hxs != n.xs && out[2] == null) {
+            out[2] = out[0].clone(); // 앞서 모은 점은 min == max
+            out[3] = out[1].clone();
+        }
+        if (out[2] != null) {
+            System.arraycopy(n.hxs, 0, out[2], count, n.size);
+            System.arraycopy(n.hys, 0, out[3], count, n.size);
+        }
+        if (n.values != null) {
+            if (values[0] == null) values[0] = new Object[out[0].length];
+            System.arraycopy(n.values, 0, values[0], count, n.size);
+        }
+        return count + n.size;
+    }
+
+    // 삭제 시 값은 비교하지 않음 (RTree.delete: 좌표만 비교)
+    static final Object ANY_VALUE = new Object();
+
+    // 리프에서 좌표가 (x1, y1) ~ (x2, y2)이고 값이 value인 엔트리의 인덱스 (없으면 -1)
+    private static int indexOf(Node leaf, double x1, double y1, double x2, double y2, Object value) {
+        for (int i = 0; i < leaf.size; i++)
+            if (leaf.xs[i] == x1 && leaf.ys[i] == y1 && leaf.hxs[i] == x2 && leaf.hys[i] == y2
+                    && (value == ANY_VALUE || Objects.equals(leaf.getValue(i), value)))
+                return i;
+        return -1;
+    }
+
+    /**
+     * 엔트리 (x1, y1) ~ (x2, y2), value가 들어 있는 리프 찾기:
+     * - 각 노드에 진입할 때 통지(경로)
+     * - 내부노드라면 엔트리를 포함하는 MBR의 자식만 재귀
+     */
+    private Node findLeaf(Node n, double x1, double y1, double x2, double y2, Object value) {
+        fireNodeVisited(n);
+        fireNodeSelected(n);
+
+        if (n.isLeaf) return indexOf(n, x1, y1, x2, y2, value) >= 0 ? n : null;
+        for (int i = 0; i < n.size; i++) {
+            if (contains(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], x1, y1)
+                    && contains(n.minXs[i], n.minYs[i], n.maxXs[i], n.maxYs[i], x2, y2)) {
+                Node leaf = findLeaf(n.children[i], x1, y1, x2, y2, value);
+                if (leaf != null) return leaf;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 삭제 후 트리 정리 (CondenseTree):
+     * - n부터 루트까지 올라가며
+     *   * 루트가 아닌 노드의 엔트리 수가 m 미만이면 부모에서 제거하고 엔트리를 고아 목록에 모음
+     *   * 아니면 MBR 축소 반영
+     * - 고아 엔트리를 원래 레벨에 재삽입 (점은 리프, 서브트리는 한 레벨 위 노드)
+     *   재삽입 중 overflow는 강제 재삽입 없이 바로 분할
+     */
+    private void condenseTree(Node n) {
+        List<Node> orphanLeaves = new ArrayList<>();
+        List<Node> orphanNodes = new ArrayList<>();
+
+        while (n.parent != null) {
+            Node parent = n.parent;
+            if (n.size < minEntries) {
+                fireNodeRemoved(n);
+                parent.removeChild(parent.indexOf(n));
+                n.parent = null;
+                if (n.isLeaf) orphanLeaves.add(n);
+                else for (int i = 0; i < n.size; i++) orphanNodes.add(n.children[i]);
+            } else {
+                n.updateMBR();
+            }
+            fireTreeChanged();
+            n = parent;
+        }
+        n.updateMBR();
+
+        reinsertedLevels = -1L; // 모든 레벨 재삽입 완료로 표시 → overflow는 분할
+        for (Node c : orphanNodes) insertNode(c);
+        for (Node leaf : orphanLeaves)
+            for (int i = 0; i < leaf.size; i++)
+                insertEntry(leaf.xs[i], leaf.ys[i], leaf.hxs[i], leaf.hys[i], leaf.getValue(i));
+    }
+
+    /*-----------------MOVE----------------*/
+    /**
+     * 점 이동 (움직이는 객체의 위치 갱신). delete(from) + add(to)와 같은 결과지만 가능하면 제자리에서 좌표만 바꿈:
+     * - to가 from이 있던 리프의 MBR 안이거나, 리프의 부모 MBR 안이고 형제 중 그 리프가 to를 넣기에 가장 좋은 자리
+     *   (chooseSubtree 기준 최소 면적 증가)면 리프 안에서 좌표만 교체
+     *   → 삭제/재삽입/정리 없음. MBR은 리프부터 올라가며 실제로 바뀌는 동안만 다시 계산 (안 바뀌면 즉시 멈춤)
+     * - 그 외에는 리프에서 빼고 condenseTree 후 chooseSubtree로 다시 삽입
+     * - to에 이미 점이 있으면 from만 삭제 (add와 같은 중복 규칙)
+     *
+     * @return from이 트리에 있었으면 true
+     */
+    public boolean move(Point from, Point to) {
+        double fx = from.getX(), fy = from.getY(), tx = to.getX(), ty = to.getY();
+        if (fx == tx && fy == ty) return findLeaf(root, fx, fy, fx, fy, ANY_VALUE) != null;
+        if (exists(root, tx, ty)) return deleteEntry(fx, fy, fx, fy, ANY_VALUE);
+        return moveEntry(fx, fy, tx, ty, ANY_VALUE);
+    }
+
+    /**
+     * 좌표가 (fx, fy)이고 값이 value인 점 엔트리 하나를 (tx, ty)로 옮김 (값은 그대로, 중복 검사 없음)
+     *
+     * @return 옮겼으면 true
+     */
+    boolean moveEntry(double fx, double fy, double tx, double ty, Object value) {
+        Node leaf = findLeaf(root, fx, fy, fx, fy, value);
+        if (leaf == null) return false;
+        leaf = mutable(leaf);
+        modCount++;
+        fireOperationStarted(RTreeListener.Operation.MOVE);
+        firePointFound(fx, fy);
+
+        int i = indexOf(leaf, fx, fy, fx, fy, value);
+        long h = curve == null ? 0 : hilbertKey(tx, ty, tx, ty);
+        // HILBERT는 새 키가 리프 안 앞뒤 엔트리 사이에 있을 때만 (키 순서와 LHV가 그대로)
+        boolean keepsOrder = curve == null || (i > 0 && i < leaf.size - 1 && leaf.hs[i - 1] <= h && h <= leaf.hs[i + 1]);
+        if (keepsOrder && fitsInPlace(leaf, tx, ty)) {
+            boolean onBoundary = fx == leaf.minX || fx == leaf.maxX || fy == leaf.minY || fy == leaf.maxY;
+            boolean inside = contains(leaf.minX, leaf.minY, leaf.maxX, leaf.maxY, tx, ty);
+            leaf.xs[i] = leaf.hxs[i] = tx;
+            leaf.ys[i] = leaf.hys[i] = ty;
+            if (curve != null) leaf.hs[i] = h;
+            if (onBoundary || !inside) tightenUp(leaf); // MBR 안쪽에서 안쪽으로 옮기면 조상은 그대로
+        } else {
+            Object v = leaf.getValue(i);
+            leaf.removePoint(i);
+            condenseTree(leaf);
+            shrinkRoot();
+            reinsertedLevels = 0;
+            insertEntry(tx, ty, tx, ty, v);
+        }
+        fireTreeChanged();
+        fireOperationFinished(RTreeListener.Operation.MOVE);
+        return true;
+    }
+
+    // (tx, ty)를 leaf에 그대로 둬도 되는지: 리프 MBR 안이거나, 부모 MBR 안이고 chooseSubtree가 형제 중 leaf를 고를 때
+    private static boolean fitsInPlace(Node leaf, double tx, double ty) {
+        if (contains(leaf.minX, leaf.minY, leaf.maxX, leaf.maxY, tx, ty) || leaf.parent == null) return true;
+        Node p = leaf.parent;
+        if (!contains(p.minX, p.minY, p.maxX, p.maxY, tx, ty)) return false;
+        int self = p.indexOf(leaf);
+        double selfArea = area(leaf.minX, leaf.minY, leaf.maxX, leaf.maxY);
+        double selfEnlarge = area(Math.min(leaf.minX, tx), Math.min(leaf.minY, ty),
+                Math.max(leaf.maxX, tx), Math.max(leaf.maxY, ty)) - selfArea;
+        for (int i = 0; i < p.size; i++) {
+            if (i == self) continue;
+            double area = area(p.minXs[i], p.minYs[i], p.maxXs[i], p.maxYs[i]);
+            double enlarge = area(Math.min(p.minXs[i], tx), Math.min(p.minYs[i], ty),
+                    Math.max(p.maxXs[i], tx), Math.max(p.maxYs[i], ty)) - area;
+            if (enlarge < selfEnlarge || (enlarge == selfEnlarge && area < selfArea)) return false;
+        }
+        return true;
+    }
+
+    // n부터 올라가며 MBR 재계산, 어떤 노드의 MBR이 그대로면 그 위는 바뀔 것이 없으므로 멈춤
+    private void tightenUp(Node n) {
+        while (n != null) {
+            double x1 = n.minX, y1 = n.minY, x2 = n.maxX, y2 = n.maxY;
+            n.updateMBR();
+            if (n.minX == x1 && n.minY == y1 && n.maxX == x2 && n.maxY == y2) return;
+            fireNodeSelected(n);
+            n = n.parent;
         }
-        return false;
     }
 
     @Override
     public boolean isEmpty() {
-        return root == null || (root.isLeaf && root.points.isEmpty());
+        return root.isLeaf && root.size == 0;
     }
 }
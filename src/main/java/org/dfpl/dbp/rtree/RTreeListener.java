@@ -0,0 +1,105 @@
+package org.dfpl.dbp.rtree;
+
+/**
+ * RTreeImpl의 연산 진행 상황을 전달받는 관찰자(listener).
+ *
+ * - 시각화, 통계 수집 등 부가 기능은 모두 이 인터페이스로 엔진에 붙인다.
+ * - 모든 콜백은 연산을 수행하는 스레드에서 동기적으로 호출된다.
+ * - 등록된 listener가 없으면 엔진은 어떤 콜백도 호출하지 않는다.
+ * - 필요한 콜백만 골라 구현할 수 있도록 모두 default(빈 구현)로 둔다.
+ */
+public interface RTreeListener {
+
+	// 연산 종류
+	enum Operation {
+		ADD, SEARCH, KNN, DELETE, MOVE
+	}
+
+	/**
+	 * 연산 시작
+	 *
+	 * @param operation
+	 */
+	default void operationStarted(Operation operation) {
+	}
+
+	/**
+	 * 연산 종료 (결과가 트리에 모두 반영된 뒤)
+	 *
+	 * @param operation
+	 */
+	default void operationFinished(Operation operation) {
+	}
+
+	/**
+	 * 삽입 경로, 조정(adjust) 대상, 삭제 탐색 경로 등 현재 작업 중인 노드
+	 *
+	 * @param node
+	 */
+	default void nodeSelected(RTreeImpl.Node node) {
+	}
+
+	/**
+	 * node가 분할되어 sibling이 새로 생김 (둘 다 부모에 연결된 상태)
+	 *
+	 * @param node
+	 * @param sibling
+	 */
+	default void nodeSplit(RTreeImpl.Node node, RTreeImpl.Node sibling) {
+	}
+
+	/**
+	 * 비어 있는 node가 부모에서 제거되기 직전
+	 *
+	 * @param node
+	 */
+	default void nodeRemoved(RTreeImpl.Node node) {
+	}
+
+	/**
+	 * 점 추가/삭제, MBR 축소 등 트리의 모양이 바뀜
+	 */
+	default void treeChanged() {
+	}
+
+	/**
+	 * 탐색(SEARCH/KNN/중복 검사/삭제 경로)이 노드에 진입함. 노드 방문 수 측정용
+	 *
+	 * @param node
+	 */
+	default void nodeVisited(RTreeImpl.Node node) {
+	}
+
+	/**
+	 * 영역 탐색 시작
+	 *
+	 * @param rectangle 검색 범위
+	 */
+	default void searchStarted(Rectangle rectangle) {
+	}
+
+	/**
+	 * 영역 탐색 중 자식 노드의 MBR과 검색 범위의 교차 검사 결과
+	 *
+	 * @param node
+	 * @param intersects false면 가지치기됨
+	 */
+	default void nodeTested(RTreeImpl.Node node, boolean intersects) {
+	}
+
+	/**
+	 * KNN 탐색 시작
+	 *
+	 * @param source 기준점
+	 */
+	default void nearestStarted(Point source) {
+	}
+
+	/**
+	 * 탐색 결과 점(SEARCH/KNN) 또는 삭제/이동 대상 점(DELETE/MOVE)
+	 *
+	 * @param point
+	 */
+	default void pointFound(Point point) {
+	}
+}
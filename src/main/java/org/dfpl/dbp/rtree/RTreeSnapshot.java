@@ -0,0 +1,514 @@
+package org.dfpl.dbp.rtree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/*
+ * RTreeImpl 스냅샷 직렬화 (스트리밍용 바이너리 형식)
+ * - write: 트리를 전위(preorder) 순서로 한 번 훑으며 채널에 순차 기록 (되감기/임의 위치 쓰기 없음 → 소켓/파이프에도 가능)
+ * - read : 같은 순서로 노드를 바로 만들어 붙임. chooseSubtree/split/정렬을 거치지 않고 저장할 때의 트리 모양 그대로 복원
+ *          (MBR, 점 수, LHV는 리프 좌표에서 다시 계산 → 파일에는 리프 좌표와 노드 크기만 있음)
+ * - MappedRTree 파일(save)은 고정 크기 페이지라 매핑해서 바로 질의하는 용도, 이쪽은 작게 보내고 힙으로 빨리 읽는 용도
+ *
+ * - 형식: 블록의 나열. 블록 = int payload 길이, int payload의 CRC32, payload (최대 BLOCK 바이트, little endian)
+ *      * 마지막은 길이 0인 블록 → 잘린 스트림을 알아챔. 값(varint, double 등)은 블록 경계에 걸치지 않음
+ *      * 내용: 헤더 다음에 노드 레코드들 (전위 순서)
+ *          - 헤더: int magic, int version, byte encoding, int maxEntries, int minEntries,
+ *                  byte 트리 모드(0 분할 정책, 1 HILBERT UNBOUNDED 격자, 2 HILBERT 범위 지정 격자)
+ *                  [0: + byte splitPolicy(ordinal) / 2: + double minX, minY, maxX, maxY, int bits],
+ *                  int 루트 level, long 엔트리 수 [+ QUANTIZED: double 원점 x, y, 칸 크기 x, y]
+ *          - 노드: varint size, 리프면 byte flags(1 = 사각형 엔트리 있음) + 엔트리 좌표, 내부노드면 자식 노드 레코드 size개
+ * - 좌표 인코딩 (Encoding)
+ *      * RAW      : double 그대로 (엔트리당 16바이트, 사각형은 32바이트)
+ *      * DELTA    : 리프 안에서 바로 앞 엔트리 좌표와의 비트 XOR. 앞/뒤의 0 바이트를 빼고 남은 바이트만 기록 (무손실)
+ *                   (가까운 점끼리는 부호/지수/상위 가수가 같고, 정수/짧은 소수 좌표는 하위 가수가 0)
+ *      * QUANTIZED: 루트 MBR을 축마다 2^32칸으로 나눈 칸 번호의 차이를 zigzag varint로 (손실, 오차 ≤ 칸 크기의 절반.
+ *                   사각형은 최소 꼭짓점 내림/최대 꼭짓점 올림으로 원래 사각형을 포함. 한 칸에 떨어진 점들은 겹친 채로 남음)
+ * - 값이 붙은 엔트리(EntryRTree)는 지원하지 않음 (IllegalArgumentException)
+ * - HILBERT 트리는 QUANTIZED로 쓸 수 없음 (IllegalArgumentException): 리프 순서는 원래 좌표의 키 순서라
+ *   양자화한 좌표로 키를 다시 만들면 리프 안/리프 사이의 키 순서가 어긋날 수 있음
+ */
+public final class RTreeSnapshot {
+
+    public enum Encoding {
+        RAW, DELTA, QUANTIZED
+    }
+
+    static final int MAGIC = 0x52545353; // "RTSS"
+    static final int VERSION = 2;
+
+    private static final int BLOCK = 1 << 16;
+    private static final int BLOCK_HEADER = 8; // 길이, CRC32
+    private static final double CELLS = 4294967295.0; // 2^32 - 1 (칸 번호 0 ~ 2^32 - 1)
+
+    private RTreeSnapshot() {
+    }
+
+    /**
+     * tree의 스냅샷을 path에 씀 (기존 파일은 덮어씀)
+     */
+    public static void write(RTreeImpl tree, Path path, Encoding encoding) throws IOException {
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(tree, out, encoding);
+        }
+    }
+
+    /**
+     * tree의 스냅샷을 out에 순차로 씀. 채널은 닫지 않음
+     *
+     * @throws IllegalArgumentException 값이 붙은 엔트리가 있거나, HILBERT 트리를 QUANTIZED로 쓸 때
+     */
+    public static void write(RTreeImpl tree, WritableByteChannel out, Encoding encoding) throws IOException {
+        write(tree, tree.root(), out, encoding);
+    }
+
+    /**
+     * path의 스냅샷을 읽어 트리를 복원
+     */
+    public static RTreeImpl read(Path path) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * in에서 스냅샷 하나를 읽어 트리를 복원. 스냅샷 끝(길이 0 블록)까지만 읽고 채널은 닫지 않음
+     *
+     * @throws IOException 형식이 맞지 않거나, 블록 CRC가 틀리거나, 스트림이 중간에 끝났을 때
+     */
+    public static RTreeImpl read(ReadableByteChannel in) throws IOException {
+        Input input = new Input(in);
+        if (input.getInt() != MAGIC) throw new IOException("not an R-tree snapshot");
+        int version = input.getInt();
+        if (version != VERSION) throw new IOException("unsupported R-tree snapshot version " + version);
+        int e = input.getByte();
+        if (e < 0 || e >= Encoding.values().length) throw new IOException("unknown snapshot encoding " + e);
+        Encoding encoding = Encoding.values()[e];
+        int maxEntries = input.getInt(), minEntries = input.getInt();
+        SplitPolicy splitPolicy = null;
+        HilbertCurve curve = null;
+        switch (input.getByte()) {
+            case 0 -> {
+                int p = input.getByte();
+                if (p < 0 || p >= SplitPolicy.values().length) throw new IOException("unknown split policy " + p);
+                splitPolicy = SplitPolicy.values()[p];
+            }
+            case 1 -> curve = HilbertCurve.UNBOUNDED;
+            case 2 -> curve = new HilbertCurve(input.getDouble(), input.getDouble(), input.getDouble(),
+                    input.getDouble(), input.getInt());
+            default -> throw new IOException("corrupt R-tree snapshot: tree mode");
+        }
+        if (encoding == Encoding.QUANTIZED && curve != null)
+            throw new IOException("corrupt R-tree snapshot: QUANTIZED HILBERT tree");
+        int rootLevel = input.getInt();
+        long entries = input.getLong();
+
+        RTreeImpl tree;
+        try {
+            tree = new RTreeImpl(maxEntries, minEntries, splitPolicy, curve);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("corrupt R-tree snapshot: " + ex.getMessage());
+        }
+        Decoder decoder = new Decoder(tree, input, encoding);
+        if (encoding == Encoding.QUANTIZED) {
+            decoder.originX = input.getDouble();
+            decoder.originY = input.getDouble();
+            decoder.stepX = input.getDouble();
+            decoder.stepY = input.getDouble();
+        }
+        if (rootLevel < 0 || rootLevel > 64) throw new IOException("corrupt R-tree snapshot: level " + rootLevel);
+        RTreeImpl.Node root = decoder.node(rootLevel);
+        if (root.count != entries) throw new IOException("corrupt R-tree snapshot: entry count");
+        input.finish();
+        tree.restore(root);
+        return tree;
+    }
+
+    // snapshot 루트부터 씀 (ConcurrentRTree/DurableRTree의 고정된 스냅샷도 가능)
+    static void write(RTreeImpl tree, RTreeImpl.Node root, WritableByteChannel out, Encoding encoding)
+            throws IOException {
+        if (encoding == Encoding.QUANTIZED && tree.getHilbertCurve() != null)
+            throw new IllegalArgumentException("HILBERT trees cannot be written with QUANTIZED encoding");
+        Output output = new Output(out);
+        output.putInt(MAGIC);
+        output.putInt(VERSION);
+        output.putByte(encoding.ordinal());
+        output.putInt(tree.getMaxEntries());
+        output.putInt(tree.getMinEntries());
+        HilbertCurve curve = tree.getHilbertCurve();
+        if (curve == null) {
+            output.putByte(0);
+            output.putByte(tree.getSplitPolicy().ordinal());
+        } else if (curve == HilbertCurve.UNBOUNDED) {
+            output.putByte(1);
+        } else {
+            output.putByte(2);
+            output.putDouble(curve.minX);
+            output.putDouble(curve.minY);
+            output.putDouble(curve.maxX);
+            output.putDouble(curve.maxY);
+            output.putInt(curve.getBits());
+        }
+        output.putInt(root.level);
+        output.putLong(root.count);
+
+        Encoder encoder = new Encoder(output, encoding);
+        if (encoding == Encoding.QUANTIZED) {
+            // 루트 MBR을 2^32칸으로 (비어 있거나 폭이 0인 축은 칸 크기 1)
+            double w = root.size == 0 ? 0 : root.maxX - root.minX, h = root.size == 0 ? 0 : root.maxY - root.minY;
+            encoder.originX = root.size == 0 ? 0 : root.minX;
+            encoder.originY = root.size == 0 ? 0 : root.minY;
+            encoder.stepX = w > 0 ? w / CELLS : 1;
+            encoder.stepY = h > 0 ? h / CELLS : 1;
+            output.putDouble(encoder.originX);
+            output.putDouble(encoder.originY);
+            output.putDouble(encoder.stepX);
+            output.putDouble(encoder.stepY);
+        }
+        encoder.node(root);
+        output.finish();
+    }
+
+    /*-----------------인코딩----------------*/
+    private static final class Encoder {
+        final Output out;
+        final Encoding encoding;
+        double originX, originY, stepX, stepY;
+
+        Encoder(Output out, Encoding encoding) {
+            this.out = out;
+            this.encoding = encoding;
+        }
+
+        void node(RTreeImpl.Node n) throws IOException {
+            out.putVarint(n.size);
+            if (!n.isLeaf) {
+                for (int i = 0; i < n.size; i++) node(n.children[i]);
+                return;
+            }
+            if (n.values != null)
+                for (int i = 0; i < n.size; i++)
+                    if (n.values[i] != null)
+                        throw new IllegalArgumentException("entries with values cannot be written to a snapshot");
+            boolean rectangles = n.hxs != n.xs;
+            out.putByte(rectangles ? 1 : 0);
+            switch (encoding) {
+                case RAW -> {
+                    for (int i = 0; i < n.size; i++) {
+                        out.putDouble(n.xs[i]);
+                        out.putDouble(n.ys[i]);
+                        if (rectangles) {
+                            out.putDouble(n.hxs[i]);
+                            out.putDouble(n.hys[i]);
+                        }
+                    }
+                }
+                case DELTA -> {
+                    long px = 0, py = 0;
+                    for (int i = 0; i < n.size; i++) {
+                        long x = Double.doubleToRawLongBits(n.xs[i]), y = Double.doubleToRawLongBits(n.ys[i]);
+                        putXor(x ^ px);
+                        putXor(y ^ py);
+                        if (rectangles) {
+                            putXor(Double.doubleToRawLongBits(n.hxs[i]) ^ x);
+                            putXor(Double.doubleToRawLongBits(n.hys[i]) ^ y);
+                        }
+                        px = x;
+                        py = y;
+                    }
+                }
+                case QUANTIZED -> {
+                    long px = 0, py = 0;
+                    for (int i = 0; i < n.size; i++) {
+                        long x, y;
+                        if (rectangles) {
+                            x = cell(Math.floor((n.xs[i] - originX) / stepX));
+                            y = cell(Math.floor((n.ys[i] - originY) / stepY));
+                        } else {
+                            x = cell(Math.rint((n.xs[i] - originX) / stepX));
+                            y = cell(Math.rint((n.ys[i] - originY) / stepY));
+                        }
+                        out.putVarint(zigzag(x - px));
+                        out.putVarint(zigzag(y - py));
+                        if (rectangles) {
+                            out.putVarint(cell(Math.ceil((n.hxs[i] - originX) / stepX)) - x);
+                            out.putVarint(cell(Math.ceil((n.hys[i] - originY) / stepY)) - y);
+                        }
+                        px = x;
+                        py = y;
+                    }
+                }
+            }
+        }
+
+        private static long cell(double c) {
+            return (long) Math.max(0, Math.min(CELLS, c));
+        }
+
+        // 앞/뒤 0 바이트 수를 한 바이트에 담고(앞 << 4 | 뒤, 0이면 0x80) 가운데 바이트만 기록
+        private void putXor(long v) throws IOException {
+            if (v == 0) {
+                out.putByte(0x80);
+                return;
+            }
+            int lead = Long.numberOfLeadingZeros(v) >>> 3, trail = Long.numberOfTrailingZeros(v) >>> 3;
+            out.putByte(lead << 4 | trail);
+            out.putBytes(v >>> (trail << 3), 8 - lead - trail);
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static final class Decoder {
+        final RTreeImpl tree;
+        final Input in;
+        final Encoding encoding;
+        final int capacity;
+        double originX, originY, stepX, stepY;
+
+        Decoder(RTreeImpl tree, Input in, Encoding encoding) {
+            this.tree = tree;
+            this.in = in;
+            this.encoding = encoding;
+            this.capacity = tree.getMaxEntries() + 1;
+        }
+
+        RTreeImpl.Node node(int level) throws IOException {
+            long size = in.getVarint();
+            if (size < 0 || size >= capacity) throw new IOException("corrupt R-tree snapshot: node size " + size);
+            RTreeImpl.Node n = tree.newNode(level);
+            if (level > 0) {
+                for (int i = 0; i < size; i++) n.addChild(node(level - 1));
+            } else {
+                boolean rectangles = (in.getByte() & 1) != 0;
+                if (rectangles) {
+                    n.hxs = new double[n.xs.length];
+                    n.hys = new double[n.ys.length];
+                }
+                n.size = (int) size;
+                double[] xs = n.xs, ys = n.ys, hxs = n.hxs, hys = n.hys;
+                switch (encoding) {
+                    case RAW -> {
+                        for (int i = 0; i < size; i++) {
+                            xs[i] = in.getDouble();
+                            ys[i] = in.getDouble();
+                            if (rectangles) {
+                                hxs[i] = in.getDouble();
+                                hys[i] = in.getDouble();
+                            }
+                        }
+                    }
+                    case DELTA -> {
+                        long px = 0, py = 0;
+                        for (int i = 0; i < size; i++) {
+                            px ^= getXor();
+                            py ^= getXor();
+                            xs[i] = Double.longBitsToDouble(px);
+                            ys[i] = Double.longBitsToDouble(py);
+                            if (rectangles) {
+                                hxs[i] = Double.longBitsToDouble(px ^ getXor());
+                                hys[i] = Double.longBitsToDouble(py ^ getXor());
+                            }
+                        }
+                    }
+                    case QUANTIZED -> {
+                        long px = 0, py = 0;
+                        for (int i = 0; i < size; i++) {
+                            px += unzigzag(in.getVarint());
+                            py += unzigzag(in.getVarint());
+                            xs[i] = originX + px * stepX;
+                            ys[i] = originY + py * stepY;
+                            if (rectangles) {
+                                hxs[i] = originX + (px + in.getVarint()) * stepX;
+                                hys[i] = originY + (py + in.getVarint()) * stepY;
+                            }
+                        }
+                    }
+                }
+                if (n.hs != null)
+                    for (int i = 0; i < size; i++) n.hs[i] = tree.hilbertKey(xs[i], ys[i], hxs[i], hys[i]);
+            }
+            n.recomputeBounds();
+            return n;
+        }
+
+        private long getXor() throws IOException {
+            int header = in.getByte();
+            if (header == 0x80) return 0;
+            int lead = header >>> 4, trail = header & 15;
+            if (lead + trail > 7) throw new IOException("corrupt R-tree snapshot: coordinate");
+            return in.getBytes(8 - lead - trail) << (trail << 3);
+        }
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /*-----------------블록 입출력----------------*/
+    // 블록 단위로 모아 CRC와 함께 채널에 씀
+    private static final class Output {
+        final WritableByteChannel channel;
+        final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer buffer = ByteBuffer.allocate(BLOCK).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32 crc = new CRC32();
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        // 값 하나(bytes)가 현재 블록에 들어가지 않으면 블록을 내보냄
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.reset();
+            crc.update(buffer.array(), 0, buffer.limit());
+            header.clear();
+            header.putInt(buffer.limit()).putInt((int) crc.getValue()).flip();
+            while (header.hasRemaining()) channel.write(header);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        void putByte(int v) throws IOException {
+            ensure(1);
+            buffer.put((byte) v);
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(v);
+        }
+
+        void putDouble(double v) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(v);
+        }
+
+        // v의 하위 count바이트 (little endian)
+        void putBytes(long v, int count) throws IOException {
+            ensure(count);
+            for (int i = 0; i < count; i++, v >>>= 8) buffer.put((byte) v);
+        }
+
+        // 부호 없는 LEB128 (7비트씩, 최대 10바이트)
+        void putVarint(long v) throws IOException {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buffer.put((byte) (v | 0x80));
+                v >>>= 7;
+            }
+            buffer.put((byte) v);
+        }
+
+        // 남은 블록과 끝 표시(길이 0 블록)를 씀
+        void finish() throws IOException {
+            if (buffer.position() > 0) flush();
+            flush();
+        }
+    }
+
+    // 블록을 하나씩 읽어 CRC를 확인하고 값을 꺼냄
+    private static final class Input {
+        final ReadableByteChannel channel;
+        final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer buffer = ByteBuffer.allocate(BLOCK).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32 crc = new CRC32();
+        boolean ended;
+
+        Input(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        // 다음 값(bytes)이 현재 블록에 없으면 다음 블록을 읽음 (값은 블록 경계에 걸치지 않음)
+        private void ensure(int bytes) throws IOException {
+            if (!buffer.hasRemaining()) next();
+            if (buffer.remaining() < bytes) throw new IOException("corrupt R-tree snapshot: truncated value");
+        }
+
+        private void next() throws IOException {
+            if (ended) throw new IOException("corrupt R-tree snapshot: data after end");
+            header.clear();
+            readFully(header);
+            int length = header.getInt(0);
+            if (length < 0 || length > BLOCK) throw new IOException("corrupt R-tree snapshot: block length " + length);
+            buffer.clear().limit(length);
+            readFully(buffer);
+            buffer.flip();
+            crc.reset();
+            crc.update(buffer.array(), 0, length);
+            if ((int) crc.getValue() != header.getInt(4)) throw new IOException("R-tree snapshot block checksum mismatch");
+            if (length == 0) ended = true;
+        }
+
+        private void readFully(ByteBuffer b) throws IOException {
+            while (b.hasRemaining())
+                if (channel.read(b) < 0) throw new IOException("R-tree snapshot ended unexpectedly");
+        }
+
+        int getByte() throws IOException {
+            ensure(1);
+            return buffer.get() & 0xFF;
+        }
+
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        double getDouble() throws IOException {
+            ensure(Double.BYTES);
+            return buffer.getDouble();
+        }
+
+        long getBytes(int count) throws IOException {
+            ensure(count);
+            long v = 0;
+            for (int i = 0; i < count; i++) v |= (buffer.get() & 0xFFL) << (i << 3);
+            return v;
+        }
+
+        long getVarint() throws IOException {
+            if (!buffer.hasRemaining()) next();
+            long v = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                if (!buffer.hasRemaining()) throw new IOException("corrupt R-tree snapshot: truncated varint");
+                byte b = buffer.get();
+                v |= (b & 0x7FL) << shift;
+                if (b >= 0) return v;
+            }
+            throw new IOException("corrupt R-tree snapshot: varint too long");
+        }
+
+        // 데이터 블록 뒤의 끝 표시(길이 0 블록)를 확인
+        void finish() throws IOException {
+            if (buffer.hasRemaining()) throw new IOException("corrupt R-tree snapshot: trailing data");
+            next();
+            if (!ended) throw new IOException("corrupt R-tree snapshot: missing end block");
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package org.dfpl.dbp.rtree;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/*
+ * RTreeImpl 시각화 (Swing)
+ * - RTreeListener로 트리에 붙어 연산 이벤트마다 화면을 갱신한다.
+ * - 엔진(RTreeImpl)은 GUI를 전혀 모르며, 이 객체를 등록하지 않으면 프레임도 만들어지지 않는다.
+ * - 이벤트별 표현
+ *      * ADD    : 선택된 삽입 경로/조정 중인 노드 MBR을 빨간 반투명으로 강조, 분할 후 모습 표시
+ *      * SEARCH : 검색 범위 테두리, 교차 MBR(초록 테두리)/가지치기 MBR(빨간 테두리), 결과 점(빨간색)
+ *      * KNN    : 기준점(초록색), 찾은 점을 가까운 순서대로 하나씩 빨간 점으로 추가
+ *      * DELETE : 탐색 경로 MBR 강조, 삭제 대상 점 강조, 비어서 제거되는 노드 강조
+ * - stepMode가 켜져 있으면 탐색 단계마다 Enter 입력을 기다림
+ * GUI 좌표계
+ * - 데이터 좌표 (x↑, y↑) 를 화면 좌표 (x→, y↓)로 변환할 때, y축은 아래로 증가하므로 반전
+ *   → 화면 y = 패널높이 - (데이터 y * SCALE + margin)
+ */
+public class RTreeVisualizer implements RTreeListener {
+
+    // 기능별 시각화 지연 변수
+    private static final int DELAY_ADD = 100;     // 포인트 추가: 빠르게
+    private static final int DELAY_SEARCH = 100;  // 탐색: 빠르게
+    private static final int DELAY_KNN = 100;     // KNN: 빠르게(원한다면 300 등으로 키워도 됨)
+    private static final int DELAY_DELETE = 100; // 삭제: 상대적으로 천천히
+    private static final int DELAY_DELETE_PATH = 150; // 삭제 경로 노드 강조 후 추가 지연
+
+    private static final int SCALE = 3; // 화면 확대 배율 (데이터 좌표 → 픽셀)
+
+    private final RTreeImpl tree;
+    private final boolean stepMode;
+    private Operation currentMode = null; // 어떤 시각화 모드인지 - 딜레이에 사용
+
+    // 노드 번호: 화면/로그 표시용, 처음 본 순서대로 부여
+    private final Map<RTreeImpl.Node, Integer> nodeIds = new IdentityHashMap<>();
+    private int nodeCounter = 0;
+
+    // GUI 상태
+    private JFrame frame;
+    private DrawPanel panel;
+    private final List<Rectangle> allMBR = new ArrayList<>();          // 현재 트리의 모든 MBR
+    private final Map<Rectangle, Integer> rectToId = new IdentityHashMap<>(); // MBR ↔ 노드 번호
+    private final List<Point> allPoints = new ArrayList<>();           // 현재 트리의 모든 점
+    private Rectangle highlightRect = null;                            // 현재 강조(하이라이트) 중인 사각형
+    private final List<Point> highlightPoints = new ArrayList<>();     // 현재 강조 중인 점 목록
+    private Rectangle searchArea = null;       // 검색 범위
+    private Rectangle searchHitRect = null;    // 교차 MBR
+    private Rectangle searchPrunedRect = null; // 가지치기 MBR
+    private Point knnSource = null;            // KNN 기준점
+
+    private RTreeVisualizer(RTreeImpl tree, boolean stepMode) {
+        this.tree = tree;
+        this.stepMode = stepMode;
+    }
+
+    /**
+     * 프레임을 띄우고 tree에 시각화를 등록한다.
+     *
+     * @param tree
+     * @param stepMode true면 탐색 단계마다 Enter 입력을 기다림
+     * @return 등록된 visualizer
+     */
+    public static RTreeVisualizer show(RTreeImpl tree, boolean stepMode) {
+        RTreeVisualizer v = new RTreeVisualizer(tree, stepMode);
+        try {
+            // Swing EDT에서 프레임/패널 구성
+            SwingUtilities.invokeAndWait(() -> {
+                v.frame = new JFrame("RTree Visualization");
+                v.frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                v.frame.setSize(900, 900);
+                v.panel = v.new DrawPanel();
+                v.frame.add(v.panel);
+                v.frame.setVisible(true);
+                v.panel.repaint(); // 초기 상태를 한 번 강제로 그림
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("시각화 프레임을 만들 수 없습니다", e);
+        }
+        tree.addListener(v);
+        return v;
+    }
+
+    /**
+     * 시각화를 tree에서 떼고 프레임을 닫는다.
+     */
+    public void close() {
+        tree.removeListener(this);
+        SwingUtilities.invokeLater(() -> frame.dispose());
+    }
+
+    public static void waitForKeyPress() {
+        try {
+            System.in.read(); // Enter 입력 대기
+            while (System.in.available() > 0) System.in.read(); // 버퍼 비우기
+        } catch (Exception ignored) {}
+    }
+
+    private void step() {
+        if (stepMode) waitForKeyPress();
+    }
+
+    private int idOf(RTreeImpl.Node node) {
+        return nodeIds.computeIfAbsent(node, n -> ++nodeCounter);
+    }
+
+    private void refreshGUI() {
+        try {
+            // Swing EDT에서 상태 수집 및 리페인트를 동기적으로 실행
+            SwingUtilities.invokeAndWait(() -> {
+                allMBR.clear();
+                rectToId.clear();
+                collectMBRs(tree.root(), allMBR);
+
+                if (highlightRect != null)
+                    allMBR.add(highlightRect); // 현재 수정 중 노드만 추가 강조
+
+                allPoints.clear();
+                collectPoints(tree.root(), allPoints);
+
+                panel.repaint();
+                try { Thread.sleep(50); } catch (InterruptedException ignored) {}
+            });
+        } catch (Exception ignored) {}
+
+        // 모드별 딜레이: 장면 사이 간격을 둬 시뮬레이션처럼 보이게 함
+        int delay = currentMode == null ? 0 : switch (currentMode) {
+            case ADD, MOVE -> DELAY_ADD;
+            case SEARCH -> DELAY_SEARCH;
+            case KNN -> DELAY_KNN;
+            case DELETE -> DELAY_DELETE;
+        };
+
+        try { Thread.sleep(delay); } catch (InterruptedException ignored) {}
+    }
+
+    private void collectMBRs(RTreeImpl.Node node, List<Rectangle> list) {
+        Rectangle mbr = node == null ? null : node.getMbr();
+        if (mbr == null) return;
+        list.add(mbr);
+        rectToId.put(mbr, idOf(node)); // MBR ↔ Node ID 매핑
+        if (!node.isLeaf())
+            for (int i = 0; i < node.size(); i++) collectMBRs(node.getChild(i), list);
+    }
+
+    private void collectPoints(RTreeImpl.Node node, List<Point> list) {
+        if (node == null) return;
+        for (int i = 0; i < node.size(); i++) {
+            if (node.isLeaf()) list.add(node.getPoint(i));
+            else collectPoints(node.getChild(i), list);
+        }
+    }
+
+    // 현재 트리의 모든 MBR 출력
+    public void printAllMBRs() {
+        System.out.println("==== 현재 트리의 모든 MBR ====");
+
+        List<Rectangle> mbrs = new ArrayList<>();
+        Map<Rectangle, Integer> ids = new IdentityHashMap<>();
+        collectMBRsWithIds(tree.root(), mbrs, ids);
+
+        if (mbrs.isEmpty()) {
+            System.out.println("(no MBRs)");
+        } else {
+            for (Rectangle r : mbrs) {
+                System.out.printf("Node %d -> MBR[(%.1f, %.1f) ~ (%.1f, %.1f)]%n",
+                        ids.get(r),
+                        r.getLeftTop().getX(), r.getLeftTop().getY(),
+                        r.getRightBottom().getX(), r.getRightBottom().getY());
+            }
+        }
+        System.out.println("=============================");
+    }
+
+    private void collectMBRsWithIds(RTreeImpl.Node node, List<Rectangle> list, Map<Rectangle, Integer> ids) {
+        Rectangle mbr = node == null ? null : node.getMbr();
+        if (mbr == null) return;
+        list.add(mbr);
+        ids.put(mbr, idOf(node));
+        if (!node.isLeaf())
+            for (int i = 0; i < node.size(); i++) collectMBRsWithIds(node.getChild(i), list, ids);
+    }
+
+    /*-----------------RTreeListener----------------*/
+    @Override
+    public void operationStarted(Operation operation) {
+        currentMode = operation;
+    }
+
+    @Override
+    public void operationFinished(Operation operation) {
+        refreshGUI();
+        highlightRect = null;
+        highlightPoints.clear();
+        searchArea = null;
+        searchHitRect = null;
+        searchPrunedRect = null;
+        knnSource = null;
+        currentMode = null;
+    }
+
+    @Override
+    public void nodeSelected(RTreeImpl.Node node) {
+        // 루트는 강조하지 않음
+        if (node == tree.root() || node.isEmpty()) return;
+        highlightRect = node.getMbr();
+        refreshGUI();
+        if (currentMode == Operation.DELETE)
+            try { Thread.sleep(DELAY_DELETE_PATH); } catch (InterruptedException ignored) {}
+        highlightRect = null;
+    }
+
+    @Override
+    public void nodeSplit(RTreeImpl.Node node, RTreeImpl.Node sibling) {
+        refreshGUI(); // 분할 후 모습
+    }
+
+    @Override
+    public void nodeRemoved(RTreeImpl.Node node) {
+        highlightRect = node.getMbr(); // 제거 직전 자식 강조
+        refreshGUI();
+        try { Thread.sleep(DELAY_DELETE_PATH); } catch (InterruptedException ignored) {}
+        highlightRect = null;
+    }
+
+    @Override
+    public void treeChanged() {
+        refreshGUI();
+    }
+
+    @Override
+    public void searchStarted(Rectangle rectangle) {
+        searchArea = rectangle;
+        highlightPoints.clear(); // 기존 강조점 초기화
+        refreshGUI();
+    }
+
+    @Override
+    public void nodeTested(RTreeImpl.Node node, boolean intersects) {
+        // 교차 MBR / 가지치기 MBR 표시 후 한 단계씩 멈춰 보여줌
+        searchHitRect = intersects ? node.getMbr() : null;
+        searchPrunedRect = intersects ? null : node.getMbr();
+        refreshGUI();
+        step();
+        searchHitRect = null;
+        searchPrunedRect = null;
+    }
+
+    @Override
+    public void nearestStarted(Point source) {
+        highlightPoints.clear();
+        knnSource = source;
+        refreshGUI();
+    }
+
+    @Override
+    public void pointFound(Point point) {
+        if (currentMode == Operation.DELETE) highlightPoints.clear(); // 삭제 대상 하나만 강조
+        highlightPoints.add(point);
+        refreshGUI();
+        if (currentMode != Operation.DELETE) step();
+    }
+
+    // 시각화용 패널
+    @SuppressWarnings("serial")
+    private class DrawPanel extends JPanel {
+
+        private int screenX(double x) {
+            return (int)(x * SCALE + 50);
+        }
+
+        private int screenY(double y) {
+            return getHeight() - (int)(y * SCALE + 50);
+        }
+
+        private void drawRectOutline(Graphics g, Rectangle r) {
+            int x = screenX(r.getLeftTop().getX());
+            int y = screenY(r.getRightBottom().getY());
+            int w = (int)((r.getRightBottom().getX() - r.getLeftTop().getX()) * SCALE);
+            int h = (int)((r.getRightBottom().getY() - r.getLeftTop().getY()) * SCALE);
+            g.drawRect(x, y, w, h);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setStroke(new BasicStroke(1.5f));
+            g.setFont(new Font("Arial", Font.PLAIN, 7)); // 좌표용 작은 글씨
+
+            // 배경
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, getWidth(), getHeight());
+
+            // 좌표축 (왼쪽/아래 여백 50 px)
+            g.setColor(Color.DARK_GRAY);
+            g.drawLine(50, getHeight() - 50, getWidth() - 50, getHeight() - 50); // X축
+            g.drawLine(50, getHeight() - 50, 50, 50); // Y축
+
+            // 모든 MBR(회색 윤곽)
+            g.setColor(new Color(150, 150, 150, 120));
+            for (Rectangle r : allMBR) {
+                drawRectOutline(g, r);
+
+                // MBR 번호 표시 (왼쪽 상단에)
+                Integer id = rectToId.get(r);
+                if (id != null) {
+                    g.setColor(Color.BLACK);
+                    g.drawString("N" + id, screenX(r.getLeftTop().getX()) + 3,
+                            screenY(r.getRightBottom().getY()) + 12); // 좌상단 근처에 출력
+                    g.setColor(new Color(150, 150, 150, 120)); // 색 원복
+                }
+            }
+
+            // 일반 점 (파란색)
+            g.setColor(Color.BLUE);
+            for (Point p : allPoints) {
+                int x = screenX(p.getX());
+                int y = screenY(p.getY());
+                g.fillOval(x - 3, y - 3, 6, 6);
+                g.drawString("(" + (int)p.getX() + "," + (int)p.getY() + ")", x + 5, y - 5);
+            }
+
+            // 강조 점 (빨간색) - 탐색 결과, 삭제 대상, KNN 결과 등
+            g.setColor(Color.RED);
+            for (Point p : highlightPoints) {
+                g.fillOval(screenX(p.getX()) - 6, screenY(p.getY()) - 6, 12, 12);
+            }
+
+            // KNN 기준점 (초록색)
+            if (knnSource != null) {
+                g.setColor(Color.GREEN);
+                g.fillOval(screenX(knnSource.getX()) - 6, screenY(knnSource.getY()) - 6, 12, 12);
+            }
+
+            // 강조 사각형 (빨간 반투명) - 현재 탐색/삽입 경로 노드 등
+            if (highlightRect != null) {
+                g.setColor(new Color(255, 0, 0, 80));
+                int x = screenX(highlightRect.getLeftTop().getX());
+                int y = screenY(highlightRect.getRightBottom().getY());
+                int w = (int)((highlightRect.getRightBottom().getX() - highlightRect.getLeftTop().getX()) * SCALE);
+                int h = (int)((highlightRect.getRightBottom().getY() - highlightRect.getLeftTop().getY()) * SCALE);
+                g.fillRect(x, y, w, h);
+            }
+
+            // 1) 가지치기된 MBR (빨간 테두리)
+            if (searchPrunedRect != null) {
+                g2.setColor(new Color(220, 0, 0)); // 빨간색
+                g2.setStroke(new BasicStroke(3f)); // 굵은 테두리
+                drawRectOutline(g2, searchPrunedRect);
+                g2.setStroke(new BasicStroke(1.5f));
+            }
+
+            // 2) 교차한 MBR (초록 테두리)
+            if (searchHitRect != null) {
+                g2.setColor(new Color(0, 170, 0)); // 초록색
+                g2.setStroke(new BasicStroke(3f));
+                drawRectOutline(g2, searchHitRect);
+                g2.setStroke(new BasicStroke(1.5f));
+            }
+
+            // 검색 범위는 탐색 내내 연녹색 굵은 테두리로 표시
+            if (searchArea != null) {
+                g2.setStroke(new BasicStroke(3.0f));    // 테두리 굵기
+                g2.setColor(Color.GREEN.darker());      // 테두리 색
+                drawRectOutline(g2, searchArea);
+                g2.setStroke(new BasicStroke(1.5f)); // 끝나면 기본 굵기로 되돌리기
+            }
+        }
+    }
+}
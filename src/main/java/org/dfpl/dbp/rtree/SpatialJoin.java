@@ -0,0 +1,259 @@
+package org.dfpl.dbp.rtree;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * 두 RTreeImpl 사이의 공간 조인 (두 트리를 함께 내려가는 synchronized traversal)
+ * - withinDistance: 거리 d 이내인 모든 (a, b) 쌍
+ *      * 노드 쌍 (A, B)에서 MBR 사이 최소거리가 d보다 크면 그 아래의 모든 쌍을 가지치기
+ *      * 레벨이 같으면 자식 쌍을, 다르면 높은 쪽 노드만 펼쳐서 내려감 → 두 리프가 만나면 점 쌍 비교
+ * - nearest(kNN 조인): 왼쪽의 점마다 오른쪽에서 가장 가까운 k개
+ *      * 왼쪽 리프 하나를 묶음으로 오른쪽 트리를 best-first로 한 번 탐색 (리프 MBR까지의 MINDIST 순)
+ *      * 묶음의 가지치기 기준 = 리프 안 점들의 k번째 후보 거리 중 최댓값
+ *      * 점별 결과는 가까운 순, 동점은 DFS 순서 → right.nearest(a, k)와 같음
+ * - 결과는 모으지 않고 PairConsumer로 바로 흘려보냄. 자기 자신과 조인하면 (a, a) 쌍과 양방향 쌍이 모두 나옴
+ * - 병렬 모드(ForkJoinPool): 위쪽 노드 쌍(withinDistance)/왼쪽 리프(nearest)를 task로 나눔, consumer는 thread-safe해야 함
+ * - listener 콜백은 부르지 않음. 조인 중에는 두 트리에 add/delete를 하면 안 됨
+ */
+public final class SpatialJoin {
+
+    private SpatialJoin() {
+    }
+
+    // 두 사각형 사이의 최소거리 (겹치면 0)
+    private static double distance(double aMinX, double aMinY, double aMaxX, double aMaxY,
+                                   double bMinX, double bMinY, double bMaxX, double bMaxY) {
+        double dx = Math.max(0, Math.max(aMinX - bMaxX, bMinX - aMaxX));
+        double dy = Math.max(0, Math.max(aMinY - bMaxY, bMinY - aMaxY));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static double distance(RTreeImpl.Node a, RTreeImpl.Node b) {
+        return distance(a.minX, a.minY, a.maxX, a.maxY, b.minX, b.minY, b.maxX, b.maxY);
+    }
+
+    /*-----------------Within distance----------------*/
+    /**
+     * left의 점 a와 right의 점 b 사이 거리가 distance 이하인 모든 쌍을 out으로 넘김 (순서는 정해지지 않음)
+     *
+     * @param distance 최대 거리 (경계 포함)
+     */
+    public static void withinDistance(RTreeImpl left, RTreeImpl right, double distance, PairConsumer out) {
+        joinNodes(left.root(), right.root(), distance, out);
+    }
+
+    /**
+     * withinDistance의 병렬 버전. out은 여러 스레드에서 동시에 불림
+     */
+    public static void withinDistance(RTreeImpl left, RTreeImpl right, double distance, PairConsumer out,
+                                      ForkJoinPool pool) {
+        int forkLevel = ParallelQueries.forkLevel(Math.min(left.getMinEntries(), right.getMinEntries()));
+        pool.invoke(new JoinTask(left.root(), right.root(), distance, out, forkLevel));
+    }
+
+    private static void joinNodes(RTreeImpl.Node a, RTreeImpl.Node b, double d, PairConsumer out) {
+        if (a.size == 0 || b.size == 0 || distance(a, b) > d) return;
+        if (a.isLeaf && b.isLeaf) {
+            joinLeaves(a, b, d, out);
+        } else if (!a.isLeaf && !b.isLeaf && a.level == b.level) {
+            for (int i = 0; i < a.size; i++) {
+                RTreeImpl.Node ca = a.children[i];
+                for (int j = 0; j < b.size; j++) {
+                    if (distance(a.minXs[i], a.minYs[i], a.maxXs[i], a.maxYs[i],
+                            b.minXs[j], b.minYs[j], b.maxXs[j], b.maxYs[j]) <= d)
+                        joinNodes(ca, b.children[j], d, out);
+                }
+            }
+        } else if (!a.isLeaf && (b.isLeaf || a.level > b.level)) {
+            for (int i = 0; i < a.size; i++) joinNodes(a.children[i], b, d, out);
+        } else {
+            for (int j = 0; j < b.size; j++) joinNodes(a, b.children[j], d, out);
+        }
+    }
+
+    // 두 리프의 점 쌍 비교. b를 x 범위로 먼저 걸러 sqrt 계산을 줄임
+    private static void joinLeaves(RTreeImpl.Node a, RTreeImpl.Node b, double d, PairConsumer out) {
+        for (int i = 0; i < a.size; i++) {
+            double ax = a.xs[i], ay = a.ys[i];
+            if (ax < b.minX - d || ax > b.maxX + d) continue;
+            for (int j = 0; j < b.size; j++) {
+                double bx = b.xs[j], by = b.ys[j];
+                if (Math.abs(ax - bx) > d) continue;
+                if (RTreeImpl.distance(ax, ay, bx, by) <= d) out.accept(ax, ay, bx, by);
+            }
+        }
+    }
+
+    // 두 노드 중 높은 쪽이 forkLevel 이상이면 펼친 노드 쌍마다 task, 아니면 순차 조인
+    @SuppressWarnings("serial")
+    private static final class JoinTask extends RecursiveAction {
+        private final RTreeImpl.Node a, b;
+        private final double d;
+        private final PairConsumer out;
+        private final int forkLevel;
+
+        JoinTask(RTreeImpl.Node a, RTreeImpl.Node b, double d, PairConsumer out, int forkLevel) {
+            this.a = a;
+            this.b = b;
+            this.d = d;
+            this.out = out;
+            this.forkLevel = forkLevel;
+        }
+
+        @Override
+        protected void compute() {
+            if (Math.max(a.level, b.level) < forkLevel || (a.isLeaf && b.isLeaf)) {
+                joinNodes(a, b, d, out);
+                return;
+            }
+            if (a.size == 0 || b.size == 0 || distance(a, b) > d) return;
+            List<JoinTask> tasks = new ArrayList<>();
+            if (!a.isLeaf && !b.isLeaf && a.level == b.level) {
+                for (int i = 0; i < a.size; i++)
+                    for (int j = 0; j < b.size; j++)
+                        if (distance(a.children[i], b.children[j]) <= d)
+                            tasks.add(new JoinTask(a.children[i], b.children[j], d, out, forkLevel));
+            } else if (!a.isLeaf && (b.isLeaf || a.level > b.level)) {
+                for (int i = 0; i < a.size; i++) tasks.add(new JoinTask(a.children[i], b, d, out, forkLevel));
+            } else {
+                for (int j = 0; j < b.size; j++) tasks.add(new JoinTask(a, b.children[j], d, out, forkLevel));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /*-----------------kNN join----------------*/
+    /**
+     * left의 점 a마다 right에서 가까운 최대 k개의 점 b를 (a, b) 쌍으로 넘김.
+     * 같은 a의 쌍은 연속으로, 가까운 순서대로 나옴 (right.nearest(a, k)와 같은 순서)
+     *
+     * @param k 점마다 찾을 이웃 수
+     */
+    public static void nearest(RTreeImpl left, RTreeImpl right, int k, PairConsumer out) {
+        if (k <= 0) return;
+        List<RTreeImpl.Node> leaves = new ArrayList<>();
+        collectLeaves(left.root(), leaves);
+        for (RTreeImpl.Node leaf : leaves) nearestForLeaf(leaf, right.root(), k, out);
+    }
+
+    /**
+     * nearest의 병렬 버전 (왼쪽 리프 단위로 나눔). out은 여러 스레드에서 동시에 불림.
+     * 같은 a의 쌍은 한 스레드에서 연속으로 나옴
+     */
+    public static void nearest(RTreeImpl left, RTreeImpl right, int k, PairConsumer out, ForkJoinPool pool) {
+        if (k <= 0) return;
+        List<RTreeImpl.Node> leaves = new ArrayList<>();
+        collectLeaves(left.root(), leaves);
+        pool.invoke(new NearestTask(leaves, 0, leaves.size(), right.root(), k, out));
+    }
+
+    private static void collectLeaves(RTreeImpl.Node n, List<RTreeImpl.Node> out) {
+        if (n.isLeaf) {
+            if (n.size > 0) out.add(n);
+            return;
+        }
+        for (int i = 0; i < n.size; i++) collectLeaves(n.children[i], out);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class NearestTask extends RecursiveAction {
+        private static final int LEAVES_PER_TASK = 16;
+
+        private final List<RTreeImpl.Node> leaves;
+        private final int from, to;
+        private final RTreeImpl.Node right;
+        private final int k;
+        private final PairConsumer out;
+
+        NearestTask(List<RTreeImpl.Node> leaves, int from, int to, RTreeImpl.Node right, int k, PairConsumer out) {
+            this.leaves = leaves;
+            this.from = from;
+            this.to = to;
+            this.right = right;
+            this.k = k;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAVES_PER_TASK) {
+                for (int i = from; i < to; i++) nearestForLeaf(leaves.get(i), right, k, out);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new NearestTask(leaves, from, mid, right, k, out), new NearestTask(leaves, mid, to, right, k, out));
+        }
+    }
+
+    // 오른쪽 트리의 노드(탐색 큐 원소) 또는 점(후보)
+    private static final class Entry {
+        final double dist;
+        final RTreeImpl.Node node;
+        final int[] path;   // 루트에서 node까지의 자식 인덱스 (동점 시 DFS 순서)
+        final int index;    // 후보 점이면 리프 내 인덱스, 노드면 -1
+
+        Entry(double dist, RTreeImpl.Node node, int[] path, int index) {
+            this.dist = dist;
+            this.node = node;
+            this.path = path;
+            this.index = index;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = (a, b) -> {
+        int c = Double.compare(a.dist, b.dist);
+        if (c != 0) return c;
+        c = Arrays.compare(a.path, b.path);
+        return c != 0 ? c : Integer.compare(a.index, b.index);
+    };
+
+    private static void nearestForLeaf(RTreeImpl.Node leaf, RTreeImpl.Node right, int k, PairConsumer out) {
+        int n = leaf.size;
+        List<PriorityQueue<Entry>> best = new ArrayList<>(n); // 점마다 상위 k개 후보 (최대 힙)
+        int capacity = Math.max(1, Math.min(k, right.count)); // k는 오른쪽 점 수보다 클 수 있음
+        for (int i = 0; i < n; i++) best.add(new PriorityQueue<>(capacity, ORDER.reversed()));
+        double bound = Double.POSITIVE_INFINITY; // 리프 안 점들의 k번째 거리 중 최댓값
+
+        PriorityQueue<Entry> queue = new PriorityQueue<>(ORDER);
+        if (right.size > 0) queue.add(new Entry(distance(leaf, right), right, new int[0], -1));
+        while (!queue.isEmpty()) {
+            Entry e = queue.poll();
+            if (e.dist > bound) break; // 남은 노드는 모두 기준보다 멂
+            RTreeImpl.Node r = e.node;
+            if (r.isLeaf) {
+                for (int i = 0; i < n; i++) {
+                    PriorityQueue<Entry> heap = best.get(i);
+                    double ax = leaf.xs[i], ay = leaf.ys[i];
+                    for (int j = 0; j < r.size; j++) {
+                        Entry c = new Entry(RTreeImpl.distance(ax, ay, r.xs[j], r.ys[j]), r, e.path, j);
+                        if (heap.size() == k) {
+                            if (ORDER.compare(c, heap.peek()) >= 0) continue;
+                            heap.poll();
+                        }
+                        heap.add(c);
+                    }
+                }
+                bound = 0;
+                for (PriorityQueue<Entry> heap : best)
+                    bound = Math.max(bound, heap.size() < k ? Double.POSITIVE_INFINITY : heap.peek().dist);
+            } else {
+                for (int j = 0; j < r.size; j++) {
+                    double d = distance(leaf.minX, leaf.minY, leaf.maxX, leaf.maxY,
+                            r.minXs[j], r.minYs[j], r.maxXs[j], r.maxYs[j]);
+                    if (d > bound) continue;
+                    int[] path = Arrays.copyOf(e.path, e.path.length + 1);
+                    path[e.path.length] = j;
+                    queue.add(new Entry(d, r.children[j], path, -1));
+                }
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            Entry[] result = best.get(i).toArray(new Entry[0]);
+            Arrays.sort(result, ORDER);
+            for (Entry c : result) out.accept(leaf.xs[i], leaf.ys[i], c.node.xs[c.index], c.node.ys[c.index]);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.dfpl.dbp.rtree;
+
+/**
+ * 탐색 중에 평가되는 기하 조건 (원, 다각형, 반평면, 사각형 및 그 조합).
+ *
+ * - mayIntersect: 노드 단위 검사. false면 그 MBR 아래의 어떤 점도 matches를 만족하지 않음 → 서브트리 가지치기
+ *   (true는 "겹칠 수도 있음"이어도 됨. 다만 false는 항상 정확해야 함)
+ * - matches: 점 단위 검사 (경계 포함)
+ * - 바운딩 박스로 먼저 찾고 나중에 거르는 대신, 실제 모양으로 탐색 중에 가지치기한다.
+ */
+public interface SpatialPredicate {
+
+	/**
+	 * MBR [minX, maxX] x [minY, maxY] 안에 조건을 만족하는 점이 있을 수 있는지
+	 *
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @return 없다고 확실하면 false
+	 */
+	boolean mayIntersect(double minX, double minY, double maxX, double maxY);
+
+	/**
+	 * 점 (x, y)가 조건을 만족하는지
+	 *
+	 * @param x
+	 * @param y
+	 */
+	boolean matches(double x, double y);
+
+	/**
+	 * 두 조건을 모두 만족 (예: 사각형 안이면서 다각형 안)
+	 *
+	 * @param other
+	 */
+	default SpatialPredicate and(SpatialPredicate other) {
+		SpatialPredicate self = this;
+		return new SpatialPredicate() {
+			@Override
+			public boolean mayIntersect(double minX, double minY, double maxX, double maxY) {
+				return self.mayIntersect(minX, minY, maxX, maxY) && other.mayIntersect(minX, minY, maxX, maxY);
+			}
+
+			@Override
+			public boolean matches(double x, double y) {
+				return self.matches(x, y) && other.matches(x, y);
+			}
+		};
+	}
+
+	/**
+	 * 축 정렬 사각형 (search(Rectangle)과 같은 조건)
+	 */
+	static SpatialPredicate rectangle(double minX, double minY, double maxX, double maxY) {
+		return new SpatialPredicate() {
+			@Override
+			public boolean mayIntersect(double nMinX, double nMinY, double nMaxX, double nMaxY) {
+				return RTreeImpl.intersects(nMinX, nMinY, nMaxX, nMaxY, minX, minY, maxX, maxY);
+			}
+
+			@Override
+			public boolean matches(double x, double y) {
+				return RTreeImpl.contains(minX, minY, maxX, maxY, x, y);
+			}
+		};
+	}
+
+	/**
+	 * 중심 (cx, cy)에서 거리 radius 이하 (nearestWithin과 같은 거리 계산)
+	 */
+	static SpatialPredicate circle(double cx, double cy, double radius) {
+		return new SpatialPredicate() {
+			@Override
+			public boolean mayIntersect(double minX, double minY, double maxX, double maxY) {
+				return RTreeImpl.minDist(minX, minY, maxX, maxY, cx, cy) <= radius;
+			}
+
+			@Override
+			public boolean matches(double x, double y) {
+				return RTreeImpl.distance(cx, cy, x, y) <= radius;
+			}
+		};
+	}
+
+	/**
+	 * 반평면 a * x + b * y <= c
+	 */
+	static SpatialPredicate halfPlane(double a, double b, double c) {
+		return new SpatialPredicate() {
+			@Override
+			public boolean mayIntersect(double minX, double minY, double maxX, double maxY) {
+				// MBR 꼭짓점 중 a * x + b * y가 가장 작은 점
+				return a * (a >= 0 ? minX : maxX) + b * (b >= 0 ? minY : maxY) <= c;
+			}
+
+			@Override
+			public boolean matches(double x, double y) {
+				return a * x + b * y <= c;
+			}
+		};
+	}
+
+	/**
+	 * 단순 다각형 (꼭짓점 순서대로, 볼록하지 않아도 됨. 마지막 꼭짓점은 첫 꼭짓점과 자동으로 이어짐)
+	 *
+	 * @param xs 꼭짓점 x 좌표
+	 * @param ys 꼭짓점 y 좌표
+	 * @throws IllegalArgumentException 꼭짓점이 3개 미만이거나 두 배열 길이가 다를 때
+	 */
+	static SpatialPredicate polygon(double[] xs, double[] ys) {
+		return new Polygon(xs, ys);
+	}
+
+	/**
+	 * 다각형 (even-odd 규칙, 경계 포함)
+	 * - matches: 경계 위인지 먼저 보고, 아니면 ray casting
+	 * - mayIntersect: 바운딩 박스가 겹치고, (MBR 꼭짓점이 다각형 안) 또는 (다각형 꼭짓점이 MBR 안)
+	 *   또는 (다각형의 변이 MBR을 지남) 중 하나면 true
+	 */
+	final class Polygon implements SpatialPredicate {
+		private final double[] xs, ys;
+		private final double minX, minY, maxX, maxY;
+
+		private Polygon(double[] xs, double[] ys) {
+			if (xs.length != ys.length || xs.length < 3)
+				throw new IllegalArgumentException("polygon needs at least 3 vertices with matching coordinates");
+			this.xs = xs.clone();
+			this.ys = ys.clone();
+			double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+			double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < xs.length; i++) {
+				x0 = Math.min(x0, xs[i]);
+				y0 = Math.min(y0, ys[i]);
+				x1 = Math.max(x1, xs[i]);
+				y1 = Math.max(y1, ys[i]);
+			}
+			minX = x0;
+			minY = y0;
+			maxX = x1;
+			maxY = y1;
+		}
+
+		@Override
+		public boolean matches(double x, double y) {
+			if (!RTreeImpl.contains(minX, minY, maxX, maxY, x, y)) return false;
+			boolean inside = false;
+			for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+				if (onSegment(xs[j], ys[j], xs[i], ys[i], x, y)) return true;
+				if ((ys[i] > y) != (ys[j] > y) && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i])
+					inside = !inside;
+			}
+			return inside;
+		}
+
+		@Override
+		public boolean mayIntersect(double nMinX, double nMinY, double nMaxX, double nMaxY) {
+			if (!RTreeImpl.intersects(nMinX, nMinY, nMaxX, nMaxY, minX, minY, maxX, maxY)) return false;
+			// MBR이 다각형 안에 통째로 있거나, 다각형이 MBR 안에 통째로 있는 경우
+			if (matches(nMinX, nMinY) || RTreeImpl.contains(nMinX, nMinY, nMaxX, nMaxY, xs[0], ys[0])) return true;
+			// 그 밖에는 어떤 변이 MBR을 지나야 함
+			for (int i = 0, j = xs.length - 1; i < xs.length; j = i++)
+				if (segmentHits(xs[j], ys[j], xs[i], ys[i], nMinX, nMinY, nMaxX, nMaxY)) return true;
+			return false;
+		}
+
+		private static boolean onSegment(double x0, double y0, double x1, double y1, double x, double y) {
+			return (x1 - x0) * (y - y0) == (y1 - y0) * (x - x0)
+					&& x >= Math.min(x0, x1) && x <= Math.max(x0, x1) && y >= Math.min(y0, y1) && y <= Math.max(y0, y1);
+		}
+
+		// 선분 (x0, y0)-(x1, y1)이 사각형과 만나는지 (Liang-Barsky 클리핑)
+		private static boolean segmentHits(double x0, double y0, double x1, double y1,
+				double minX, double minY, double maxX, double maxY) {
+			double dx = x1 - x0, dy = y1 - y0;
+			double t0 = 0, t1 = 1;
+			// 경계마다 (p, q): 선분 위의 점 P(t)가 그 경계 안쪽이려면 p * t <= q
+			double[] p = { -dx, dx, -dy, dy };
+			double[] q = { x0 - minX, maxX - x0, y0 - minY, maxY - y0 };
+			for (int k = 0; k < 4; k++) {
+				if (p[k] == 0) {
+					if (q[k] < 0) return false; // 경계와 평행하고 바깥
+				} else {
+					double t = q[k] / p[k];
+					if (p[k] < 0) t0 = Math.max(t0, t);
+					else t1 = Math.min(t1, t);
+					if (t0 > t1) return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package org.dfpl.dbp.rtree;
+
+import java.util.Arrays;
+
+/**
+ * 노드 분할 정책. RTreeImpl 생성 시 선택한다.
+ *
+ * - LINEAR    : Guttman linear split. 축별로 가장 멀리 떨어진 두 엔트리를 seed로 잡고 나머지는 면적 증가가 작은 쪽에 배정.
+ * - QUADRATIC : Guttman quadratic split. 함께 묶었을 때 낭비 면적이 가장 큰 쌍을 seed로 잡고,
+ *               두 그룹 간 선호도 차이가 가장 큰 엔트리부터 배정.
+ * - RSTAR     : R*-tree split. 둘레(margin) 합이 최소인 축을 고르고, 그 축의 분배 중 겹침 → 면적이 최소인 것을 선택.
+ *               삽입 중 레벨별 첫 overflow는 분할 대신 강제 재삽입(forced reinsertion)으로 처리한다.
+ *
+ * 분할 알고리즘은 엔트리 MBR 배열만 보고 "어느 엔트리를 새 sibling으로 옮길지"를 돌려준다.
+ * 점 엔트리는 min == max인 퇴화 사각형으로 넘긴다.
+ * Hilbert R-tree는 분할 정책이 아니라 트리 모드다 (RTreeImpl(int, int, HilbertCurve)로 생성, 분할 정책 없음).
+ */
+public enum SplitPolicy {
+
+	LINEAR {
+		@Override
+		boolean[] split(double[] minX, double[] minY, double[] maxX, double[] maxY, int n, int minFill) {
+			int[] seeds = linearPickSeeds(minX, minY, maxX, maxY, n);
+			return distribute(minX, minY, maxX, maxY, n, minFill, seeds[0], seeds[1], false);
+		}
+	},
+
+	QUADRATIC {
+		@Override
+		boolean[] split(double[] minX, double[] minY, double[] maxX, double[] maxY, int n, int minFill) {
+			int[] seeds = quadraticPickSeeds(minX, minY, maxX, maxY, n);
+			return distribute(minX, minY, maxX, maxY, n, minFill, seeds[0], seeds[1], true);
+		}
+	},
+
+	RSTAR {
+		@Override
+		boolean[] split(double[] minX, double[] minY, double[] maxX, double[] maxY, int n, int minFill) {
+			return rstarSplit(minX, minY, maxX, maxY, n, minFill);
+		}
+
+		@Override
+		boolean forcedReinsert() {
+			return true;
+		}
+	};
+
+	/**
+	 * n개의 엔트리를 두 그룹으로 나눈다. 두 그룹 모두 minFill개 이상이 되도록 한다.
+	 *
+	 * @return result[i]가 true면 i번째 엔트리를 새 sibling으로 옮김
+	 */
+	abstract boolean[] split(double[] minX, double[] minY, double[] maxX, double[] maxY, int n, int minFill);
+
+	/**
+	 * 레벨별 첫 overflow를 분할 대신 재삽입으로 처리하는지 (R*)
+	 */
+	boolean forcedReinsert() {
+		return false;
+	}
+
+	private static double area(double minX, double minY, double maxX, double maxY) {
+		return (maxX - minX) * (maxY - minY);
+	}
+
+	private static double margin(double minX, double minY, double maxX, double maxY) {
+		return (maxX - minX) + (maxY - minY);
+	}
+
+	/*-----------------Guttman----------------*/
+	// 정규화된 분리도가 가장 큰 축에서, 하한이 가장 큰 엔트리와 상한이 가장 작은 엔트리
+	private static int[] linearPickSeeds(double[] minX, double[] minY, double[] maxX, double[] maxY, int n) {
+		int[] bestX = linearSeedsOnAxis(minX, maxX, n);
+		int[] bestY = linearSeedsOnAxis(minY, maxY, n);
+		double sepX = separation(minX, maxX, n, bestX);
+		double sepY = separation(minY, maxY, n, bestY);
+		return sepX >= sepY ? bestX : bestY;
+	}
+
+	private static int[] linearSeedsOnAxis(double[] lo, double[] hi, int n) {
+		int highestLow = 0, lowestHigh = 0;
+		for (int i = 1; i < n; i++) {
+			if (lo[i] > lo[highestLow]) highestLow = i;
+			if (hi[i] < hi[lowestHigh]) lowestHigh = i;
+		}
+		if (highestLow == lowestHigh) {
+			// 같은 엔트리가 뽑히면 상한이 두 번째로 작은 엔트리로 대체
+			lowestHigh = highestLow == 0 ? 1 : 0;
+			for (int i = 0; i < n; i++)
+				if (i != highestLow && hi[i] < hi[lowestHigh]) lowestHigh = i;
+		}
+		return new int[] { lowestHigh, highestLow };
+	}
+
+	private static double separation(double[] lo, double[] hi, int n, int[] seeds) {
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			min = Math.min(min, lo[i]);
+			max = Math.max(max, hi[i]);
+		}
+		double width = max - min;
+		double sep = lo[seeds[1]] - hi[seeds[0]];
+		return width > 0 ? sep / width : sep;
+	}
+
+	// 함께 묶었을 때 낭비 면적(d = 합친 면적 - 각 면적)이 가장 큰 쌍. 점처럼 면적이 모두 0이면 둘레로 비교
+	private static int[] quadraticPickSeeds(double[] minX, double[] minY, double[] maxX, double[] maxY, int n) {
+		int s1 = 0, s2 = 1;
+		double worst = Double.NEGATIVE_INFINITY, worstMargin = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				double ux1 = Math.min(minX[i], minX[j]), uy1 = Math.min(minY[i], minY[j]);
+				double ux2 = Math.max(maxX[i], maxX[j]), uy2 = Math.max(maxY[i], maxY[j]);
+				double d = area(ux1, uy1, ux2, uy2) - area(minX[i], minY[i], maxX[i], maxY[i])
+						- area(minX[j], minY[j], maxX[j], maxY[j]);
+				double dm = margin(ux1, uy1, ux2, uy2);
+				if (d > worst || (d == worst && dm > worstMargin)) {
+					worst = d;
+					worstMargin = dm;
+					s1 = i;
+					s2 = j;
+				}
+			}
+		}
+		return new int[] { s1, s2 };
+	}
+
+	/**
+	 * seed 두 개에서 시작해 나머지 엔트리를 배정 (Guttman).
+	 * - 한쪽이 남은 엔트리를 모두 받아야 minFill을 채울 수 있으면 전부 그쪽으로
+	 * - quadraticPick이면 두 그룹 간 면적 증가 차이가 가장 큰 엔트리부터, 아니면 입력 순서대로
+	 * - 면적 증가 → 면적 → 둘레 증가 → 엔트리 수 순으로 작은 그룹에 배정
+	 */
+	private static boolean[] distribute(double[] minX, double[] minY, double[] maxX, double[] maxY, int n,
+			int minFill, int seedA, int seedB, boolean quadraticPick) {
+		boolean[] toB = new boolean[n];
+		boolean[] assigned = new boolean[n];
+		assigned[seedA] = assigned[seedB] = true;
+		toB[seedB] = true;
+
+		double[] a = { minX[seedA], minY[seedA], maxX[seedA], maxY[seedA] };
+		double[] b = { minX[seedB], minY[seedB], maxX[seedB], maxY[seedB] };
+		int countA = 1, countB = 1, remaining = n - 2;
+
+		while (remaining > 0) {
+			if (countA + remaining == minFill || countB + remaining == minFill) {
+				boolean rest = countB + remaining == minFill;
+				for (int i = 0; i < n; i++)
+					if (!assigned[i]) {
+						assigned[i] = true;
+						toB[i] = rest;
+					}
+				break;
+			}
+
+			int next = -1;
+			if (quadraticPick) {
+				double bestDiff = -1;
+				for (int i = 0; i < n; i++) {
+					if (assigned[i]) continue;
+					double diff = Math.abs(enlargement(a, minX[i], minY[i], maxX[i], maxY[i])
+							- enlargement(b, minX[i], minY[i], maxX[i], maxY[i]));
+					if (diff > bestDiff) {
+						bestDiff = diff;
+						next = i;
+					}
+				}
+			} else {
+				for (int i = 0; i < n && next < 0; i++)
+					if (!assigned[i]) next = i;
+			}
+
+			boolean goB = prefersB(a, b, countA, countB, minX[next], minY[next], maxX[next], maxY[next]);
+			double[] g = goB ? b : a;
+			g[0] = Math.min(g[0], minX[next]);
+			g[1] = Math.min(g[1], minY[next]);
+			g[2] = Math.max(g[2], maxX[next]);
+			g[3] = Math.max(g[3], maxY[next]);
+			if (goB) countB++;
+			else countA++;
+			assigned[next] = true;
+			toB[next] = goB;
+			remaining--;
+		}
+		return toB;
+	}
+
+	private static boolean prefersB(double[] a, double[] b, int countA, int countB,
+			double x1, double y1, double x2, double y2) {
+		int c = Double.compare(enlargement(a, x1, y1, x2, y2), enlargement(b, x1, y1, x2, y2));
+		if (c == 0) c = Double.compare(area(a[0], a[1], a[2], a[3]), area(b[0], b[1], b[2], b[3]));
+		if (c == 0) c = Double.compare(marginEnlargement(a, x1, y1, x2, y2), marginEnlargement(b, x1, y1, x2, y2));
+		if (c == 0) c = Integer.compare(countA, countB);
+		return c > 0;
+	}
+
+	private static double enlargement(double[] g, double x1, double y1, double x2, double y2) {
+		return area(Math.min(g[0], x1), Math.min(g[1], y1), Math.max(g[2], x2), Math.max(g[3], y2))
+				- area(g[0], g[1], g[2], g[3]);
+	}
+
+	private static double marginEnlargement(double[] g, double x1, double y1, double x2, double y2) {
+		return margin(Math.min(g[0], x1), Math.min(g[1], y1), Math.max(g[2], x2), Math.max(g[3], y2))
+				- margin(g[0], g[1], g[2], g[3]);
+	}
+
+	/*-----------------R*----------------*/
+	/**
+	 * 1) ChooseSplitAxis: 각 축에서 하한/상한 기준 정렬마다 가능한 분배(앞 k개 / 나머지, minFill ≤ k ≤ n-minFill)의
+	 *    둘레 합을 구해, 합이 가장 작은 축을 고름
+	 * 2) ChooseSplitIndex: 고른 축의 분배 중 두 그룹의 겹침 면적 → 면적 합이 가장 작은 것
+	 */
+	private static boolean[] rstarSplit(double[] minX, double[] minY, double[] maxX, double[] maxY, int n,
+			int minFill) {
+		int[][] xOrders = { sortedBy(minX, maxX, n), sortedBy(maxX, minX, n) };
+		int[][] yOrders = { sortedBy(minY, maxY, n), sortedBy(maxY, minY, n) };
+		Bounds prefix = new Bounds(n), suffix = new Bounds(n);
+
+		double marginX = 0, marginY = 0;
+		for (int[] order : xOrders) marginX += marginSum(minX, minY, maxX, maxY, n, minFill, order, prefix, suffix);
+		for (int[] order : yOrders) marginY += marginSum(minX, minY, maxX, maxY, n, minFill, order, prefix, suffix);
+		int[][] orders = marginX <= marginY ? xOrders : yOrders;
+
+		int[] bestOrder = null;
+		int bestK = -1;
+		double bestOverlap = Double.POSITIVE_INFINITY, bestArea = Double.POSITIVE_INFINITY;
+		for (int[] order : orders) {
+			prefix.fill(minX, minY, maxX, maxY, order, n, false);
+			suffix.fill(minX, minY, maxX, maxY, order, n, true);
+			for (int k = minFill; k <= n - minFill; k++) {
+				int a = k - 1, b = k;
+				double ox1 = Math.max(prefix.minX[a], suffix.minX[b]), oy1 = Math.max(prefix.minY[a], suffix.minY[b]);
+				double ox2 = Math.min(prefix.maxX[a], suffix.maxX[b]), oy2 = Math.min(prefix.maxY[a], suffix.maxY[b]);
+				double overlap = ox2 < ox1 || oy2 < oy1 ? 0 : area(ox1, oy1, ox2, oy2);
+				double totalArea = area(prefix.minX[a], prefix.minY[a], prefix.maxX[a], prefix.maxY[a])
+						+ area(suffix.minX[b], suffix.minY[b], suffix.maxX[b], suffix.maxY[b]);
+				if (overlap < bestOverlap || (overlap == bestOverlap && totalArea < bestArea)) {
+					bestOverlap = overlap;
+					bestArea = totalArea;
+					bestOrder = order;
+					bestK = k;
+				}
+			}
+		}
+
+		boolean[] toB = new boolean[n];
+		for (int i = bestK; i < n; i++) toB[bestOrder[i]] = true;
+		return toB;
+	}
+
+	// key 오름차순, 같으면 tieBreak, 그래도 같으면 인덱스 순 (안정 정렬과 같은 결과)
+	private static int[] sortedBy(double[] key, double[] tieBreak, int n) {
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) order[i] = i;
+		IndexSort.sort(order, 0, n, key, tieBreak);
+		return order;
+	}
+
+	private static double marginSum(double[] minX, double[] minY, double[] maxX, double[] maxY, int n, int minFill,
+			int[] order, Bounds prefix, Bounds suffix) {
+		prefix.fill(minX, minY, maxX, maxY, order, n, false);
+		suffix.fill(minX, minY, maxX, maxY, order, n, true);
+		double sum = 0;
+		for (int k = minFill; k <= n - minFill; k++) {
+			sum += margin(prefix.minX[k - 1], prefix.minY[k - 1], prefix.maxX[k - 1], prefix.maxY[k - 1])
+					+ margin(suffix.minX[k], suffix.minY[k], suffix.maxX[k], suffix.maxY[k]);
+		}
+		return sum;
+	}
+
+	// 정렬 순서의 앞/뒤 누적 MBR: fromEnd가 false면 [i] = order[0..i]의 MBR, true면 [i] = order[i..n-1]의 MBR
+	private static final class Bounds {
+		final double[] minX, minY, maxX, maxY;
+
+		Bounds(int n) {
+			minX = new double[n];
+			minY = new double[n];
+			maxX = new double[n];
+			maxY = new double[n];
+		}
+
+		void fill(double[] x1, double[] y1, double[] x2, double[] y2, int[] order, int n, boolean fromEnd) {
+			double a = Double.POSITIVE_INFINITY, b = Double.POSITIVE_INFINITY;
+			double c = Double.NEGATIVE_INFINITY, d = Double.NEGATIVE_INFINITY;
+			for (int s = 0; s < n; s++) {
+				int pos = fromEnd ? n - 1 - s : s;
+				int i = order[pos];
+				a = Math.min(a, x1[i]);
+				b = Math.min(b, y1[i]);
+				c = Math.max(c, x2[i]);
+				d = Math.max(d, y2[i]);
+				minX[pos] = a;
+				minY[pos] = b;
+				maxX[pos] = c;
+				maxY[pos] = d;
+			}
+		}
+	}
+}
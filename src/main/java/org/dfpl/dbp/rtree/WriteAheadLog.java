@@ -0,0 +1,274 @@
+package org.dfpl.dbp.rtree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/*
+ * DurableRTree의 쓰기 로그 (append-only, group commit)
+ * - append: 레코드를 메모리 버퍼에 붙이고 LSN(1부터 1씩 증가하는 레코드 번호)을 돌려줌. 디스크에 쓰지 않음
+ * - sync(lsn): lsn까지 디스크에 fsync될 때까지 기다림
+ *      * fsync 중인 스레드가 없으면 호출한 스레드가 leader가 되어 그때까지 쌓인 버퍼 전체를 한 프레임으로 쓰고 fsync
+ *      * leader가 fsync하는 동안 들어온 레코드는 다음 leader가 한 번에 씀 → 동시에 쓰는 스레드가 많을수록
+ *        fsync 한 번에 묶이는 레코드가 많아짐 (group commit)
+ * - 세그먼트 파일 wal-<첫 LSN 16진수>.log, checkpoint 때 rotate로 새 세그먼트를 시작
+ *
+ * - 프레임 형식 (little endian): int payload 길이, int payload의 CRC32, payload
+ *      * payload = 레코드의 나열. 레코드 = byte op, double 좌표 (ADD/DELETE: x, y / MOVE: fromX, fromY, toX, toY)
+ *      * 기록 도중 죽어 잘린/깨진 마지막 프레임은 복구 시 CRC로 걸러내고 그 자리에서 파일을 잘라냄
+ */
+final class WriteAheadLog implements Closeable {
+
+    static final byte ADD = 1;
+    static final byte DELETE = 2;
+    static final byte MOVE = 3;
+
+    static final String PREFIX = "wal-";
+    static final String SUFFIX = ".log";
+
+    private static final int FRAME_HEADER = 8; // 길이, CRC32
+
+    // 복구 시 레코드를 넘겨받음
+    @FunctionalInterface
+    interface Replayer {
+        void apply(byte op, double[] coords);
+    }
+
+    private final Path dir;
+    private FileChannel channel;
+    private long segmentBytes;      // 현재 세그먼트 크기 (fsync된 프레임 기준)
+
+    private ByteBuffer pending;     // 아직 쓰지 않은 레코드 (this로 보호)
+    private ByteBuffer spare;       // leader가 쓰는 동안 pending과 바꿔 쓰는 버퍼
+    private long appended;          // 마지막으로 append된 LSN
+    private long durable;           // fsync가 끝난 마지막 LSN
+    private boolean flushing;       // leader가 쓰는 중
+    private IOException failure;    // 쓰기 실패 후에는 모든 sync가 실패
+    private long syncs;             // fsync 횟수 (통계)
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * @param lastLsn 복구가 끝난 마지막 LSN (다음 레코드는 lastLsn + 1)
+     * @param resume  이어 쓸 기존 세그먼트 (복구한 마지막 세그먼트), 없으면 null → lastLsn + 1부터 새 세그먼트
+     */
+    WriteAheadLog(Path dir, long lastLsn, Path resume) throws IOException {
+        this.dir = dir;
+        this.appended = this.durable = lastLsn;
+        this.pending = newBuffer(1 << 16);
+        this.spare = newBuffer(1 << 16);
+        openSegment(resume != null ? segmentStart(resume) : lastLsn + 1);
+    }
+
+    static Path segment(Path dir, long start) {
+        return dir.resolve(String.format("%s%016x%s", PREFIX, start, SUFFIX));
+    }
+
+    static long segmentStart(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseUnsignedLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()), 16);
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // start부터 쓰는 세그먼트를 엶. 이미 있으면 끝에 이어 씀
+    private void openSegment(long start) throws IOException {
+        channel = FileChannel.open(segment(dir, start), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segmentBytes = channel.size();
+        channel.position(segmentBytes);
+        syncDirectory(dir); // 새로 만든 파일이면 디렉터리 항목도 남겨야 이후 fsync한 레코드를 찾을 수 있음
+    }
+
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    /**
+     * 디렉터리를 fsync → 그 안에서 만들고/이름을 바꾸고/지운 파일 항목이 디스크에 남음.
+     * Windows는 디렉터리를 열 수 없어 건너뜀 (NTFS가 메타데이터 변경을 저널링)
+     */
+    static void syncDirectory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (!WINDOWS) throw e;
+        }
+    }
+
+    /**
+     * 레코드를 버퍼에 붙임. 호출 순서 = LSN 순서 = 복구 때 다시 적용하는 순서
+     *
+     * @return 이 레코드의 LSN
+     */
+    synchronized long append(byte op, double... coords) {
+        int bytes = 1 + coords.length * Double.BYTES;
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = newBuffer(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        pending.put(op);
+        for (double c : coords) pending.putDouble(c);
+        return ++appended;
+    }
+
+    synchronized long lastLsn() {
+        return appended;
+    }
+
+    synchronized long segmentBytes() {
+        return segmentBytes;
+    }
+
+    synchronized long syncCount() {
+        return syncs;
+    }
+
+    /**
+     * lsn까지의 레코드가 디스크에 기록(fsync)될 때까지 기다림 (group commit)
+     *
+     * @throws UncheckedIOException 로그 쓰기 실패
+     */
+    void sync(long lsn) {
+        while (true) {
+            ByteBuffer batch;
+            long target;
+            synchronized (this) {
+                while (true) {
+                    if (failure != null) throw new UncheckedIOException("write-ahead log failed", failure);
+                    if (durable >= lsn) return;
+                    if (!flushing) break;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new UncheckedIOException(new InterruptedIOException("interrupted during log sync"));
+                    }
+                }
+                // leader: 지금까지 쌓인 레코드를 모두 가져감
+                flushing = true;
+                batch = pending;
+                pending = spare;
+                spare = null;
+                target = appended;
+            }
+
+            IOException error = null;
+            try {
+                writeFrame(batch);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                batch.clear();
+                spare = batch;
+                flushing = false;
+                if (error != null) failure = error;
+                else {
+                    durable = target;
+                    syncs++;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private void writeFrame(ByteBuffer batch) throws IOException {
+        batch.flip();
+        int length = batch.remaining();
+        crc.reset();
+        crc.update(batch.duplicate());
+        ByteBuffer header = newBuffer(FRAME_HEADER);
+        header.putInt(length).putInt((int) crc.getValue()).flip();
+        ByteBuffer[] frame = { header, batch };
+        while (header.hasRemaining() || batch.hasRemaining()) channel.write(frame);
+        channel.force(false);
+        synchronized (this) {
+            segmentBytes += FRAME_HEADER + length;
+        }
+    }
+
+    /**
+     * 지금까지의 레코드를 모두 fsync하고 다음 LSN부터 새 세그먼트에 씀 (checkpoint용).
+     * 호출하는 동안 append가 없어야 함 (DurableRTree가 쓰기 lock을 잡고 호출)
+     *
+     * @return 이전 세그먼트까지의 마지막 LSN
+     */
+    long rotate() throws IOException {
+        long last = lastLsn();
+        sync(last);
+        synchronized (this) {
+            channel.close();
+            openSegment(last + 1);
+        }
+        return last;
+    }
+
+    /**
+     * 세그먼트 하나를 처음부터 다시 읽어 afterLsn보다 큰 레코드를 replayer로 넘김.
+     * 잘린/깨진 프레임을 만나면 그 앞까지만 적용하고 파일을 그 위치로 잘라냄.
+     *
+     * @return 이 세그먼트의 마지막 LSN (레코드가 없으면 첫 LSN - 1)
+     */
+    static long replay(Path file, long afterLsn, Replayer replayer) throws IOException {
+        long lsn = segmentStart(file) - 1;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size(), position = 0;
+            ByteBuffer header = newBuffer(FRAME_HEADER);
+            CRC32 check = new CRC32();
+            double[][] coords = { new double[2], new double[4] };
+            while (position + FRAME_HEADER <= size) {
+                header.clear();
+                readFully(in, header, position);
+                int length = header.getInt(0);
+                if (length < 0 || position + FRAME_HEADER + length > size) break;
+                ByteBuffer payload = newBuffer(length);
+                readFully(in, payload, position + FRAME_HEADER);
+                payload.flip();
+                check.reset();
+                check.update(payload.duplicate());
+                if ((int) check.getValue() != header.getInt(4)) break;
+
+                while (payload.hasRemaining()) {
+                    byte op = payload.get();
+                    double[] c = coords[op == MOVE ? 1 : 0];
+                    for (int i = 0; i < c.length; i++) c[i] = payload.getDouble();
+                    if (++lsn > afterLsn) replayer.apply(op, c);
+                }
+                position += FRAME_HEADER + length;
+            }
+            if (position < size) {
+                in.truncate(position);
+                in.force(true);
+            }
+        }
+        return lsn;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position + buffer.position());
+            if (read < 0) throw new IOException("unexpected end of log");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync(lastLsn());
+        } finally {
+            synchronized (this) {
+                channel.close();
+            }
+        }
+    }
+}
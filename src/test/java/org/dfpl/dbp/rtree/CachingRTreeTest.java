@@ -0,0 +1,139 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CachingRTree: 갱신이 섞여도 캐시된 결과가 캐시 없는 트리와 항상 같고, 영향 받는 결과만 버리는지 검증
+ */
+public class CachingRTreeTest {
+
+    private static List<Point> toList(Iterator<Point> it) {
+        List<Point> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static Point random(Random random) {
+        return new Point(random.nextInt(1000), random.nextInt(1000));
+    }
+
+    @Test
+    public void cachedResultsMatchUncachedTreeUnderUpdates() {
+        Random random = new Random(4);
+        RTreeImpl plain = new RTreeImpl(16, 6, SplitPolicy.RSTAR);
+        CachingRTree cached = new CachingRTree(new RTreeImpl(16, 6, SplitPolicy.RSTAR), 32);
+        List<Point> live = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Point p = random(random);
+            plain.add(p);
+            cached.add(p);
+            live.add(p);
+        }
+
+        // 대시보드처럼 같은 질의 40개를 반복 (capacity 32 → eviction도 일어남)
+        List<Rectangle> ranges = new ArrayList<>();
+        List<Point> sources = new ArrayList<>();
+        for (int q = 0; q < 20; q++) {
+            double x = random.nextInt(900), y = random.nextInt(900), w = 10 + random.nextInt(90);
+            ranges.add(new Rectangle(new Point(x, y), new Point(x + w, y + w)));
+            sources.add(new Point(random.nextDouble() * 1000, random.nextDouble() * 1000));
+        }
+        for (int step = 0; step < 20000; step++) {
+            int op = random.nextInt(100);
+            if (op < 45) {
+                Rectangle r = ranges.get(random.nextInt(ranges.size()));
+                assertEquals(new HashSet<>(toList(plain.search(r))), new HashSet<>(toList(cached.search(r))));
+            } else if (op < 90) {
+                Point source = sources.get(random.nextInt(sources.size()));
+                List<Point> expected = toList(plain.nearest(source, 10));
+                List<Point> actual = toList(cached.nearest(source, 10));
+                assertEquals(expected.size(), actual.size());
+                for (int k = 0; k < expected.size(); k++)
+                    assertEquals(source.distance(expected.get(k)), source.distance(actual.get(k)));
+            } else if (op < 95) {
+                Point p = random(random);
+                plain.add(p);
+                cached.add(p);
+                live.add(p);
+            } else if (op < 98) {
+                Point p = live.remove(random.nextInt(live.size()));
+                plain.delete(p);
+                cached.delete(p);
+            } else {
+                int k = random.nextInt(live.size());
+                Point to = random(random);
+                assertEquals(plain.move(live.get(k), to), cached.move(live.get(k), to));
+                live.set(k, to);
+            }
+        }
+
+        long updates = 20000 / 10; // 약 10%가 갱신
+        assertEquals(18000, cached.getHitCount() + cached.getMissCount(), 400);
+        assertTrue(cached.getHitRate() > 0.5, "hit rate " + cached.getHitRate());
+        assertTrue(cached.getEvictionCount() > 0);
+        // 갱신마다 전부 비웠다면 invalidation은 갱신 수 × 캐시 크기 정도
+        assertTrue(cached.getInvalidationCount() < updates * 32 / 10, "invalidations " + cached.getInvalidationCount());
+        assertTrue(cached.getCachedCount() <= 32);
+    }
+
+    @Test
+    public void onlyAffectedResultsAreInvalidated() {
+        RTreeImpl tree = new RTreeImpl();
+        for (int x = 0; x < 100; x += 10)
+            for (int y = 0; y < 100; y += 10) tree.add(new Point(x, y));
+        CachingRTree cached = new CachingRTree(tree, 10);
+
+        Rectangle left = new Rectangle(new Point(0, 0), new Point(30, 90));
+        Rectangle right = new Rectangle(new Point(60, 0), new Point(90, 90));
+        Point corner = new Point(0, 0);
+        assertEquals(40, toList(cached.search(left)).size());
+        toList(cached.search(right));
+        toList(cached.nearest(corner, 3)); // (0,0), (10,0), (0,10) → 반지름 10
+        toList(cached.nearest(new Point(50, 50), 1000)); // 점이 모자람 → 어떤 갱신에도 영향
+        assertEquals(4, cached.getMissCount());
+        assertEquals(4, cached.getCachedCount());
+
+        cached.add(new Point(75, 75)); // right, 모자란 KNN
+        assertEquals(2, cached.getInvalidationCount());
+        assertEquals(2, cached.getCachedCount());
+        cached.add(new Point(75, 75)); // 이미 있는 점 → 트리가 안 바뀜
+        cached.delete(new Point(55, 55)); // 없는 점
+        cached.add(new Point(9, 9)); // left만 무효. 모서리 KNN은 정사각형 안이지만 원 밖 (거리 12.7 > 10)
+        assertEquals(3, cached.getInvalidationCount());
+        toList(cached.nearest(corner, 3));
+        assertEquals(1, cached.getHitCount());
+        cached.add(new Point(5, 5)); // 원 안 → KNN 무효
+        assertEquals(4, cached.getInvalidationCount());
+        assertEquals(0, cached.getCachedCount());
+
+        // 버린 뒤 다시 계산한 결과는 갱신을 반영
+        assertEquals(42, toList(cached.search(left)).size());
+        assertTrue(toList(cached.nearest(corner, 3)).contains(new Point(5, 5)));
+        cached.invalidateAll();
+        assertEquals(0, cached.getCachedCount());
+    }
+
+    @Test
+    public void callersCannotCorruptCachedResults() {
+        RTreeImpl tree = new RTreeImpl();
+        for (int x = 0; x < 100; x += 10) tree.add(new Point(x, x));
+        CachingRTree cached = new CachingRTree(tree, 10);
+        Rectangle r = new Rectangle(new Point(0, 0), new Point(30, 30));
+        Point source = new Point(0, 0);
+
+        // 실패(miss)와 적중(hit)으로 받은 점을 고쳐도 다음 적중 결과는 그대로
+        for (int round = 0; round < 2; round++) {
+            for (Point p : toList(cached.search(r))) p.setX(-1);
+            for (Point p : toList(cached.nearest(source, 2))) p.setY(-1);
+        }
+        assertEquals(2, cached.getHitCount());
+        assertEquals(Set.of(new Point(0, 0), new Point(10, 10), new Point(20, 20), new Point(30, 30)),
+                new HashSet<>(toList(cached.search(r))));
+        assertEquals(List.of(new Point(0, 0), new Point(10, 10)), toList(cached.nearest(source, 2)));
+        assertEquals(4, cached.getHitCount());
+    }
+}
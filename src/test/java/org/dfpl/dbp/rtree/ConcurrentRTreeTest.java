@@ -0,0 +1,100 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ConcurrentRTree: 스냅샷 격리와 동시 읽기/쓰기 정확성 검증
+ */
+public class ConcurrentRTreeTest {
+
+    private static final Rectangle EVERYTHING = new Rectangle(new Point(-1, -1), new Point(1001, 1001));
+
+    private static List<Point> toList(Iterator<Point> it) {
+        List<Point> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static void collect(RTreeImpl.Node n, List<Point> out) {
+        for (int i = 0; i < n.size(); i++) {
+            if (n.isLeaf()) out.add(n.getPoint(i));
+            else collect(n.getChild(i), out);
+        }
+    }
+
+    @Test
+    public void iteratorSeesSnapshot() {
+        List<Point> points = SplitPolicyTest.uniform(new Random(1), 3000);
+        ConcurrentRTree tree = new ConcurrentRTree(RTreeImpl.bulkLoad(points, 16, 6, SplitPolicy.RSTAR));
+        RTreeImpl.Node before = tree.snapshot();
+        List<Point> expected = toList(tree.search(EVERYTHING));
+
+        // 순회 도중 절반을 지우고 새 점을 넣어도 순회는 시작 시점의 트리를 봄
+        Iterator<Point> it = tree.search(EVERYTHING);
+        List<Point> seen = new ArrayList<>();
+        for (int i = 0; i < 100; i++) seen.add(it.next());
+        points.subList(0, 1000).forEach(tree::delete);
+        tree.deleteAll(points.subList(1000, 1500));
+        SplitPolicyTest.uniform(new Random(2), 500).forEach(tree::add);
+        tree.addAll(SplitPolicyTest.uniform(new Random(4), 500));
+        it.forEachRemaining(seen::add);
+        assertEquals(expected, seen);
+
+        // 이전 스냅샷의 노드는 그대로이고(parent 포인터는 최신 트리를 가리킴), 새 트리도 올바름
+        List<Point> snapshotPoints = new ArrayList<>();
+        collect(before, snapshotPoints);
+        assertEquals(expected, snapshotPoints);
+        SplitPolicyTest.checkNode(tree.snapshot(), true, 6, 16);
+        assertEquals(2500, toList(tree.search(EVERYTHING)).size());
+    }
+
+    @Test
+    public void readersSeeConsistentPrefixesWhileWriting() throws Exception {
+        List<Point> points = SplitPolicyTest.uniform(new Random(3), 20000);
+        ConcurrentRTree tree = new ConcurrentRTree(8, 3, SplitPolicy.RSTAR);
+        Map<Point, Integer> order = new HashMap<>();
+        for (int i = 0; i < points.size(); i++) order.put(points.get(i), i);
+
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(pool.submit(() -> {
+                    int checks = 0;
+                    while (!done.get() || checks == 0) {
+                        // 쓰기는 한 스레드가 순서대로 하므로, 어떤 스냅샷이든 앞에서부터 j개의 점이어야 함
+                        List<Point> found = toList(tree.search(EVERYTHING));
+                        BitSet ids = new BitSet();
+                        for (Point p : found) ids.set(order.get(p));
+                        assertEquals(found.size(), ids.cardinality());
+                        assertEquals(found.size(), ids.nextClearBit(0));
+                        checks++;
+                    }
+                    return checks;
+                }));
+            }
+            Future<?> writer = pool.submit(() -> {
+                points.forEach(tree::add);
+                done.set(true);
+            });
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        SplitPolicyTest.checkNode(tree.snapshot(), true, 3, 8);
+        assertEquals(new HashSet<>(points), new HashSet<>(toList(tree.search(EVERYTHING))));
+        Point source = new Point(500, 500);
+        List<Point> all = new ArrayList<>(points);
+        all.sort(Comparator.comparingDouble(source::distance));
+        assertEquals(all.subList(0, 10), toList(tree.nearest(source, 10)));
+    }
+}
@@ -0,0 +1,182 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * DurableRTree: checkpoint + 로그 재적용으로 복구한 트리가 종료 직전 상태와 같은지 검증
+ * (close 없이 다시 여는 것 = 프로세스가 죽은 뒤의 재시작)
+ */
+public class DurableRTreeTest {
+
+    private static final Rectangle EVERYTHING = new Rectangle(new Point(-1, -1), new Point(1001, 1001));
+
+    @TempDir
+    Path dir;
+
+    private static Set<Point> contents(RTree tree) {
+        Set<Point> set = new HashSet<>();
+        tree.search(EVERYTHING).forEachRemaining(set::add);
+        return set;
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    private static Point random(Random random) {
+        return new Point(random.nextInt(1000), random.nextInt(1000));
+    }
+
+    // 무작위 add/delete/move를 durable과 기준 트리에 똑같이 적용
+    private static void mutate(Random random, DurableRTree durable, RTreeImpl expected, List<Point> live, int ops) {
+        for (int i = 0; i < ops; i++) {
+            int op = random.nextInt(10);
+            if (op < 6 || live.isEmpty()) {
+                Point p = random(random);
+                durable.add(p);
+                expected.add(p);
+                live.add(p);
+            } else if (op < 8) {
+                Point p = live.remove(random.nextInt(live.size()));
+                durable.delete(p);
+                expected.delete(p);
+            } else {
+                int k = random.nextInt(live.size());
+                Point from = live.get(k), to = random(random);
+                assertEquals(expected.move(from, to), durable.move(from, to));
+                live.set(k, to);
+            }
+        }
+    }
+
+    @Test
+    public void recoversCheckpointAndLogTail() throws IOException {
+        Random random = new Random(1);
+        RTreeImpl expected = new RTreeImpl(8, 3, SplitPolicy.RSTAR);
+        List<Point> live = new ArrayList<>();
+
+        DurableRTree durable = DurableRTree.open(dir, 8, 3, SplitPolicy.RSTAR, 0);
+        mutate(random, durable, expected, live, 3000);
+        durable.checkpoint();
+        assertEquals(1, files(DurableRTree.CHECKPOINT_PREFIX).size());
+        mutate(random, durable, expected, live, 500);
+        List<Point> batch = new ArrayList<>();
+        for (int i = 0; i < 200; i++) batch.add(random(random));
+        durable.addAll(batch);
+        expected.addAll(batch);
+        long lastLsn = durable.getLastLsn();
+
+        // close 없이 다시 엶
+        DurableRTree recovered = DurableRTree.open(dir, 4, 2, SplitPolicy.LINEAR, 0);
+        assertEquals(8, recovered.getMaxEntries());
+        assertEquals(SplitPolicy.RSTAR, recovered.getSplitPolicy());
+        assertEquals(700, recovered.getRecoveredRecords());
+        assertEquals(lastLsn, recovered.getLastLsn());
+        assertEquals(contents(expected), contents(recovered));
+
+        // 복구한 트리에 이어서 쓰고 닫은 뒤 다시 열기
+        mutate(random, recovered, expected, live, 300);
+        recovered.close();
+        DurableRTree reopened = DurableRTree.open(dir, 8, 3, SplitPolicy.RSTAR, 0);
+        assertEquals(1000, reopened.getRecoveredRecords());
+        assertEquals(contents(expected), contents(reopened));
+        Point source = new Point(500, 500);
+        List<Point> near = new ArrayList<>();
+        reopened.nearest(source, 10).forEachRemaining(near::add);
+        List<Point> expectedNear = new ArrayList<>();
+        expected.nearest(source, 10).forEachRemaining(expectedNear::add);
+        for (int k = 0; k < 10; k++) // 같은 거리의 점 순서는 트리 모양에 따라 다를 수 있음
+            assertEquals(source.distance(expectedNear.get(k)), source.distance(near.get(k)));
+        reopened.close();
+    }
+
+    @Test
+    public void tornLastFrameIsDiscarded() throws IOException {
+        DurableRTree durable = DurableRTree.open(dir);
+        for (int i = 0; i < 100; i++) durable.add(new Point(i, i));
+        durable.close();
+
+        // 마지막 프레임(점 하나)을 쓰다 죽은 것처럼 끝의 몇 바이트를 잘라냄
+        Path segment = files(WriteAheadLog.PREFIX).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+        DurableRTree recovered = DurableRTree.open(dir);
+        assertEquals(99, recovered.getLastLsn());
+        assertFalse(contents(recovered).contains(new Point(99, 99)));
+        recovered.add(new Point(500, 500));
+        recovered.close();
+
+        // CRC가 맞지 않는 마지막 프레임도 버림
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            byte[] frame = new byte[8 + 17];
+            frame[0] = 17;   // payload 길이
+            frame[4] = 42;   // 틀린 CRC
+            frame[8] = WriteAheadLog.ADD;
+            channel.write(ByteBuffer.wrap(frame), channel.size());
+        }
+        DurableRTree reopened = DurableRTree.open(dir);
+        Set<Point> found = contents(reopened);
+        assertEquals(100, found.size());
+        assertTrue(found.contains(new Point(500, 500)));
+        reopened.close();
+    }
+
+    @Test
+    public void automaticCheckpointsTrimTheLog() throws IOException {
+        Random random = new Random(2);
+        RTreeImpl expected = new RTreeImpl(16, 6, HilbertCurve.UNBOUNDED);
+        List<Point> live = new ArrayList<>();
+        DurableRTree durable = DurableRTree.open(dir, 16, 6, HilbertCurve.UNBOUNDED, 4096);
+        mutate(random, durable, expected, live, 5000);
+
+        assertEquals(1, files(DurableRTree.CHECKPOINT_PREFIX).size());
+        assertTrue(files(WriteAheadLog.PREFIX).size() <= 2);
+        DurableRTree recovered = DurableRTree.open(dir, 16, 6, HilbertCurve.UNBOUNDED, 4096);
+        assertTrue(recovered.getRecoveredRecords() < 4096 / 17 + 1);
+        assertNull(recovered.getSplitPolicy());
+        assertEquals(contents(expected), contents(recovered));
+        recovered.close();
+    }
+
+    @Test
+    public void concurrentWritersShareFsyncs() throws Exception {
+        int threads = 8, perThread = 200;
+        DurableRTree durable = DurableRTree.open(dir, 16, 6, SplitPolicy.RSTAR, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) durable.add(new Point(id, i));
+                }));
+            }
+            for (Future<?> writer : writers) writer.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(threads * perThread, durable.getLastLsn());
+        assertTrue(durable.getSyncCount() <= threads * perThread);
+
+        DurableRTree recovered = DurableRTree.open(dir, 16, 6, SplitPolicy.RSTAR, 0);
+        assertEquals(threads * perThread, contents(recovered).size());
+        recovered.close();
+        durable.close();
+    }
+}
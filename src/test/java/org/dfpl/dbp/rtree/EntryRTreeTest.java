@@ -0,0 +1,162 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * 값이 붙은 엔트리(같은 좌표 여러 값 포함)가 분할/재삽입/삭제 정리 중에도 좌표와 함께 유지되는지 전수 비교로 검증
+ */
+public class EntryRTreeTest {
+
+    private static <T> List<T> toList(Iterator<T> it) {
+        List<T> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    // 좌표가 좁은 격자에 몰려 같은 좌표에 여러 값이 생김
+    private static List<EntryRTree.Entry<Integer>> randomEntries(Random random, int n, int from) {
+        List<EntryRTree.Entry<Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            entries.add(new EntryRTree.Entry<>(random.nextInt(40), random.nextInt(40), from + i));
+        return entries;
+    }
+
+    private static void checkSearch(EntryRTree<Integer> tree, List<EntryRTree.Entry<Integer>> live, Random random) {
+        for (int q = 0; q < 20; q++) {
+            double x = random.nextInt(40), y = random.nextInt(40), w = random.nextInt(15);
+            List<EntryRTree.Entry<Integer>> expected = new ArrayList<>();
+            for (EntryRTree.Entry<Integer> e : live)
+                if (e.getX() >= x && e.getX() <= x + w && e.getY() >= y && e.getY() <= y + w) expected.add(e);
+            List<EntryRTree.Entry<Integer>> found = toList(tree.search(new Rectangle(new Point(x, y), new Point(x + w, y + w))));
+            Comparator<EntryRTree.Entry<Integer>> byValue = Comparator.comparing(EntryRTree.Entry::getValue);
+            expected.sort(byValue);
+            found.sort(byValue);
+            assertEquals(expected, found);
+            assertEquals(expected.size(), tree.count(new Rectangle(new Point(x, y), new Point(x + w, y + w))));
+        }
+        assertEquals(live.size(), tree.size());
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2, QUADRATIC", "8, 3, RSTAR", "16, 6, LINEAR" })
+    public void entriesFollowTheirPoints(int maxEntries, int minEntries, SplitPolicy policy) {
+        Random random = new Random(maxEntries);
+        EntryRTree<Integer> tree = new EntryRTree<>(maxEntries, minEntries, policy);
+        List<EntryRTree.Entry<Integer>> live = randomEntries(random, 3000, 0);
+        for (EntryRTree.Entry<Integer> e : live) tree.add(e.getX(), e.getY(), e.getValue());
+        List<EntryRTree.Entry<Integer>> batch = randomEntries(random, 2000, 3000);
+        tree.addAll(batch);
+        live.addAll(batch);
+        SplitPolicyTest.checkNode(tree.tree().root(), true, minEntries, maxEntries);
+        checkSearch(tree, live, random);
+
+        // 값으로 골라 삭제 (같은 좌표의 다른 값은 남음), 없는 엔트리는 false
+        Collections.shuffle(live, random);
+        for (EntryRTree.Entry<Integer> e : live.subList(0, 3500)) assertTrue(tree.delete(e));
+        live = new ArrayList<>(live.subList(3500, live.size()));
+        assertFalse(tree.delete(1, 1, -1));
+        SplitPolicyTest.checkNode(tree.tree().root(), true, minEntries, maxEntries);
+        checkSearch(tree, live, random);
+
+        // nearest: 거리 순, 결과 엔트리는 실제 엔트리
+        Point source = new Point(20.5, 19.5);
+        List<EntryRTree.Entry<Integer>> near = toList(tree.nearest(source, 50));
+        assertEquals(50, near.size());
+        assertTrue(live.containsAll(near));
+        for (int i = 1; i < near.size(); i++)
+            assertTrue(source.distance(near.get(i - 1).getPoint()) <= source.distance(near.get(i).getPoint()));
+        double kth = source.distance(near.get(49).getPoint());
+        long closer = live.stream().filter(e -> source.distance(e.getPoint()) < kth).count();
+        assertTrue(closer <= 50);
+        assertEquals(near, toList(tree.nearestWithin(source, kth)).subList(0, 50));
+
+        for (EntryRTree.Entry<Integer> e : live) assertTrue(tree.delete(e));
+        assertTrue(tree.isEmpty());
+    }
+
+    // 점 1/3 + 크기가 다양한 사각형 2/3
+    private static List<EntryRTree.Entry<Integer>> randomShapes(Random random, int n, int from) {
+        List<EntryRTree.Entry<Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double x = random.nextInt(200), y = random.nextInt(200);
+            double w = i % 3 == 0 ? 0 : random.nextInt(i % 3 == 1 ? 5 : 40), h = i % 3 == 0 ? 0 : random.nextInt(20);
+            entries.add(new EntryRTree.Entry<>(x, y, x + w, y + h, from + i));
+        }
+        return entries;
+    }
+
+    private static void checkRelations(EntryRTree<Integer> tree, List<EntryRTree.Entry<Integer>> live, Random random) {
+        Comparator<EntryRTree.Entry<Integer>> byValue = Comparator.comparing(EntryRTree.Entry::getValue);
+        for (int q = 0; q < 30; q++) {
+            double x1 = random.nextInt(200), y1 = random.nextInt(200);
+            double x2 = x1 + random.nextInt(q % 2 == 0 ? 60 : 3), y2 = y1 + random.nextInt(q % 2 == 0 ? 60 : 3);
+            Rectangle r = new Rectangle(new Point(x1, y1), new Point(x2, y2));
+            List<EntryRTree.Entry<Integer>> intersecting = new ArrayList<>(), within = new ArrayList<>(),
+                    containing = new ArrayList<>();
+            for (EntryRTree.Entry<Integer> e : live) {
+                if (e.getX() <= x2 && e.getMaxX() >= x1 && e.getY() <= y2 && e.getMaxY() >= y1) intersecting.add(e);
+                if (e.getX() >= x1 && e.getMaxX() <= x2 && e.getY() >= y1 && e.getMaxY() <= y2) within.add(e);
+                if (e.getX() <= x1 && e.getMaxX() >= x2 && e.getY() <= y1 && e.getMaxY() >= y2) containing.add(e);
+            }
+            for (List<EntryRTree.Entry<Integer>> expected : Arrays.asList(intersecting, within, containing))
+                expected.sort(byValue);
+            List<EntryRTree.Entry<Integer>> found = toList(tree.search(r));
+            found.sort(byValue);
+            assertEquals(intersecting, found);
+            found = toList(tree.within(r));
+            found.sort(byValue);
+            assertEquals(within, found);
+            found = toList(tree.containing(r));
+            found.sort(byValue);
+            assertEquals(containing, found);
+            assertEquals(intersecting.size(), tree.count(r));
+        }
+
+        // nearest: MBR까지의 최소 거리 순
+        Point source = new Point(random.nextInt(200) + 0.5, random.nextInt(200) + 0.5);
+        List<EntryRTree.Entry<Integer>> near = toList(tree.nearest(source, 40));
+        assertEquals(Math.min(40, live.size()), near.size());
+        assertTrue(live.containsAll(near));
+        double[] expected = live.stream().mapToDouble(e -> mbrDistance(e, source)).sorted().limit(40).toArray();
+        assertArrayEquals(expected, near.stream().mapToDouble(e -> mbrDistance(e, source)).toArray(), 0);
+    }
+
+    private static double mbrDistance(EntryRTree.Entry<?> e, Point p) {
+        return RTreeImpl.minDist(e.getX(), e.getY(), e.getMaxX(), e.getMaxY(), p.getX(), p.getY());
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2, QUADRATIC", "8, 3, RSTAR", "16, 6, LINEAR" })
+    public void rectangleEntriesMatchBruteForce(int maxEntries, int minEntries, SplitPolicy policy) {
+        Random random = new Random(maxEntries * 31L);
+        EntryRTree<Integer> tree = new EntryRTree<>(maxEntries, minEntries, policy);
+        // 점만 먼저 넣어 점 리프가 사각형 리프로 바뀌는 경로도 거침
+        List<EntryRTree.Entry<Integer>> live = randomShapes(random, 2000, 0);
+        live.sort(Comparator.comparing(EntryRTree.Entry::isPoint, Comparator.reverseOrder()));
+        for (EntryRTree.Entry<Integer> e : live)
+            if (e.isPoint()) tree.add(e.getPoint(), e.getValue());
+            else tree.add(e.getRectangle(), e.getValue());
+        List<EntryRTree.Entry<Integer>> batch = randomShapes(random, 1500, 2000);
+        tree.addAll(batch);
+        live.addAll(batch);
+        SplitPolicyTest.checkNode(tree.tree().root(), true, minEntries, maxEntries);
+        checkRelations(tree, live, random);
+
+        Collections.shuffle(live, random);
+        for (EntryRTree.Entry<Integer> e : live.subList(0, 2500)) assertTrue(tree.delete(e));
+        live = new ArrayList<>(live.subList(2500, live.size()));
+        EntryRTree.Entry<Integer> some = live.get(0);
+        assertFalse(tree.delete(new EntryRTree.Entry<>(some.getX(), some.getY(), some.getMaxX() + 1, some.getMaxY(),
+                some.getValue())));
+        SplitPolicyTest.checkNode(tree.tree().root(), true, minEntries, maxEntries);
+        checkRelations(tree, live, random);
+
+        for (EntryRTree.Entry<Integer> e : live) assertTrue(tree.delete(e));
+        assertTrue(tree.isEmpty());
+    }
+}
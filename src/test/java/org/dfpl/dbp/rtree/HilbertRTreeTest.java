@@ -0,0 +1,174 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * HILBERT 모드: 곡선, 키 순서/LHV 불변식, 질의 정확성, 노드 이용률, 순서 있는 scan 검증
+ */
+public class HilbertRTreeTest {
+
+    private static final HilbertCurve GRID = new HilbertCurve(0, 0, 1000, 1000, 16);
+
+    private static List<Point> toList(Iterator<Point> it) {
+        List<Point> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static Set<String> keys(Collection<Point> points) {
+        Set<String> set = new HashSet<>();
+        for (Point p : points) set.add(p.getX() + "," + p.getY());
+        return set;
+    }
+
+    // 리프 키가 좌표의 힐베르트 키이며 오름차순, 형제는 LHV 오름차순, LHV는 서브트리 최대 키
+    private static void checkHilbert(RTreeImpl.Node n, HilbertCurve curve) {
+        long max = 0;
+        for (int i = 0; i < n.size(); i++) {
+            long h;
+            if (n.isLeaf()) {
+                h = n.hs[i];
+                assertEquals(curve.index(n.xs[i], n.ys[i]), h);
+                if (i > 0) assertTrue(n.hs[i - 1] <= h, "leaf keys out of order");
+            } else {
+                checkHilbert(n.getChild(i), curve);
+                h = n.getChild(i).lhv;
+                if (i > 0) assertTrue(n.getChild(i - 1).lhv <= h, "children out of LHV order");
+            }
+            max = Math.max(max, h);
+        }
+        assertEquals(max, n.lhv);
+    }
+
+    private static void leafFill(RTreeImpl.Node n, int[] stats) {
+        if (n.isLeaf()) {
+            stats[0]++;
+            stats[1] += n.size();
+        } else {
+            for (int i = 0; i < n.size(); i++) leafFill(n.getChild(i), stats);
+        }
+    }
+
+    private static double averageLeafFill(RTreeImpl tree) {
+        int[] stats = new int[2];
+        leafFill(tree.root(), stats);
+        return (double) stats[1] / stats[0] / tree.getMaxEntries();
+    }
+
+    @Test
+    public void curveVisitsEveryCellOnceThroughNeighbours() {
+        int bits = 5, side = 1 << bits;
+        long[][] cellOf = new long[side * side][];
+        for (long x = 0; x < side; x++) {
+            for (long y = 0; y < side; y++) {
+                int d = (int) HilbertCurve.index(x, y, bits);
+                assertNull(cellOf[d]);
+                cellOf[d] = new long[] { x, y };
+            }
+        }
+        for (int d = 1; d < cellOf.length; d++)
+            assertEquals(1, Math.abs(cellOf[d][0] - cellOf[d - 1][0]) + Math.abs(cellOf[d][1] - cellOf[d - 1][1]));
+
+        // 격자 밖 좌표는 가장자리 칸, UNBOUNDED는 음수 좌표도 순서대로 구분
+        assertEquals(GRID.index(0, 0), GRID.index(-50, -50));
+        assertNotEquals(HilbertCurve.UNBOUNDED.index(-120.5, 37.1), HilbertCurve.UNBOUNDED.index(-120.4, 37.1));
+        assertThrows(IllegalArgumentException.class, () -> new HilbertCurve(0, 0, 1, 1, 32));
+        assertThrows(IllegalArgumentException.class, () -> new HilbertCurve(0, 0, 0, 1, 8));
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2", "16, 6", "32, 12" })
+    public void hilbertTreeMatchesBruteForce(int maxEntries, int minEntries) {
+        Random random = new Random(maxEntries);
+        RTreeImpl tree = new RTreeImpl(maxEntries, minEntries, GRID);
+        // 분할 정책 없음: overflow는 shareOrSplit만 처리
+        assertNull(tree.getSplitPolicy());
+        assertSame(GRID, tree.getHilbertCurve());
+
+        // x 순으로 정렬된(치우친) 삽입 순서
+        List<Point> points = SplitPolicyTest.uniform(random, 4000);
+        points.sort(Comparator.comparingDouble(Point::getX));
+        points.forEach(tree::add);
+        SplitPolicyTest.checkNode(tree.root(), true, minEntries, maxEntries);
+        checkHilbert(tree.root(), GRID);
+
+        Rectangle everything = new Rectangle(new Point(-1, -1), new Point(1001, 1001));
+        Collections.shuffle(points, random);
+        for (Point p : points.subList(0, 2500)) tree.delete(p);
+        List<Point> batch = SplitPolicyTest.clustered(random, 1500);
+        tree.addAll(batch);
+        for (int i = 2500; i < 2700; i++) {
+            Point p = points.get(i), to = new Point(p.getX() + random.nextDouble() - 0.5, p.getY());
+            assertTrue(tree.move(p, to));
+            points.set(i, to);
+        }
+        SplitPolicyTest.checkNode(tree.root(), true, minEntries, maxEntries);
+        checkHilbert(tree.root(), GRID);
+
+        Set<String> expected = keys(points.subList(2500, points.size()));
+        expected.addAll(keys(batch));
+        List<Point> live = toList(tree.search(new Rectangle(new Point(-100, -100), new Point(1100, 1100))));
+        assertEquals(expected, keys(live));
+        for (int q = 0; q < 50; q++) {
+            double x = random.nextDouble() * 1000, y = random.nextDouble() * 1000, w = random.nextDouble() * 100;
+            Set<String> inside = new HashSet<>();
+            for (Point p : live)
+                if (p.getX() >= x && p.getX() <= x + w && p.getY() >= y && p.getY() <= y + w)
+                    inside.add(p.getX() + "," + p.getY());
+            assertEquals(inside, keys(toList(tree.search(new Rectangle(new Point(x, y), new Point(x + w, y + w))))));
+
+            Point source = new Point(x, y);
+            List<Point> sorted = new ArrayList<>(live);
+            sorted.sort(Comparator.comparingDouble(source::distance));
+            List<Point> near = toList(tree.nearest(source, 10));
+            for (int k = 0; k < 10; k++) assertEquals(source.distance(sorted.get(k)), source.distance(near.get(k)));
+        }
+
+        tree.deleteAll(live);
+        assertTrue(tree.isEmpty());
+        assertEquals(0, toList(tree.search(everything)).size());
+    }
+
+    @Test
+    public void dynamicInsertsKeepNodesNearlyFull() {
+        Random random = new Random(3);
+        List<Point> points = SplitPolicyTest.uniform(random, 20000);
+        points.sort(Comparator.comparingDouble(Point::getX)); // 치우친 삽입 순서
+        RTreeImpl quadratic = new RTreeImpl(32, 12, SplitPolicy.QUADRATIC);
+        RTreeImpl hilbert = new RTreeImpl(32, 12, GRID);
+        points.forEach(quadratic::add);
+        points.forEach(hilbert::add);
+        assertTrue(averageLeafFill(hilbert) >= 0.66, "hilbert fill " + averageLeafFill(hilbert));
+        assertTrue(averageLeafFill(hilbert) > averageLeafFill(quadratic));
+    }
+
+    @Test
+    public void scanFollowsHilbertOrder() {
+        Random random = new Random(9);
+        List<Point> points = SplitPolicyTest.clustered(random, 5000);
+        RTreeImpl dynamic = new RTreeImpl(16, 6, GRID);
+        points.forEach(dynamic::add);
+        RTreeImpl loaded = RTreeImpl.bulkLoad(points, 16, 6, HilbertCurve.UNBOUNDED);
+        SplitPolicyTest.checkNode(loaded.root(), true, 6, 16);
+        checkHilbert(loaded.root(), HilbertCurve.UNBOUNDED);
+
+        for (RTreeImpl tree : List.of(dynamic, loaded)) {
+            HilbertCurve curve = tree.getHilbertCurve();
+            long[] previous = { Long.MIN_VALUE };
+            int count = tree.scan((x, y) -> {
+                long h = curve.index(x, y);
+                assertTrue(previous[0] <= h, "scan out of order");
+                previous[0] = h;
+            });
+            assertEquals(keys(points).size(), count);
+        }
+        // 일괄 적재는 리프를 M개씩 꽉 채움
+        assertTrue(averageLeafFill(loaded) > 0.95);
+    }
+}
@@ -0,0 +1,89 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * 저장한 파일을 매핑해 질의한 결과가 원래 RTreeImpl과 같은지 검증
+ */
+public class MappedRTreeTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<Point> toList(Iterator<Point> it) {
+        List<Point> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2, 0", "4, 2, 1", "4, 2, 3000", "32, 12, 20000", "128, 51, 50000" })
+    public void mappedQueriesMatchHeapTree(int maxEntries, int minEntries, int count) throws IOException {
+        Random random = new Random(count);
+        RTreeImpl tree = new RTreeImpl(maxEntries, minEntries, SplitPolicy.RSTAR);
+        for (int i = 0; i < count; i++) tree.add(new Point(random.nextInt(1000), random.nextInt(1000)));
+
+        Path file = dir.resolve("tree.rtree");
+        tree.save(file);
+        MappedRTree mapped = MappedRTree.open(file);
+        assertEquals(tree.isEmpty(), mapped.isEmpty());
+        assertEquals(maxEntries, mapped.getMaxEntries());
+        assertEquals(SplitPolicy.RSTAR, mapped.getSplitPolicy());
+        assertEquals(tree.root().level, mapped.getHeight());
+        assertEquals(Files.size(file), (mapped.getNodeCount() + 1) * MappedRTree.pageSize(maxEntries));
+
+        for (int q = 0; q < 50; q++) {
+            double x = random.nextInt(1000), y = random.nextInt(1000), w = random.nextInt(300);
+            Rectangle r = new Rectangle(new Point(x, y), new Point(x + w, y + w));
+            List<Point> expected = toList(tree.search(r));
+            assertEquals(expected, toList(mapped.search(r)));
+
+            List<Point> found = new ArrayList<>();
+            assertEquals(expected.size(), mapped.search(x, y, x + w, y + w, (px, py) -> found.add(new Point(px, py))));
+            assertEquals(expected, found);
+
+            Point source = new Point(random.nextInt(1000), random.nextInt(1000));
+            int k = 1 + random.nextInt(30);
+            assertEquals(toList(tree.nearest(source, k)), toList(mapped.nearest(source, k)));
+        }
+        assertEquals(tree.size(), toList(mapped.nearest(new Point(0, 0), Integer.MAX_VALUE - 8)).size());
+    }
+
+    @Test
+    public void mappedTreeIsReadOnly() throws IOException {
+        Path file = dir.resolve("tree.rtree");
+        RTreeImpl.bulkLoad(List.of(new Point(1, 1), new Point(2, 2))).save(file);
+        MappedRTree mapped = MappedRTree.open(file);
+        assertEquals(2, mapped.size());
+        assertFalse(mapped.isHilbert());
+        assertThrows(UnsupportedOperationException.class, () -> mapped.add(new Point(3, 3)));
+        assertThrows(UnsupportedOperationException.class, () -> mapped.delete(new Point(1, 1)));
+    }
+
+    @Test
+    public void hilbertModeIsStoredSeparately() throws IOException {
+        Path file = dir.resolve("hilbert.rtree");
+        RTreeImpl.bulkLoad(List.of(new Point(1, 1), new Point(2, 2)), 4, 2, HilbertCurve.UNBOUNDED).save(file);
+        MappedRTree mapped = MappedRTree.open(file);
+        assertTrue(mapped.isHilbert());
+        assertNull(mapped.getSplitPolicy());
+        assertEquals(2, mapped.size());
+    }
+
+    @Test
+    public void rejectsForeignFile() throws IOException {
+        Path file = dir.resolve("garbage");
+        Files.write(file, new byte[4096]);
+        assertThrows(IOException.class, () -> MappedRTree.open(file));
+    }
+}
@@ -0,0 +1,75 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * 병렬 영역 탐색/KNN이 순차 결과와 같은 점을 같은 순서로 돌려주는지 검증
+ * (forkLevel을 낮춰 작은 트리에서도 task가 잘게 나뉘도록 함)
+ */
+public class ParallelQueriesTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    private static List<Point> toList(Iterator<Point> it) {
+        List<Point> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 100 })
+    public void parallelMatchesSequential(int forkLevel) {
+        Random random = new Random(forkLevel);
+        RTreeImpl tree = new RTreeImpl(8, 3, SplitPolicy.RSTAR);
+        // 정수 좌표 → 같은 거리의 점이 많아 동점 순서까지 확인됨
+        for (int i = 0; i < 20000; i++) tree.add(new Point(random.nextInt(500), random.nextInt(500)));
+
+        for (int q = 0; q < 50; q++) {
+            double x = random.nextInt(500), y = random.nextInt(500), w = random.nextInt(250);
+            Rectangle r = new Rectangle(new Point(x, y), new Point(x + w, y + w));
+            assertEquals(toList(tree.search(r)), ParallelQueries.search(pool, tree.root(), forkLevel, x, y, x + w, y + w));
+
+            Point source = new Point(random.nextInt(500), random.nextInt(500));
+            int k = random.nextInt(200);
+            assertEquals(toList(tree.nearest(source, k)),
+                    ParallelQueries.nearest(pool, tree.root(), forkLevel, source.getX(), source.getY(), k));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 100000 })
+    public void publicApiOnBulkLoadedTree(int count) {
+        Random random = new Random(count);
+        List<Point> points = SplitPolicyTest.clustered(random, count);
+        RTreeImpl tree = RTreeImpl.bulkLoad(points, 16, 6, SplitPolicy.RSTAR);
+        ConcurrentRTree concurrent = new ConcurrentRTree(RTreeImpl.bulkLoad(points, 16, 6, SplitPolicy.RSTAR));
+
+        Rectangle everything = new Rectangle(new Point(-1000, -1000), new Point(2000, 2000));
+        List<Point> all = toList(tree.search(everything));
+        assertEquals(all, toList(tree.searchParallel(everything, pool)));
+        assertEquals(all, toList(concurrent.searchParallel(everything, pool)));
+
+        Point source = new Point(500, 500);
+        assertEquals(toList(tree.nearest(source, 1000)), toList(tree.nearestParallel(source, 1000, pool)));
+        assertEquals(toList(tree.nearest(source, 1000)), toList(concurrent.nearestParallel(source, 1000, pool)));
+        assertEquals(all.size(), toList(tree.nearestParallel(source, Integer.MAX_VALUE - 8, pool)).size());
+    }
+}
@@ -0,0 +1,364 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * RTreeImpl 기본 연산을 전수 비교(brute force)로 검증
+ */
+public class RTreeImplTest {
+
+    private static List<Point> randomPoints(Random random, int n, int range) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            points.add(new Point(random.nextInt(range), random.nextInt(range)));
+        return points;
+    }
+
+    private static List<Point> toList(Iterator<Point> it) {
+        List<Point> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static Set<String> keys(Collection<Point> points) {
+        Set<String> set = new HashSet<>();
+        for (Point p : points) set.add(p.getX() + "," + p.getY());
+        return set;
+    }
+
+    @Test
+    public void searchMatchesBruteForce() {
+        Random random = new Random(7);
+        RTreeImpl tree = new RTreeImpl();
+        List<Point> points = randomPoints(random, 2000, 500);
+        points.forEach(tree::add);
+
+        for (int q = 0; q < 100; q++) {
+            double x = random.nextInt(500), y = random.nextInt(500);
+            Rectangle r = new Rectangle(new Point(x, y), new Point(x + random.nextInt(100), y + random.nextInt(100)));
+
+            Set<String> expected = new HashSet<>();
+            for (Point p : points)
+                if (p.getX() >= x && p.getX() <= r.getRightBottom().getX()
+                        && p.getY() >= y && p.getY() <= r.getRightBottom().getY())
+                    expected.add(p.getX() + "," + p.getY());
+
+            assertEquals(expected, keys(toList(tree.search(r))));
+        }
+    }
+
+    @Test
+    public void primitiveSearchMatchesIterator() {
+        Random random = new Random(13);
+        List<Point> points = randomPoints(random, 5000, 1000);
+        RTreeImpl tree = RTreeImpl.bulkLoad(points, 32, 12, SplitPolicy.RSTAR);
+        points.subList(0, 1000).forEach(tree::delete);
+
+        for (int q = 0; q < 50; q++) {
+            double x = random.nextInt(1000), y = random.nextInt(1000), w = random.nextInt(200);
+            List<Point> found = new ArrayList<>();
+            int count = tree.search(x, y, x + w, y + w, (px, py) -> found.add(new Point(px, py)));
+
+            assertEquals(found.size(), count);
+            assertEquals(toList(tree.search(new Rectangle(new Point(x, y), new Point(x + w, y + w)))), found);
+        }
+    }
+
+    @Test
+    public void countSkipsContainedSubtrees() {
+        Random random = new Random(31);
+        List<Point> points = SplitPolicyTest.uniform(random, 100000);
+        RTreeImpl tree = RTreeImpl.bulkLoad(points, 16, 6, SplitPolicy.RSTAR);
+        tree.addAll(SplitPolicyTest.uniform(random, 5000));
+        tree.deleteAll(points.subList(0, 20000));
+        points.subList(20000, 21000).forEach(tree::delete);
+        SplitPolicyTest.checkNode(tree.root(), true, 6, 16);
+        VisitCounter counter = VisitCounter.attach(tree);
+
+        for (int q = 0; q < 30; q++) {
+            double x = random.nextInt(400), y = random.nextInt(400), w = 300 + random.nextInt(300); // 결과가 많은 넓은 범위
+            Rectangle r = new Rectangle(new Point(x, y), new Point(x + w, y + w));
+            counter.visits = 0;
+            int count = tree.count(r);
+            long countVisits = counter.visits;
+            counter.visits = 0;
+            assertEquals(tree.search(x, y, x + w, y + w, (px, py) -> { }), count);
+            assertTrue(countVisits * 3 < counter.visits, countVisits + " vs " + counter.visits);
+        }
+        assertEquals(toList(tree.search(new Rectangle(new Point(-1, -1), new Point(1001, 1001)))).size(), tree.size());
+    }
+
+    @Test
+    public void searchIsLazy() {
+        RTreeImpl tree = RTreeImpl.bulkLoad(randomPoints(new Random(1), 10000, 1000));
+        VisitCounter counter = VisitCounter.attach(tree);
+
+        // 첫 결과 하나만 꺼내면 트리 높이 정도만 방문
+        Iterator<Point> it = tree.search(new Rectangle(new Point(0, 0), new Point(1000, 1000)));
+        assertEquals(0, counter.visits - 1); // 루트만 방문한 상태
+        assertTrue(it.hasNext());
+        assertTrue(counter.visits <= tree.root().level + 1);
+
+        tree.add(new Point(0.5, 0.5));
+        assertThrows(ConcurrentModificationException.class, it::hasNext);
+    }
+
+    @Test
+    public void searchBatchMatchesSingleSearchesWithFewerVisits() {
+        Random random = new Random(17);
+        RTreeImpl tree = RTreeImpl.bulkLoad(SplitPolicyTest.uniform(random, 100000), 16, 6, SplitPolicy.RSTAR);
+        VisitCounter counter = VisitCounter.attach(tree);
+
+        // 타일 렌더러: 화면 한 영역을 16x16 타일로 나눈 질의 + 빈 결과 질의
+        List<Rectangle> tiles = new ArrayList<>();
+        for (int i = 0; i < 16; i++)
+            for (int j = 0; j < 16; j++)
+                tiles.add(new Rectangle(new Point(300 + i * 10, 400 + j * 10), new Point(310 + i * 10, 410 + j * 10)));
+        tiles.add(new Rectangle(new Point(5000, 5000), new Point(6000, 6000)));
+
+        List<Iterator<Point>> batch = tree.searchBatch(tiles);
+        long batchVisits = counter.visits;
+        counter.visits = 0;
+        assertEquals(tiles.size(), batch.size());
+        for (int i = 0; i < tiles.size(); i++) assertEquals(toList(tree.search(tiles.get(i))), toList(batch.get(i)));
+        long singleVisits = counter.visits;
+
+        assertTrue(batchVisits * 5 <= singleVisits, batchVisits + " vs " + singleVisits);
+        assertTrue(tree.searchBatch(List.of()).isEmpty());
+    }
+
+    @Test
+    public void nearestMatchesSortedScan() {
+        Random random = new Random(11);
+        RTreeImpl tree = new RTreeImpl();
+        randomPoints(random, 1500, 200).forEach(tree::add);
+        Rectangle everything = new Rectangle(new Point(-1, -1), new Point(1000, 1000));
+
+        for (int q = 0; q < 100; q++) {
+            Point source = new Point(random.nextInt(200) + 0.5 * random.nextInt(2), random.nextInt(200));
+            int k = 1 + random.nextInt(50);
+
+            // 이전 구현: DFS 순서로 모든 점을 모아 거리순 안정 정렬
+            List<Point> all = toList(tree.search(everything));
+            all.sort(Comparator.comparingDouble(source::distance));
+
+            assertEquals(all.subList(0, Math.min(k, all.size())), toList(tree.nearest(source, k)));
+        }
+        // k가 점 수보다 훨씬 커도 k만큼 할당하지 않음
+        assertEquals(tree.size(), toList(tree.nearest(new Point(0, 0), Integer.MAX_VALUE - 8)).size());
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2, QUADRATIC", "16, 6, RSTAR", "64, 25, LINEAR" })
+    public void primitiveNearestMatchesIterator(int maxEntries, int minEntries, SplitPolicy policy) {
+        Random random = new Random(maxEntries);
+        RTreeImpl tree = new RTreeImpl(maxEntries, minEntries, policy);
+        randomPoints(random, 3000, 100).forEach(tree::add); // 좁은 격자 → 같은 거리의 점이 많음
+
+        for (int q = 0; q < 100; q++) {
+            double x = random.nextInt(100) + 0.5 * random.nextInt(2), y = random.nextInt(100);
+            int k = q == 0 ? 100000 : 1 + random.nextInt(q % 2 == 0 ? 5 : 200);
+            List<Point> found = new ArrayList<>();
+            int count = tree.nearest(x, y, k, (px, py) -> found.add(new Point(px, py)));
+
+            assertEquals(found.size(), count);
+            assertEquals(toList(tree.nearest(new Point(x, y), k)), found);
+        }
+        assertEquals(0, new RTreeImpl().nearest(0, 0, 3, (px, py) -> fail()));
+    }
+
+    @Test
+    public void nearestIteratorIsLazyAndMatchesKnn() {
+        Random random = new Random(19);
+        RTreeImpl tree = RTreeImpl.bulkLoad(randomPoints(random, 20000, 1000), 16, 6, SplitPolicy.RSTAR);
+        VisitCounter counter = VisitCounter.attach(tree);
+
+        for (int q = 0; q < 20; q++) {
+            Point source = new Point(random.nextInt(1000), random.nextInt(1000));
+            int k = 1 + random.nextInt(300);
+            List<Point> knn = toList(tree.nearest(source, k));
+
+            counter.visits = 0;
+            Iterator<Point> it = tree.nearest(source);
+            List<Point> browsed = new ArrayList<>();
+            for (int i = 0; i < k && it.hasNext(); i++) browsed.add(it.next());
+            assertEquals(knn, browsed);
+            if (k < 10) assertTrue(counter.visits < 50, "visited " + counter.visits); // 전체 노드 수천 개 중 일부만
+
+            // 거리 제한: 경계 포함, 순서는 그대로
+            double limit = random.nextInt(40);
+            List<Point> within = toList(tree.nearestWithin(source, limit));
+            List<Point> expected = new ArrayList<>();
+            for (Point p : toList(tree.nearest(source, 20000))) if (source.distance(p) <= limit) expected.add(p);
+            assertEquals(expected, within);
+        }
+
+        Iterator<Point> it = tree.nearest(new Point(0, 0));
+        it.next();
+        tree.add(new Point(1, 1));
+        assertThrows(ConcurrentModificationException.class, it::hasNext);
+        assertFalse(new RTreeImpl().nearest(new Point(0, 0)).hasNext());
+    }
+
+    @Test
+    public void deleteEverythingThenReuse() {
+        Random random = new Random(3);
+        RTreeImpl tree = new RTreeImpl();
+        List<Point> points = randomPoints(random, 500, 100);
+        points.forEach(tree::add);
+        assertFalse(tree.isEmpty());
+
+        Collections.shuffle(points, random);
+        for (Point p : points) tree.delete(p);
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.nearest(new Point(0, 0), 3).hasNext());
+
+        tree.add(new Point(1, 2));
+        assertEquals(1, toList(tree.nearest(new Point(0, 0), 3)).size());
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2, QUADRATIC", "16, 6, RSTAR", "64, 25, LINEAR", "128, 51, RSTAR" })
+    public void deleteCondensesUnderfullNodes(int maxEntries, int minEntries, SplitPolicy policy) {
+        Random random = new Random(maxEntries);
+        RTreeImpl tree = new RTreeImpl(maxEntries, minEntries, policy);
+        List<Point> points = SplitPolicyTest.uniform(random, 5000);
+        points.forEach(tree::add);
+        SplitPolicyTest.checkNode(tree.root(), true, minEntries, maxEntries);
+
+        Collections.shuffle(points, random);
+        List<Point> removed = points.subList(0, 4000);
+        for (Point p : removed) tree.delete(p);
+        SplitPolicyTest.checkNode(tree.root(), true, minEntries, maxEntries);
+
+        Rectangle everything = new Rectangle(new Point(-1, -1), new Point(1001, 1001));
+        assertEquals(keys(points.subList(4000, 5000)), keys(toList(tree.search(everything))));
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2, 1", "4, 2, 9", "4, 2, 3000", "16, 6, 5000", "128, 51, 20000", "100, 50, 10001" })
+    public void bulkLoadBuildsFullValidTree(int maxEntries, int minEntries, int count) {
+        Random random = new Random(count);
+        List<Point> points = randomPoints(random, count, 1000); // 중복 좌표 포함
+        RTreeImpl tree = RTreeImpl.bulkLoad(points, maxEntries, minEntries, SplitPolicy.RSTAR);
+        SplitPolicyTest.checkNode(tree.root(), true, minEntries, maxEntries);
+
+        Rectangle everything = new Rectangle(new Point(-1, -1), new Point(1001, 1001));
+        assertEquals(keys(points), keys(toList(tree.search(everything))));
+        for (int q = 0; q < 20; q++) {
+            Point source = new Point(random.nextInt(1000), random.nextInt(1000));
+            List<Point> all = toList(tree.search(everything));
+            all.sort(Comparator.comparingDouble(source::distance));
+            assertEquals(all.subList(0, Math.min(5, all.size())), toList(tree.nearest(source, 5)));
+        }
+
+        // 일괄 적재된 트리도 일반 트리처럼 add/delete
+        List<Point> extra = randomPoints(random, count, 1000);
+        extra.forEach(tree::add);
+        points.subList(0, count / 2).forEach(tree::delete);
+        SplitPolicyTest.checkNode(tree.root(), true, minEntries, maxEntries);
+        Set<String> expected = keys(points.subList(count / 2, count));
+        expected.addAll(keys(extra));
+        expected.removeAll(keys(points.subList(0, count / 2)));
+        assertEquals(expected, keys(toList(tree.search(everything))));
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2, QUADRATIC", "16, 6, RSTAR", "32, 12, LINEAR" })
+    public void batchAddAndDeleteMatchSingleCalls(int maxEntries, int minEntries, SplitPolicy policy) {
+        Random random = new Random(maxEntries);
+        RTreeImpl tree = new RTreeImpl(maxEntries, minEntries, policy);
+        Set<String> expected = new HashSet<>();
+        Rectangle everything = new Rectangle(new Point(-1, -1), new Point(1001, 1001));
+
+        // 빈 트리에 큰 배치(중복 포함), 이어서 작은 배치들
+        for (int batch : new int[] { 5000, 3, 700, 1, 2000 }) {
+            List<Point> points = randomPoints(random, batch, 1000);
+            tree.addAll(points);
+            expected.addAll(keys(points));
+            SplitPolicyTest.checkNode(tree.root(), true, minEntries, maxEntries);
+            assertEquals(expected, keys(toList(tree.search(everything))));
+        }
+
+        // 없는 점이 섞인 배치 삭제, 마지막엔 전부 삭제
+        List<Point> all = toList(tree.search(everything));
+        Collections.shuffle(all, random);
+        for (List<Point> batch : List.of(all.subList(0, 10), all.subList(10, 3000), randomPoints(random, 500, 1000))) {
+            tree.deleteAll(batch);
+            expected.removeAll(keys(batch));
+            SplitPolicyTest.checkNode(tree.root(), true, minEntries, maxEntries);
+            assertEquals(expected, keys(toList(tree.search(everything))));
+        }
+        tree.deleteAll(all);
+        assertTrue(tree.isEmpty());
+        tree.addAll(List.of(new Point(1, 1)));
+        assertEquals(1, toList(tree.search(everything)).size());
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2, QUADRATIC", "16, 6, RSTAR", "32, 12, LINEAR" })
+    public void moveMatchesDeleteThenAdd(int maxEntries, int minEntries, SplitPolicy policy) {
+        Random random = new Random(maxEntries);
+        RTreeImpl tree = new RTreeImpl(maxEntries, minEntries, policy);
+        List<Point> points = new ArrayList<>(new LinkedHashSet<>(randomPoints(random, 3000, 1000)));
+        points.forEach(tree::add);
+        Set<String> expected = keys(points);
+        Rectangle everything = new Rectangle(new Point(-1000, -1000), new Point(2000, 2000));
+
+        // 대부분 작은 이동(제자리 갱신), 가끔 먼 이동(삭제 후 재삽입)과 이미 있는 좌표로의 이동(합쳐짐)
+        for (int round = 0; round < 10; round++) {
+            List<Point> moved = new ArrayList<>();
+            for (Point p : points) {
+                Point to = random.nextInt(20) == 0 ? new Point(random.nextInt(1000), random.nextInt(1000))
+                        : new Point(p.getX() + random.nextInt(7) - 3, p.getY() + random.nextInt(7) - 3);
+                boolean merged = expected.contains(to.getX() + "," + to.getY());
+                assertTrue(tree.move(p, to));
+                expected.remove(p.getX() + "," + p.getY());
+                expected.add(to.getX() + "," + to.getY());
+                if (!merged || to.equals(p)) moved.add(to);
+            }
+            points = moved;
+            SplitPolicyTest.checkNode(tree.root(), true, minEntries, maxEntries);
+            assertEquals(expected, keys(toList(tree.search(everything))));
+            assertEquals(expected.size(), tree.size());
+        }
+        assertFalse(tree.move(new Point(-5000, -5000), new Point(1, 1)));
+        for (Point p : points) tree.delete(p);
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    public void rejectsInvalidFanout() {
+        assertThrows(IllegalArgumentException.class, () -> new RTreeImpl(1, 1, SplitPolicy.LINEAR));
+        assertThrows(IllegalArgumentException.class, () -> new RTreeImpl(8, 5, SplitPolicy.LINEAR));
+        assertThrows(IllegalArgumentException.class, () -> new RTreeImpl(8, 0, SplitPolicy.LINEAR));
+    }
+
+    @Test
+    public void listenerSeesOperations() {
+        RTreeImpl tree = new RTreeImpl();
+        List<RTreeListener.Operation> seen = new ArrayList<>();
+        RTreeListener listener = new RTreeListener() {
+            @Override
+            public void operationFinished(Operation operation) {
+                seen.add(operation);
+            }
+        };
+        tree.addListener(listener);
+        tree.add(new Point(1, 1));
+        toList(tree.search(new Rectangle(new Point(0, 0), new Point(2, 2)))); // 끝까지 소비해야 종료
+        tree.nearest(new Point(0, 0), 1);
+        tree.delete(new Point(1, 1));
+        tree.removeListener(listener);
+        tree.add(new Point(2, 2));
+
+        assertEquals(List.of(RTreeListener.Operation.ADD, RTreeListener.Operation.SEARCH,
+                RTreeListener.Operation.KNN, RTreeListener.Operation.DELETE), seen);
+    }
+}
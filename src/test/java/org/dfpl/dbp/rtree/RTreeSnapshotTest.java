@@ -0,0 +1,161 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * 스냅샷으로 쓰고 읽은 트리가 같은 모양(노드 크기, 엔트리 순서, MBR)으로 복원되는지 검증
+ */
+public class RTreeSnapshotTest {
+
+    private static byte[] write(RTreeImpl tree, RTreeSnapshot.Encoding encoding) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RTreeSnapshot.write(tree, Channels.newChannel(bytes), encoding);
+        return bytes.toByteArray();
+    }
+
+    private static RTreeImpl read(byte[] bytes) throws IOException {
+        return RTreeSnapshot.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    // 같은 모양인지 비교. tolerance = 0이면 좌표까지 비트 단위로 같음
+    private static void assertSameShape(RTreeImpl.Node expected, RTreeImpl.Node actual, double tolerance) {
+        assertEquals(expected.level, actual.level);
+        assertEquals(expected.size, actual.size);
+        assertEquals(expected.count, actual.count);
+        for (int i = 0; i < expected.size; i++) {
+            if (expected.isLeaf) {
+                assertEquals(expected.xs[i], actual.xs[i], tolerance);
+                assertEquals(expected.ys[i], actual.ys[i], tolerance);
+                assertEquals(expected.hxs[i], actual.hxs[i], tolerance);
+                assertEquals(expected.hys[i], actual.hys[i], tolerance);
+                if (tolerance > 0) { // 사각형은 원래 사각형을 포함하도록 넓어짐
+                    assertTrue(actual.xs[i] <= expected.xs[i] || expected.hxs[i] == expected.xs[i]);
+                    assertTrue(actual.hxs[i] >= expected.hxs[i] || expected.hxs[i] == expected.xs[i]);
+                }
+            } else {
+                assertSameShape(expected.children[i], actual.children[i], tolerance);
+            }
+        }
+        if (tolerance == 0) {
+            assertEquals(expected.minX, actual.minX);
+            assertEquals(expected.minY, actual.minY);
+            assertEquals(expected.maxX, actual.maxX);
+            assertEquals(expected.maxY, actual.maxY);
+        }
+    }
+
+    // mode = 분할 정책 이름 또는 HILBERT
+    private static RTreeImpl randomTree(Random random, String mode, int count) {
+        RTreeImpl tree = mode.equals("HILBERT") ? new RTreeImpl(16, 6, HilbertCurve.UNBOUNDED)
+                : new RTreeImpl(16, 6, SplitPolicy.valueOf(mode));
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < count; i++) points.add(new Point(random.nextDouble() * 1000, random.nextDouble() * 1000));
+        points.forEach(tree::add);
+        tree.deleteAll(points.subList(0, count / 4));
+        return tree;
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "RAW, QUADRATIC", "DELTA, RSTAR", "DELTA, HILBERT", "QUANTIZED, LINEAR", "QUANTIZED, RSTAR" })
+    public void roundTripRebuildsSameTree(RTreeSnapshot.Encoding encoding, String mode) throws IOException {
+        Random random = new Random(encoding.ordinal());
+        RTreeImpl tree = randomTree(random, mode, 20000);
+        RTreeImpl loaded = read(write(tree, encoding));
+
+        assertEquals(16, loaded.getMaxEntries());
+        assertEquals(6, loaded.getMinEntries());
+        assertEquals(tree.getSplitPolicy(), loaded.getSplitPolicy());
+        assertSame(tree.getHilbertCurve(), loaded.getHilbertCurve());
+        SplitPolicyTest.checkNode(loaded.root(), true, 6, 16);
+        double step = (tree.root().maxX - tree.root().minX) / 4294967295.0;
+        assertSameShape(tree.root(), loaded.root(), encoding == RTreeSnapshot.Encoding.QUANTIZED ? step : 0);
+
+        // 복원한 트리도 보통의 트리처럼 갱신/질의 가능
+        for (int i = 0; i < 2000; i++) {
+            Point p = new Point(random.nextDouble() * 1000, random.nextDouble() * 1000);
+            tree.add(p);
+            loaded.add(p);
+        }
+        SplitPolicyTest.checkNode(loaded.root(), true, 6, 16);
+        Rectangle r = new Rectangle(new Point(200, 200), new Point(400, 400));
+        assertEquals(tree.count(r), loaded.count(r), encoding == RTreeSnapshot.Encoding.QUANTIZED ? 2 : 0);
+    }
+
+    @Test
+    public void emptyTreesAndRectangleEntriesRoundTrip() throws IOException {
+        for (RTreeSnapshot.Encoding encoding : RTreeSnapshot.Encoding.values()) {
+            RTreeImpl empty = read(write(new RTreeImpl(), encoding));
+            assertTrue(empty.isEmpty());
+            empty.add(new Point(1, 2));
+            assertFalse(empty.isEmpty());
+
+            Random random = new Random(5);
+            boolean quantized = encoding == RTreeSnapshot.Encoding.QUANTIZED;
+            RTreeImpl tree = quantized ? new RTreeImpl(8, 3, SplitPolicy.RSTAR)
+                    : new RTreeImpl(8, 3, new HilbertCurve(0, 0, 100, 100, 12));
+            for (int i = 0; i < 3000; i++) {
+                double x = random.nextInt(100), y = random.nextDouble() * 100;
+                if (i % 3 == 0) tree.addEntry(x, y, x + random.nextInt(5), y + random.nextDouble(), null);
+                else tree.addEntry(x, y, x, y, null);
+            }
+            RTreeImpl loaded = read(write(tree, encoding));
+            if (!quantized) {
+                assertEquals(12, loaded.getHilbertCurve().getBits());
+                assertEquals(tree.getHilbertCurve().index(37, 61), loaded.getHilbertCurve().index(37, 61));
+            }
+            assertSameShape(tree.root(), loaded.root(), quantized ? 105 / 4294967295.0 : 0);
+        }
+    }
+
+    @Test
+    public void deltaAndQuantizedAreSmallerThanRaw() throws IOException {
+        Random random = new Random(7);
+        RTreeImpl tree = randomTree(random, "RSTAR", 40000);
+        int raw = write(tree, RTreeSnapshot.Encoding.RAW).length;
+        int delta = write(tree, RTreeSnapshot.Encoding.DELTA).length;
+        int quantized = write(tree, RTreeSnapshot.Encoding.QUANTIZED).length;
+        assertTrue(delta < raw, delta + " vs " + raw);
+        assertTrue(quantized < delta, quantized + " vs " + delta);
+
+        // 정수 좌표는 XOR delta가 하위 가수의 0을 모두 빼서 훨씬 작아짐
+        RTreeImpl grid = new RTreeImpl(16, 6, SplitPolicy.RSTAR);
+        for (int i = 0; i < 20000; i++) grid.add(new Point(random.nextInt(10000), random.nextInt(10000)));
+        assertTrue(write(grid, RTreeSnapshot.Encoding.DELTA).length * 2 < write(grid, RTreeSnapshot.Encoding.RAW).length);
+    }
+
+    @Test
+    public void corruptOrTruncatedSnapshotsAreRejected() throws IOException {
+        RTreeImpl tree = randomTree(new Random(11), "QUADRATIC", 30000);
+        byte[] bytes = write(tree, RTreeSnapshot.Encoding.DELTA);
+        assertTrue(bytes.length > 3 * (1 << 16), "several blocks");
+
+        for (int at : new int[] { 3, 100, bytes.length / 2, bytes.length - 20 }) {
+            byte[] corrupt = bytes.clone();
+            corrupt[at] ^= 0x10;
+            assertThrows(IOException.class, () -> read(corrupt), "flipped byte " + at);
+        }
+        for (int length : new int[] { 0, 10, bytes.length / 3, bytes.length - 1 }) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThrows(IOException.class, () -> read(truncated), "truncated to " + length);
+        }
+
+        EntryRTree<String> entries = new EntryRTree<>();
+        entries.add(1, 2, "a");
+        assertThrows(IllegalArgumentException.class,
+                () -> RTreeSnapshot.write(entries.tree(), Channels.newChannel(new ByteArrayOutputStream()),
+                        RTreeSnapshot.Encoding.RAW));
+        // 양자화한 좌표로는 HILBERT 트리의 키 순서를 지킬 수 없음
+        RTreeImpl hilbert = randomTree(new Random(13), "HILBERT", 1000);
+        assertThrows(IllegalArgumentException.class, () -> write(hilbert, RTreeSnapshot.Encoding.QUANTIZED));
+    }
+}
@@ -0,0 +1,100 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * SpatialJoin 결과를 전수 비교 / 점별 nearest와 비교
+ */
+public class SpatialJoinTest {
+
+    private static List<Point> randomPoints(Random random, int n, int range) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            points.add(new Point(random.nextInt(range), random.nextInt(range)));
+        return points;
+    }
+
+    private static String key(double ax, double ay, double bx, double by) {
+        return ax + "," + ay + "-" + bx + "," + by;
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "4, 2, 0", "16, 6, 3", "32, 12, 10", "16, 6, 60" })
+    public void withinDistanceMatchesBruteForce(int maxEntries, int minEntries, double distance) {
+        Random random = new Random(maxEntries);
+        List<Point> left = randomPoints(random, 1500, 500);
+        List<Point> right = randomPoints(random, 800, 500);
+        // 서로 다른 높이의 두 트리 (한쪽은 삽입, 한쪽은 일괄 적재)
+        RTreeImpl a = new RTreeImpl(maxEntries, minEntries, SplitPolicy.RSTAR);
+        left.forEach(a::add);
+        RTreeImpl b = RTreeImpl.bulkLoad(right, 64, 25, SplitPolicy.QUADRATIC);
+
+        List<String> expected = new ArrayList<>();
+        for (Point p : new HashSet<>(left))
+            for (Point q : new HashSet<>(right))
+                if (p.distance(q) <= distance) expected.add(key(p.getX(), p.getY(), q.getX(), q.getY()));
+        Collections.sort(expected);
+
+        List<String> sequential = new ArrayList<>();
+        SpatialJoin.withinDistance(a, b, distance, (ax, ay, bx, by) -> sequential.add(key(ax, ay, bx, by)));
+        List<String> parallel = Collections.synchronizedList(new ArrayList<>());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SpatialJoin.withinDistance(a, b, distance, (ax, ay, bx, by) -> parallel.add(key(ax, ay, bx, by)), pool);
+        } finally {
+            pool.shutdown();
+        }
+        Collections.sort(sequential);
+        Collections.sort(parallel);
+        assertEquals(expected, sequential);
+        assertEquals(expected, parallel);
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "1, 4, 2", "5, 16, 6", "40, 32, 12" })
+    public void nearestJoinMatchesPerPointNearest(int k, int maxEntries, int minEntries) {
+        Random random = new Random(k);
+        RTreeImpl a = RTreeImpl.bulkLoad(randomPoints(random, 1000, 300), maxEntries, minEntries, SplitPolicy.RSTAR);
+        RTreeImpl b = new RTreeImpl(maxEntries, minEntries, SplitPolicy.QUADRATIC);
+        randomPoints(random, 700, 300).forEach(b::add); // 동점 거리가 많음
+
+        // a의 점 순서(DFS)대로, 점마다 b.nearest(a, k)
+        List<String> expected = new ArrayList<>();
+        a.search(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.POSITIVE_INFINITY, (ax, ay) -> b.nearest(new Point(ax, ay), k)
+                        .forEachRemaining(q -> expected.add(key(ax, ay, q.getX(), q.getY()))));
+
+        List<String> sequential = new ArrayList<>();
+        SpatialJoin.nearest(a, b, k, (ax, ay, bx, by) -> sequential.add(key(ax, ay, bx, by)));
+        assertEquals(expected, sequential);
+
+        List<String> parallel = Collections.synchronizedList(new ArrayList<>());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SpatialJoin.nearest(a, b, k, (ax, ay, bx, by) -> parallel.add(key(ax, ay, bx, by)), pool);
+        } finally {
+            pool.shutdown();
+        }
+        List<String> sorted = new ArrayList<>(expected);
+        Collections.sort(sorted);
+        Collections.sort(parallel);
+        assertEquals(sorted, parallel);
+
+        List<String> none = new ArrayList<>();
+        SpatialJoin.nearest(a, new RTreeImpl(), k, (ax, ay, bx, by) -> none.add(key(ax, ay, bx, by)));
+        SpatialJoin.withinDistance(new RTreeImpl(), b, 10, (ax, ay, bx, by) -> none.add(key(ax, ay, bx, by)));
+        assertTrue(none.isEmpty());
+
+        // k가 오른쪽 점 수보다 훨씬 크면 모든 쌍
+        RTreeImpl small = RTreeImpl.bulkLoad(randomPoints(random, 20, 300));
+        long[] pairs = new long[1];
+        SpatialJoin.nearest(a, small, Integer.MAX_VALUE - 8, (ax, ay, bx, by) -> pairs[0]++);
+        assertEquals((long) a.size() * small.size(), pairs[0]);
+    }
+}
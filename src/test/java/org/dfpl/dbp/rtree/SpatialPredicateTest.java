@@ -0,0 +1,79 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 조건 탐색(search(SpatialPredicate)) 결과를 전수 비교로 검증하고, 실제 모양으로 가지치기하는지 확인
+ */
+public class SpatialPredicateTest {
+
+    private static List<Point> toList(Iterator<Point> it) {
+        List<Point> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    private static void check(RTreeImpl tree, List<Point> points, SpatialPredicate predicate) {
+        Set<Point> expected = new HashSet<>();
+        for (Point p : points) if (predicate.matches(p.getX(), p.getY())) expected.add(p);
+
+        List<Point> lazy = toList(tree.search(predicate));
+        List<Point> pushed = new ArrayList<>();
+        int count = tree.search(predicate, (x, y) -> pushed.add(new Point(x, y)));
+        assertEquals(expected, new HashSet<>(lazy));
+        assertEquals(lazy, pushed);
+        assertEquals(pushed.size(), count);
+    }
+
+    @Test
+    public void shapesMatchBruteForce() {
+        Random random = new Random(23);
+        List<Point> points = SplitPolicyTest.uniform(random, 20000);
+        for (int i = 0; i < 200; i++) points.add(new Point(random.nextInt(1000), random.nextInt(1000))); // 정수 좌표(경계 위 점)
+        RTreeImpl tree = RTreeImpl.bulkLoad(points, 16, 6, SplitPolicy.RSTAR);
+
+        for (int q = 0; q < 30; q++) {
+            double cx = random.nextInt(1000), cy = random.nextInt(1000);
+            check(tree, points, SpatialPredicate.circle(cx, cy, random.nextInt(200)));
+            check(tree, points, SpatialPredicate.halfPlane(random.nextGaussian(), random.nextGaussian(), cx));
+            check(tree, points, SpatialPredicate.rectangle(cx, cy, cx + 100, cy + 50)
+                    .and(SpatialPredicate.circle(cx, cy, 80)));
+        }
+
+        // 오목한 별 모양 다각형 (꼭짓점/변 위에 정수 좌표 점이 걸림)
+        double[] xs = new double[10], ys = new double[10];
+        for (int i = 0; i < 10; i++) {
+            double r = i % 2 == 0 ? 400 : 120, a = Math.PI * i / 5;
+            xs[i] = Math.round(500 + r * Math.cos(a));
+            ys[i] = Math.round(500 + r * Math.sin(a));
+        }
+        SpatialPredicate star = SpatialPredicate.polygon(xs, ys);
+        check(tree, points, star);
+        check(tree, points, SpatialPredicate.polygon(new double[] { 0, 1000, 0 }, new double[] { 0, 0, 1000 }));
+        assertTrue(star.matches(xs[3], ys[3]));
+        assertFalse(star.matches(500 + 300, 500 + 300));
+
+        assertThrows(IllegalArgumentException.class, () -> SpatialPredicate.polygon(new double[] { 0, 1 }, new double[] { 0, 1 }));
+    }
+
+    @Test
+    public void predicatePrunesByShapeNotBoundingBox() {
+        RTreeImpl tree = RTreeImpl.bulkLoad(SplitPolicyTest.uniform(new Random(29), 100000), 16, 6, SplitPolicy.RSTAR);
+        VisitCounter counter = VisitCounter.attach(tree);
+
+        // 얇은 대각선 띠: 바운딩 박스는 전체 영역이지만 실제 모양은 좁음
+        SpatialPredicate band = SpatialPredicate.halfPlane(1, -1, 5).and(SpatialPredicate.halfPlane(-1, 1, 5));
+        int found = tree.search(band, (x, y) -> { });
+        long bandVisits = counter.visits;
+        counter.visits = 0;
+        tree.search(0, 0, 1000, 1000, (x, y) -> { });
+        long boxVisits = counter.visits;
+
+        assertTrue(found > 0);
+        assertTrue(bandVisits * 4 < boxVisits, bandVisits + " vs " + boxVisits);
+    }
+}
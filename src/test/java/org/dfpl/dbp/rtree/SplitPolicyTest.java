@@ -0,0 +1,103 @@
+package org.dfpl.dbp.rtree;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * 분할 정책별 정확성/구조 검증
+ */
+public class SplitPolicyTest {
+
+    private static final int QUERIES = 300;
+
+    static List<Point> uniform(Random random, int n) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) points.add(new Point(random.nextDouble() * 1000, random.nextDouble() * 1000));
+        return points;
+    }
+
+    static List<Point> clustered(Random random, int n) {
+        List<Point> points = new ArrayList<>();
+        double[][] centers = new double[20][];
+        for (int i = 0; i < centers.length; i++)
+            centers[i] = new double[] { random.nextDouble() * 1000, random.nextDouble() * 1000 };
+        for (int i = 0; i < n; i++) {
+            double[] c = centers[random.nextInt(centers.length)];
+            points.add(new Point(c[0] + random.nextGaussian() * 15, c[1] + random.nextGaussian() * 15));
+        }
+        return points;
+    }
+
+    // 각 노드의 MBR이 엔트리를 정확히 감싸고, 부모 배열의 자식 MBR이 자식과 같고, 루트 외 노드는 최소 차수 이상인지 확인
+    static void checkNode(RTreeImpl.Node n, boolean isRoot, int minFill, int maxFill) {
+        int size = n.size();
+        assertTrue(size <= maxFill, "overflow: " + size);
+        if (!isRoot) assertTrue(size >= minFill, "underflow: " + size);
+        if (size == 0) {
+            assertEquals(0, n.count);
+            return;
+        }
+
+        int count = 0;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            if (n.isLeaf) {
+                minX = Math.min(minX, n.xs[i]);
+                minY = Math.min(minY, n.ys[i]);
+                maxX = Math.max(maxX, n.hxs[i]);
+                maxY = Math.max(maxY, n.hys[i]);
+            } else {
+                RTreeImpl.Node c = n.children[i];
+                assertSame(n, c.parent);
+                assertEquals(n.level - 1, c.level);
+                checkNode(c, false, minFill, maxFill);
+                assertEquals(c.minX, n.minXs[i]);
+                assertEquals(c.minY, n.minYs[i]);
+                assertEquals(c.maxX, n.maxXs[i]);
+                assertEquals(c.maxY, n.maxYs[i]);
+                assertEquals(c.count, n.counts[i]);
+                count += c.count;
+                minX = Math.min(minX, c.minX);
+                minY = Math.min(minY, c.minY);
+                maxX = Math.max(maxX, c.maxX);
+                maxY = Math.max(maxY, c.maxY);
+            }
+        }
+        assertEquals(minX, n.minX);
+        assertEquals(minY, n.minY);
+        assertEquals(maxX, n.maxX);
+        assertEquals(maxY, n.maxY);
+        assertEquals(n.isLeaf ? size : count, n.count);
+    }
+
+    private static void checkSearches(RTreeImpl tree, List<Point> points, Random random) {
+        for (int q = 0; q < QUERIES; q++) {
+            double x = random.nextDouble() * 1000, y = random.nextDouble() * 1000, w = 20 + random.nextDouble() * 30;
+            Rectangle r = new Rectangle(new Point(x, y), new Point(x + w, y + w));
+
+            int expected = 0;
+            for (Point p : points)
+                if (p.getX() >= x && p.getX() <= x + w && p.getY() >= y && p.getY() <= y + w) expected++;
+            int found = 0;
+            for (Iterator<Point> it = tree.search(r); it.hasNext(); it.next()) found++;
+            assertEquals(expected, found);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(SplitPolicy.class)
+    public void treeStaysValid(SplitPolicy policy) {
+        Random random = new Random(5);
+        RTreeImpl tree = new RTreeImpl(policy);
+        List<Point> points = uniform(random, 2000);
+        for (Point p : points) tree.add(p);
+        checkNode(tree.root(), true, 2, 4);
+
+        checkSearches(tree, points, random);
+    }
+}
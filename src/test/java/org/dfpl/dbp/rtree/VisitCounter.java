@@ -0,0 +1,21 @@
+package org.dfpl.dbp.rtree;
+
+/**
+ * 탐색 중 노드 방문 수를 세는 listener (질의가 트리를 얼마나 훑는지 검증용)
+ */
+class VisitCounter implements RTreeListener {
+
+    long visits;
+
+    // tree에 등록한 새 counter
+    static VisitCounter attach(RTreeImpl tree) {
+        VisitCounter counter = new VisitCounter();
+        tree.addListener(counter);
+        return counter;
+    }
+
+    @Override
+    public void nodeVisited(RTreeImpl.Node node) {
+        visits++;
+    }
+}